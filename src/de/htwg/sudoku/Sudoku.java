@@ -1,24 +1,56 @@
 package de.htwg.sudoku;
 
 import de.htwg.sudoku.aview.gui.SudokuFrame;
+import de.htwg.sudoku.aview.http.SessionRegistry;
+import de.htwg.sudoku.aview.http.SudokuServer;
 import de.htwg.sudoku.aview.tui.TextUI;
 import de.htwg.sudoku.controller.ISudokuController;
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.IGridFactory;
 
+import de.htwg.sudoku.model.impl.GridCreateStrategyFactory;
+import de.htwg.sudoku.model.impl.LibraryGridCreateStrategy;
+import de.htwg.sudoku.model.impl.PuzzleLibrary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.BitSet;
 import java.util.Scanner;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
 public final class Sudoku {
 	/* Fields */
+	private static final Logger LOGGER = LogManager.getLogger(Sudoku.class.getName());
+	private static final long SESSION_IDLE_MILLIS = 5 * 60 * 1000L;
 	private static Scanner scanner;
 	private TextUI tui;
 	private SudokuFrame gui;
+	private SudokuServer server;
 	protected ISudokuController controller;
 	private static Sudoku instance = null;
 
 	/* Constructor */
 	private Sudoku() {
+		// Draw the puzzles from a library if one is given
+		String library = System.getProperty("sudoku.library");
+		if (library != null) {
+			try {
+				PuzzleLibrary puzzles = new PuzzleLibrary(Paths.get(library));
+				// the grids of all games share what was served, so a resize
+				// does not serve a puzzle again
+				BitSet served = new BitSet();
+				GridCreateStrategyFactory.setStrategies(() -> new LibraryGridCreateStrategy(puzzles, served));
+			} catch (IOException e) {
+				LOGGER.info("Could not open the puzzle library " + library, e);
+			}
+		}
+
 		// Set up Google Guice Dependency Injector
 		Injector injector = Guice.createInjector(new SudokuModule());
 
@@ -30,6 +62,32 @@ public final class Sudoku {
 
 		// Create an initial game
 		controller.create();
+
+		// Resume and record the session if a journal directory is given
+		String journal = System.getProperty("sudoku.journal");
+		if (journal != null) {
+			controller.openJournal(journal);
+			Runtime.getRuntime().addShutdownHook(new Thread(controller::closeJournal));
+		}
+
+		// Serve separate games over HTTP if a port is given, the sessions
+		// are passivated to sudoku.sessions or a temporary directory
+		String port = System.getProperty("sudoku.http.port");
+		if (port != null) {
+			IGridFactory gridFactory = injector.getInstance(IGridFactory.class);
+			try {
+				String directory = System.getProperty("sudoku.sessions");
+				SessionRegistry sessions = new SessionRegistry(
+						directory == null ? Files.createTempDirectory("sudoku-sessions") : Paths.get(directory),
+						() -> new SudokuController(gridFactory), SESSION_IDLE_MILLIS,
+						Runtime.getRuntime().maxMemory() / 2);
+				Runtime.getRuntime().addShutdownHook(new Thread(sessions::close));
+				server = new SudokuServer(Integer.parseInt(port), sessions);
+				server.start();
+			} catch (IOException e) {
+				LOGGER.info("Could not start the server on port " + port, e);
+			}
+		}
 	}
 
 	/* Methods */
@@ -49,6 +107,10 @@ public final class Sudoku {
 		return gui;
 	}
     
+    public SudokuServer getServer() {
+    	return server;
+    }
+
     public ISudokuController getController() {
     	return controller;
     }
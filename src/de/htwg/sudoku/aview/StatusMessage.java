@@ -31,6 +31,8 @@ public class StatusMessage {
         text.put(GameStatus.UNDO, "Undid last change");
         text.put(GameStatus.COPY, "Copied the Sudoku to the clipboard");
         text.put(GameStatus.PASTE, "Pasted the Sudoku from the clipboard");
+        text.put(GameStatus.HINT, "Hint: ");
+        text.put(GameStatus.RESUME, "Resumed session ");
     }
 
 }
@@ -47,7 +47,9 @@ public class CellPanel extends JPanel {
         g.draw3DRect(inset + 1, inset + 1, getWidth() - inset * 2 - 2,
                 getHeight() - inset * 2 - 2, true);
 
-        if (controller.isGiven(row, column)) {
+        if (controller.isConflicting(row, column)) {
+            g.setColor(Constances.CONFLICTING_CELL_BACKGROUND_COLOR);
+        } else if (controller.isGiven(row, column)) {
             g.setColor(Constances.GIVEN_BACKGROUND_COLOR);
         } else if (!controller.isSet(row, column)
                 && controller.isHighlighted(row, column)) {
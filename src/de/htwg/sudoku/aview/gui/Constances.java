@@ -14,6 +14,10 @@ public final class Constances {
     public static final Color HIGHLIGHTED_CELL_BACKGROUND_COLOR = new Color(
             192, 255, 192);
 
+    /** The color used to fill cells that repeat a value of their row, column or block. */
+    public static final Color CONFLICTING_CELL_BACKGROUND_COLOR = new Color(255,
+            192, 192);
+
     /** The color used to fill supporting cells. */
     public static final Color SUPPORTING_CELL_BACKGROUND_COLOR = new Color(255,
             255, 192);
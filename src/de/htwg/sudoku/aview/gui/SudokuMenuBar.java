@@ -47,7 +47,7 @@ public class SudokuMenuBar extends JMenuBar{
 	JMenuItem undoMenuItem, redoMenuItem, copyMenuItem, pasteMenuItem;
 
 	JMenu solveMenu;
-	JMenuItem solveMenuItem;
+	JMenuItem solveMenuItem, hintMenuItem;
 
 	JMenu digitMenu;
 	JMenuItem noneMenuItem, digitMenuItem;
@@ -165,6 +165,18 @@ public class SudokuMenuBar extends JMenuBar{
 		solveMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0));
 
 		solveMenu.add(solveMenuItem);
+
+		hintMenuItem = new JMenuItem("Hint");
+		hintMenuItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				controller.hint();
+			}
+		});
+		hintMenuItem.setMnemonic(KeyEvent.VK_H);
+		hintMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_H, InputEvent.CTRL_DOWN_MASK));
+
+		solveMenu.add(hintMenuItem);
 		this.add(solveMenu);
 	}
 
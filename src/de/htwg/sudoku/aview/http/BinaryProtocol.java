@@ -0,0 +1,192 @@
+package de.htwg.sudoku.aview.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact binary form of boards and their changes for thin clients. A 9x9
+ * board takes about 61 bytes for its cells, where toJson writes some 8 KB.
+ * BoardDecoder is the reference for reading it.
+ *
+ * <pre>
+ * frame   := varint(length of payload) payload
+ * payload := BOARD varint(version) varint(size) status cells
+ *          | DIFF  varint(version) varint(since) status varint(count) varint(delta){count} cells
+ * status  := ordinal:byte varint(length) message:UTF-8 | UNCHANGED:byte
+ * cells   := for each cell, packed from the highest bit on and padded to whole bytes:
+ *            value:bits(size) given:1 shown:1 [candidates:size, if shown and value is 0]
+ * </pre>
+ *
+ * Varints are unsigned LEB128: seven bits per byte, the lowest first, the
+ * high bit set on all bytes but the last. bits(size) is the bit length of
+ * size, 4 for 9 and 5 for 16 or 25. The status is the ordinal of the
+ * GameStatus and the status message; a diff leaves it out when it did not
+ * change. A diff lists the cells that changed since the version since, each
+ * index as the delta to the one before, the first to -1. Bit c - 1 of the
+ * candidates stands for candidate c. A frame of length 0 is a heartbeat.
+ */
+public final class BinaryProtocol {
+
+	/* Fields */
+	public static final int BOARD = 1;
+	public static final int DIFF = 2;
+	public static final int UNCHANGED = 0xFF;
+	public static final String CONTENT_TYPE = "application/octet-stream";
+
+	static final byte[] HEARTBEAT = { 0 };
+
+	/* Constructors */
+	private BinaryProtocol() {
+	}
+
+	/* Methods */
+	/**
+	 * @return the frame of the whole board of state.
+	 */
+	static byte[] board(GameState state, long version) {
+		Payload payload = new Payload(BOARD, version);
+		payload.varint(state.size);
+		payload.status(state);
+		Cells cells = new Cells(payload, state.size);
+		for (int index = 0; index < state.cells.length; index++) {
+			cells.write(state, index);
+		}
+		cells.flush();
+		return payload.frame();
+	}
+
+	/**
+	 * @return the frame of the cells of current that differ from previous,
+	 *         null if nothing changed. Both must have the same size.
+	 */
+	static byte[] diff(GameState previous, GameState current, long since, long version) {
+		int count = 0;
+		for (int index = 0; index < current.cells.length; index++) {
+			if (!current.sameCell(previous, index)) {
+				count++;
+			}
+		}
+		boolean sameStatus = current.sameStatus(previous);
+		if (count == 0 && sameStatus) {
+			return null;
+		}
+		Payload payload = new Payload(DIFF, version);
+		payload.varint(since);
+		if (sameStatus) {
+			payload.write(UNCHANGED);
+		} else {
+			payload.status(current);
+		}
+		payload.varint(count);
+		int last = -1;
+		for (int index = 0; index < current.cells.length; index++) {
+			if (!current.sameCell(previous, index)) {
+				payload.varint(index - last);
+				last = index;
+			}
+		}
+		Cells cells = new Cells(payload, current.size);
+		for (int index = 0; index < current.cells.length; index++) {
+			if (!current.sameCell(previous, index)) {
+				cells.write(current, index);
+			}
+		}
+		cells.flush();
+		return payload.frame();
+	}
+
+	/**
+	 * @return the number of bits of a value in a grid of size.
+	 */
+	public static int valueBits(int size) {
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+
+	/**
+	 * The payload of a frame while it is written.
+	 */
+	private static class Payload extends ByteArrayOutputStream {
+
+		Payload(int type, long version) {
+			write(type);
+			varint(version);
+		}
+
+		void varint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+		void status(GameState state) {
+			byte[] message = state.message.getBytes(StandardCharsets.UTF_8);
+			write(state.status.ordinal());
+			varint(message.length);
+			write(message, 0, message.length);
+		}
+
+		/**
+		 * @return the payload with its length in front.
+		 */
+		byte[] frame() {
+			Payload frame = new Payload(size());
+			frame.write(buf, 0, count);
+			return frame.toByteArray();
+		}
+
+		private Payload(int length) {
+			super(length + 5);
+			varint(length);
+		}
+	}
+
+	/**
+	 * Packs cells into a payload from the highest bit on.
+	 */
+	private static class Cells {
+
+		private final Payload payload;
+		private final int size;
+		private final int valueBits;
+		private long bits;
+		private int pending;
+
+		Cells(Payload payload, int size) {
+			this.payload = payload;
+			this.size = size;
+			this.valueBits = valueBits(size);
+		}
+
+		void write(GameState state, int index) {
+			int cell = state.cells[index];
+			int value = cell & GameState.VALUE;
+			boolean shown = (cell & GameState.SHOW_CANDIDATES) != 0;
+			append(value, valueBits);
+			append((cell & GameState.GIVEN) != 0 ? 1 : 0, 1);
+			append(shown ? 1 : 0, 1);
+			if (shown && value == 0) {
+				append(state.candidates[index], size);
+			}
+		}
+
+		/**
+		 * writes the last bits, padded with zeros to a byte.
+		 */
+		void flush() {
+			if (pending > 0) {
+				append(0, 8 - pending);
+			}
+		}
+
+		private void append(int value, int length) {
+			bits = (bits << length) | (value & ((1L << length) - 1));
+			pending += length;
+			while (pending >= 8) {
+				pending -= 8;
+				payload.write((int) (bits >>> pending) & 0xFF);
+			}
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package de.htwg.sudoku.aview.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The reference client of the BinaryProtocol: keeps the board a client sees
+ * and applies the frames it reads. Apart from the constants of the
+ * protocol it only depends on the JDK, so thin clients can take it along.
+ *
+ * <pre>
+ * BoardDecoder board = new BoardDecoder();
+ * while (board.read(in)) {
+ *     // show board
+ * }
+ * </pre>
+ *
+ * A diff that does not follow the version of the board is rejected; the
+ * client then starts again with a board, e.g. by reconnecting with since.
+ */
+public class BoardDecoder {
+
+	/* Fields */
+	private long version = -1;
+	private int size;
+	private int status = -1;
+	private String message = "";
+	private int[] values = new int[0];
+	private boolean[] given = new boolean[0];
+	private boolean[] showCandidates = new boolean[0];
+	private int[] candidates = new int[0];
+
+	/* Getter and Setter */
+	/**
+	 * @return the version of the last frame, -1 before the first board.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the ordinal of the GameStatus.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public int getValue(int row, int column) {
+		return values[row * size + column];
+	}
+
+	public boolean isGiven(int row, int column) {
+		return given[row * size + column];
+	}
+
+	public boolean isShowCandidates(int row, int column) {
+		return showCandidates[row * size + column];
+	}
+
+	/**
+	 * @return the candidates of an unset cell that shows them, bit c - 1 for
+	 *         candidate c.
+	 */
+	public int getCandidates(int row, int column) {
+		return candidates[row * size + column];
+	}
+
+	/* Methods */
+	/**
+	 * reads the next frame of in and applies it, heartbeats are skipped.
+	 *
+	 * @return false if in ended before the frame.
+	 * @throws IOException
+	 *             if the frame is malformed, cut off or a diff that does not
+	 *             follow.
+	 */
+	public boolean read(InputStream in) throws IOException {
+		int length;
+		do {
+			int first = in.read();
+			if (first < 0) {
+				return false;
+			}
+			length = (int) varint(in, first);
+		} while (length == 0);
+		byte[] payload = new byte[length];
+		new DataInputStream(in).readFully(payload);
+		apply(payload);
+		return true;
+	}
+
+	/**
+	 * applies the payload of a frame, without its length.
+	 *
+	 * @throws IOException
+	 *             if the payload is malformed or a diff that does not follow.
+	 */
+	public void apply(byte[] payload) throws IOException {
+		InputStream in = new ByteArrayInputStream(payload);
+		int type = in.read();
+		long frameVersion = varint(in);
+		if (type == BinaryProtocol.BOARD) {
+			int frameSize = (int) varint(in);
+			if (frameSize < 1 || frameSize > 25) {
+				throw new IOException("Illegal size " + frameSize);
+			}
+			readStatus(in);
+			resize(frameSize);
+			Bits bits = new Bits(in);
+			for (int index = 0; index < values.length; index++) {
+				readCell(bits, index);
+			}
+		} else if (type == BinaryProtocol.DIFF) {
+			long since = varint(in);
+			if (since != version) {
+				throw new IOException("The diff since " + since + " does not follow version " + version);
+			}
+			readStatus(in);
+			int[] indexes = new int[(int) varint(in)];
+			int index = -1;
+			for (int i = 0; i < indexes.length; i++) {
+				index += (int) varint(in);
+				if (index >= values.length) {
+					throw new IOException("Illegal cell " + index);
+				}
+				indexes[i] = index;
+			}
+			Bits bits = new Bits(in);
+			for (int cell : indexes) {
+				readCell(bits, cell);
+			}
+		} else {
+			throw new IOException("Unknown frame type " + type);
+		}
+		version = frameVersion;
+	}
+
+	private void resize(int newSize) {
+		size = newSize;
+		values = new int[size * size];
+		given = new boolean[size * size];
+		showCandidates = new boolean[size * size];
+		candidates = new int[size * size];
+	}
+
+	private void readStatus(InputStream in) throws IOException {
+		int ordinal = readByte(in);
+		if (ordinal == BinaryProtocol.UNCHANGED) {
+			return;
+		}
+		byte[] text = new byte[(int) varint(in)];
+		new DataInputStream(in).readFully(text);
+		status = ordinal;
+		message = new String(text, StandardCharsets.UTF_8);
+	}
+
+	private void readCell(Bits bits, int index) throws IOException {
+		values[index] = bits.read(BinaryProtocol.valueBits(size));
+		given[index] = bits.read(1) == 1;
+		showCandidates[index] = bits.read(1) == 1;
+		candidates[index] = showCandidates[index] && values[index] == 0 ? bits.read(size) : 0;
+	}
+
+	private static int readByte(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+
+	private static long varint(InputStream in) throws IOException {
+		return varint(in, readByte(in));
+	}
+
+	private static long varint(InputStream in, int first) throws IOException {
+		long value = 0;
+		int shift = 0;
+		for (int b = first;; b = readByte(in)) {
+			if (shift > 63) {
+				throw new IOException("Varint too long");
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	/**
+	 * Reads packed cells from the highest bit on.
+	 */
+	private static class Bits {
+
+		private final InputStream in;
+		private long bits;
+		private int available;
+
+		Bits(InputStream in) {
+			this.in = in;
+		}
+
+		int read(int length) throws IOException {
+			while (available < length) {
+				bits = (bits << 8) | readByte(in);
+				available += 8;
+			}
+			available -= length;
+			return (int) ((bits >>> available) & ((1L << length) - 1));
+		}
+	}
+}
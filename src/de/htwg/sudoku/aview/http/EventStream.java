@@ -0,0 +1,540 @@
+package de.htwg.sudoku.aview.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+
+import de.htwg.util.observer.Event;
+import de.htwg.util.observer.IObserver;
+
+/**
+ * Pushes the changes of games to web clients as server-sent events. A
+ * channel observes the controller of a session while it has subscribers.
+ * The notifications of a burst, e.g. the cells filled by solve, are
+ * coalesced: the first one schedules a publish after the coalesce time,
+ * which compares the game with the last published state and sends only the
+ * cells that changed.
+ *
+ * Every event carries a version. A client that reconnects with the last
+ * version it saw, as Last-Event-ID or parameter since, gets the events it
+ * missed if they are still in the recent history, otherwise the full board.
+ *
+ * <pre>
+ * event: board  data: {"version", "size", "status", "message", "cells": [state, ...]}
+ * event: diff   data: {"version", "since", "status", "message", "cells": [index, state, ...]}
+ * </pre>
+ *
+ * The state of a cell is its value, plus GIVEN and SHOW_CANDIDATES; the
+ * index is row * size + column. Candidates follow from the values, so they
+ * are not sent. A binary subscriber gets the same events as frames of the
+ * BinaryProtocol, which do carry the candidates shown.
+ *
+ * One thread publishes the changes of all channels. It never waits for a
+ * session: while another request holds one, its publish is tried again
+ * after the coalesce time. Nor does it wait for a client: every subscriber
+ * has a queue of its own that a writer thread drains. A subscriber that
+ * falls more than QUEUE events behind has its queue replaced by the board,
+ * so a slow client only slows down itself.
+ */
+public class EventStream implements Closeable {
+
+	/* Fields */
+	private static final Logger LOGGER = LogManager.getLogger(EventStream.class.getName());
+
+	public static final long DEFAULT_COALESCE_MILLIS = 20;
+	public static final int GIVEN = GameState.GIVEN;
+	public static final int SHOW_CANDIDATES = GameState.SHOW_CANDIDATES;
+
+	private static final long HEARTBEAT_MILLIS = 15000;
+	private static final int HISTORY = 64;
+	/** the events a subscriber may fall behind before it gets a board instead */
+	static final int QUEUE = 16;
+	private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+	private final SessionRegistry sessions;
+	private final long coalesceMillis;
+	private final ScheduledExecutorService pusher;
+	private final ExecutorService writers;
+	private final JsonFactory jsonFactory = new JsonFactory();
+	/** the versions of all channels come from one counter, so a version never names two states */
+	private final AtomicLong versions = new AtomicLong();
+	/** only used by the pusher thread */
+	private final Map<String, Channel> channels = new HashMap<String, Channel>();
+
+	/* Constructors */
+	public EventStream(SessionRegistry sessions) {
+		this(sessions, DEFAULT_COALESCE_MILLIS);
+	}
+
+	/**
+	 * @param coalesceMillis
+	 *            - how long a change waits for the ones that follow it.
+	 */
+	public EventStream(SessionRegistry sessions, long coalesceMillis) {
+		this.sessions = sessions;
+		this.coalesceMillis = coalesceMillis;
+		this.pusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "event-stream");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.writers = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "event-stream-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pusher.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/* Methods */
+	/**
+	 * starts the event stream of the session id on exchange. The exchange
+	 * stays open until the client goes away or the stream is closed.
+	 *
+	 * @param since
+	 *            - the last version the client saw, -1 for none.
+	 * @param binary
+	 *            - true for frames of the BinaryProtocol instead of
+	 *            server-sent events.
+	 * @throws NoSuchElementException
+	 *             if there is no session id.
+	 */
+	public void subscribe(String id, HttpExchange exchange, long since, boolean binary) throws IOException {
+		sessions.apply(id, controller -> controller);
+		exchange.getResponseHeaders().set("Content-Type",
+				binary ? BinaryProtocol.CONTENT_TYPE : "text/event-stream; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, 0);
+		pusher.execute(() -> {
+			Channel channel = channels.get(id);
+			if (channel == null) {
+				channel = new Channel(id);
+				channels.put(id, channel);
+				channel.observe();
+			}
+			channel.subscribe(new Subscriber(exchange, binary), since);
+		});
+	}
+
+	/**
+	 * ends all streams.
+	 */
+	@Override
+	public void close() {
+		pusher.execute(() -> {
+			for (Channel channel : new ArrayList<Channel>(channels.values())) {
+				channel.closeAll();
+			}
+		});
+		pusher.shutdown();
+		try {
+			pusher.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writers.shutdown();
+	}
+
+	private void heartbeat() {
+		Published heartbeat = new Published(-1, HEARTBEAT, BinaryProtocol.HEARTBEAT);
+		for (Channel channel : new ArrayList<Channel>(channels.values())) {
+			channel.heartbeat(heartbeat);
+		}
+	}
+
+	/**
+	 * An event that was published, kept to be sent again.
+	 */
+	private static class Published {
+
+		private final long since;
+		private final byte[] event;
+		private final byte[] frame;
+
+		Published(long since, byte[] event, byte[] frame) {
+			this.since = since;
+			this.event = event;
+			this.frame = frame;
+		}
+	}
+
+	/**
+	 * A client of a stream, the form it reads and the events it has yet to
+	 * get. The pusher queues the events, a writer thread sends them while
+	 * there are any.
+	 */
+	private class Subscriber {
+
+		private final HttpExchange exchange;
+		private final boolean binary;
+		/** guarded by this */
+		private final Deque<Published> queue = new ArrayDeque<Published>();
+		private boolean writing;
+		private boolean closed;
+
+		Subscriber(HttpExchange exchange, boolean binary) {
+			this.exchange = exchange;
+			this.binary = binary;
+		}
+
+		/**
+		 * queues event. If the subscriber already has QUEUE events pending
+		 * they are dropped, it gets the board of channel instead.
+		 *
+		 * @return false if the stream has ended.
+		 */
+		synchronized boolean offer(Published event, Channel channel) {
+			if (closed) {
+				return false;
+			}
+			if (queue.size() >= QUEUE) {
+				queue.clear();
+				queue.addLast(channel.resync());
+			} else {
+				queue.addLast(event);
+			}
+			if (!writing) {
+				writing = true;
+				writers.execute(this::drain);
+			}
+			return true;
+		}
+
+		/**
+		 * queues a heartbeat unless events are pending anyway.
+		 *
+		 * @return false if the stream has ended.
+		 */
+		synchronized boolean heartbeat(Published heartbeat, Channel channel) {
+			// a closed subscriber has nothing pending, so offer tells
+			return !queue.isEmpty() || offer(heartbeat, channel);
+		}
+
+		/**
+		 * ends the stream once the event being written is sent. The exchange
+		 * is closed by a writer, closing flushes it.
+		 */
+		synchronized void close() {
+			closed = true;
+			queue.clear();
+			if (!writing) {
+				writing = true;
+				writers.execute(this::drain);
+			}
+		}
+
+		/**
+		 * the loop of a writer thread.
+		 */
+		private void drain() {
+			while (true) {
+				Published event;
+				synchronized (this) {
+					event = queue.pollFirst();
+					if (event == null && !closed) {
+						writing = false;
+						return;
+					}
+				}
+				if (event == null) {
+					// writing stays set, so the exchange is closed only once
+					exchange.close();
+					return;
+				}
+				try {
+					OutputStream out = exchange.getResponseBody();
+					out.write(binary ? event.frame : event.event);
+					out.flush();
+				} catch (IOException e) {
+					LOGGER.debug("Event stream ended", e);
+					synchronized (this) {
+						closed = true;
+						queue.clear();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Observes one session and streams its changes to the subscribers. Only
+	 * update and the registration in observe run on other threads than the
+	 * pusher.
+	 */
+	private class Channel implements IObserver {
+
+		private final String id;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final List<Subscriber> subscribers = new ArrayList<Subscriber>();
+		private final Deque<Published> history = new ArrayDeque<Published>();
+		private GameState published;
+		private long version = -1;
+		private Published resync;
+		private long resyncVersion = -1;
+		private volatile boolean closed;
+
+		Channel(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public void update(Event e) {
+			if (!pusher.isShutdown() && scheduled.compareAndSet(false, true)) {
+				pusher.schedule(this::publish, coalesceMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * starts observing the session. The registry waits for the session,
+		 * so a writer does it; the publish that follows catches up with what
+		 * changed in the meantime.
+		 */
+		void observe() {
+			writers.execute(() -> {
+				try {
+					sessions.addObserver(id, this);
+					if (closed) {
+						sessions.removeObserver(id, this);
+					} else {
+						update(null);
+					}
+				} catch (NoSuchElementException e) {
+					if (!pusher.isShutdown()) {
+						pusher.execute(this::closeAll);
+					}
+				}
+			});
+		}
+
+		/**
+		 * catches the client up from version since and adds it to the
+		 * subscribers.
+		 */
+		void subscribe(Subscriber subscriber, long since) {
+			// before the first publish the subscriber gets its board from it
+			if (published != null && since != version) {
+				boolean found = false;
+				for (Published event : history) {
+					found = found || event.since == since;
+					if (found) {
+						subscriber.offer(event, this);
+					}
+				}
+				if (!found) {
+					subscriber.offer(resync(), this);
+				}
+			}
+			subscribers.add(subscriber);
+		}
+
+		/**
+		 * sends what changed since the last publish.
+		 */
+		void publish() {
+			scheduled.set(false);
+			if (channels.get(id) != this) {
+				return;
+			}
+			GameState current;
+			try {
+				current = sessions.tryApply(id, GameState::new);
+			} catch (NoSuchElementException e) {
+				closeAll();
+				return;
+			}
+			if (current == null) {
+				// a request holds the session, its changes are published later
+				update(null);
+				return;
+			}
+			long next = versions.incrementAndGet();
+			Published event;
+			if (published == null || published.size != current.size) {
+				event = board(current, version, next);
+			} else {
+				event = diff(published, current, version, next);
+				if (event == null) {
+					return;
+				}
+			}
+			history.addLast(event);
+			if (history.size() > HISTORY) {
+				history.removeFirst();
+			}
+			published = current;
+			version = next;
+			send(event);
+		}
+
+		/**
+		 * @return the board of the last publish, for subscribers that fell
+		 *         behind.
+		 */
+		Published resync() {
+			if (resyncVersion != version) {
+				resync = board(published, -1, version);
+				resyncVersion = version;
+			}
+			return resync;
+		}
+
+		/**
+		 * queues event for all subscribers, the channel closes when the last
+		 * one went away.
+		 */
+		void send(Published event) {
+			Iterator<Subscriber> iterator = subscribers.iterator();
+			boolean lost = false;
+			while (iterator.hasNext()) {
+				if (!iterator.next().offer(event, this)) {
+					iterator.remove();
+					lost = true;
+				}
+			}
+			if (lost && subscribers.isEmpty()) {
+				closeAll();
+			}
+		}
+
+		/**
+		 * queues heartbeat for the subscribers that have nothing pending.
+		 */
+		void heartbeat(Published heartbeat) {
+			Iterator<Subscriber> iterator = subscribers.iterator();
+			boolean lost = false;
+			while (iterator.hasNext()) {
+				if (!iterator.next().heartbeat(heartbeat, this)) {
+					iterator.remove();
+					lost = true;
+				}
+			}
+			if (lost && subscribers.isEmpty()) {
+				closeAll();
+			}
+		}
+
+		/**
+		 * closes the streams and stops observing the session.
+		 */
+		void closeAll() {
+			for (Subscriber subscriber : subscribers) {
+				subscriber.close();
+			}
+			subscribers.clear();
+			if (!closed) {
+				closed = true;
+				channels.remove(id);
+				writers.execute(() -> sessions.removeObserver(id, this));
+			}
+		}
+	}
+
+	/**
+	 * @param since
+	 *            - the version the board replaces.
+	 */
+	private Published board(GameState state, long since, long version) {
+		return new Published(since, boardEvent(state, version), BinaryProtocol.board(state, version));
+	}
+
+	/**
+	 * @return the changes from previous to current, null if nothing changed.
+	 */
+	private Published diff(GameState previous, GameState current, long since, long version) {
+		byte[] event = diffEvent(previous, current, since, version);
+		return event == null ? null
+				: new Published(since, event, BinaryProtocol.diff(previous, current, since, version));
+	}
+
+	private byte[] boardEvent(GameState state, long version) {
+		return event("board", version, generator -> {
+			generator.writeNumberField("size", state.size);
+			writeStatus(generator, state);
+			generator.writeArrayFieldStart("cells");
+			for (int cell : state.cells) {
+				generator.writeNumber(cell);
+			}
+			generator.writeEndArray();
+		});
+	}
+
+	/**
+	 * @return the cells of current that differ from previous, null if nothing
+	 *         changed.
+	 */
+	private byte[] diffEvent(GameState previous, GameState current, long since, long version) {
+		boolean changed = !current.sameStatus(previous);
+		for (int index = 0; !changed && index < current.cells.length; index++) {
+			changed = !current.sameCell(previous, index);
+		}
+		if (!changed) {
+			return null;
+		}
+		return event("diff", version, generator -> {
+			generator.writeNumberField("since", since);
+			writeStatus(generator, current);
+			generator.writeArrayFieldStart("cells");
+			for (int index = 0; index < current.cells.length; index++) {
+				if (!current.sameCell(previous, index)) {
+					generator.writeNumber(index);
+					generator.writeNumber(current.cells[index]);
+				}
+			}
+			generator.writeEndArray();
+		});
+	}
+
+	private static void writeStatus(JsonGenerator generator, GameState state) throws IOException {
+		generator.writeStringField("status", state.status.name());
+		generator.writeStringField("message", state.message);
+	}
+
+	/**
+	 * Writes the fields of an event.
+	 */
+	private interface Fields {
+		void write(JsonGenerator generator) throws IOException;
+	}
+
+	private byte[] event(String name, long version, Fields fields) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			bytes.write(("id: " + version + "\nevent: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+			try (JsonGenerator generator = jsonFactory.createGenerator(bytes)) {
+				generator.writeStartObject();
+				generator.writeNumberField("version", version);
+				fields.write(generator);
+				generator.writeEndObject();
+			}
+			bytes.write('\n');
+			bytes.write('\n');
+		} catch (IOException e) {
+			// writing to memory does not fail
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,73 @@
+package de.htwg.sudoku.aview.http;
+
+import de.htwg.sudoku.aview.StatusMessage;
+import de.htwg.sudoku.controller.GameStatus;
+import de.htwg.sudoku.controller.ISudokuController;
+
+/**
+ * The game of a session as far as clients see it, read while no other
+ * request of the session runs.
+ *
+ * The state of a cell is its value, plus GIVEN and SHOW_CANDIDATES; the
+ * index is row * size + column. The candidates of an unset cell that shows
+ * them are a mask with bit c - 1 for candidate c, otherwise 0.
+ */
+class GameState {
+
+	/* Fields */
+	static final int VALUE = (1 << 8) - 1;
+	static final int GIVEN = 1 << 8;
+	static final int SHOW_CANDIDATES = 1 << 9;
+
+	final int size;
+	final int[] cells;
+	final int[] candidates;
+	final GameStatus status;
+	final String message;
+
+	/* Constructors */
+	GameState(ISudokuController controller) {
+		this.size = controller.getSize();
+		this.cells = new int[size * size];
+		this.candidates = new int[size * size];
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				int index = row * size + column;
+				int value = controller.getValue(row, column);
+				boolean showCandidates = controller.isShowCandidates(row, column);
+				cells[index] = value | (controller.isGiven(row, column) ? GIVEN : 0)
+						| (showCandidates ? SHOW_CANDIDATES : 0);
+				if (value == 0 && showCandidates) {
+					candidates[index] = candidates(controller, row, column);
+				}
+			}
+		}
+		this.status = controller.getStatus();
+		this.message = StatusMessage.text.get(status) + controller.getStatusText();
+	}
+
+	/* Methods */
+	/**
+	 * @return true if the cell at index looks the same in previous.
+	 */
+	boolean sameCell(GameState previous, int index) {
+		return previous.cells[index] == cells[index] && previous.candidates[index] == candidates[index];
+	}
+
+	/**
+	 * @return true if the status looks the same in previous.
+	 */
+	boolean sameStatus(GameState previous) {
+		return previous.status == status && previous.message.equals(message);
+	}
+
+	private int candidates(ISudokuController controller, int row, int column) {
+		int mask = 0;
+		for (int candidate = 1; candidate <= size; candidate++) {
+			if (controller.isCandidate(row, column, candidate)) {
+				mask |= 1 << (candidate - 1);
+			}
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,470 @@
+package de.htwg.sudoku.aview.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.htwg.sudoku.controller.ISudokuController;
+import de.htwg.util.observer.IObserver;
+
+/**
+ * Keeps the games of many sessions. A session that was not used for the
+ * idle time is passivated: its grid, undo history, candidate display and
+ * status are written to a file of its own and the controller is dropped. The
+ * next access resumes it from there exactly as it was, the caller and the
+ * observers do not notice.
+ *
+ * The active sessions also share a memory budget. Every controller is
+ * weighed when it is used; when the active sessions weigh more than the
+ * budget, the least recently used ones are passivated in the background
+ * until they fit again.
+ *
+ * The files of passive sessions outlive the registry: a registry opened
+ * on the same directory knows them again, so close() passivates every
+ * session.
+ */
+public class SessionRegistry implements Closeable {
+
+	/* Fields */
+	private static final Logger LOGGER = LogManager.getLogger(SessionRegistry.class.getName());
+
+	/** the rough heap of a controller apart from its cells */
+	public static final long BASE_BYTES = 4096;
+	/** the rough heap of a cell with its candidates */
+	public static final long CELL_BYTES = 512;
+	/**
+	 * the rough heap of a move in the undo or redo history, most set one
+	 * value but the ones that create or reset keep the state of the grid
+	 */
+	public static final long MOVE_BYTES = 256;
+
+	private static final String SUFFIX = ".session";
+
+	private final Path directory;
+	private final Supplier<ISudokuController> controllers;
+	private final long idleMillis;
+	private final long memoryBudget;
+	private final ToLongFunction<ISudokuController> weigher;
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+	/** the active sessions, the least recently used first */
+	private final LinkedHashMap<String, Session> active = new LinkedHashMap<String, Session>(16, 0.75f, true);
+	private final ScheduledExecutorService housekeeper;
+	private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+	private final SecureRandom random = new SecureRandom();
+	private long activeBytes;
+
+	/**
+	 * A game and the lock that serializes its use.
+	 */
+	private static class Session {
+
+		private final String id;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final List<IObserver> observers = new ArrayList<IObserver>();
+		private ISudokuController controller;
+		private volatile long lastAccess;
+		private long weight;
+		private boolean removed;
+
+		Session(String id) {
+			this.id = id;
+		}
+	}
+
+	/* Constructors */
+	/**
+	 * weighs the controllers by the number of their cells and the length of
+	 * their history, which grows as long as a game is played.
+	 */
+	public SessionRegistry(Path directory, Supplier<ISudokuController> controllers, long idleMillis,
+			long memoryBudget) throws IOException {
+		this(directory, controllers, idleMillis, memoryBudget,
+				controller -> BASE_BYTES + CELL_BYTES * controller.getSize() * controller.getSize()
+						+ MOVE_BYTES * controller.getHistoryLength());
+	}
+
+	/**
+	 * opens the registry on directory, the sessions passivated there before
+	 * become available again.
+	 *
+	 * @param controllers
+	 *            - creates the controller of a session.
+	 * @param idleMillis
+	 *            - how long a session stays active without being used.
+	 * @param memoryBudget
+	 *            - what the active sessions may weigh together.
+	 * @param weigher
+	 *            - estimates the heap a controller takes.
+	 */
+	public SessionRegistry(Path directory, Supplier<ISudokuController> controllers, long idleMillis,
+			long memoryBudget, ToLongFunction<ISudokuController> weigher) throws IOException {
+		this.directory = directory;
+		this.controllers = controllers;
+		this.idleMillis = idleMillis;
+		this.memoryBudget = memoryBudget;
+		this.weigher = weigher;
+		Files.createDirectories(directory);
+		try (DirectoryStream<Path> passivated = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path path : passivated) {
+				String name = path.getFileName().toString();
+				String id = name.substring(0, name.length() - SUFFIX.length());
+				sessions.put(id, new Session(id));
+			}
+		}
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "session-registry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, idleMillis / 2);
+		housekeeper.scheduleWithFixedDelay(this::passivateIdle, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/* Getter and Setter */
+	public int count() {
+		return sessions.size();
+	}
+
+	public int countActive() {
+		synchronized (active) {
+			return active.size();
+		}
+	}
+
+	/**
+	 * @return what the active sessions weigh together.
+	 */
+	public long getActiveBytes() {
+		synchronized (active) {
+			return activeBytes;
+		}
+	}
+
+	/* Methods */
+	/**
+	 * starts a session with a new puzzle.
+	 *
+	 * @return the id of the session.
+	 */
+	public String create() {
+		String id = newId();
+		Session session = new Session(id);
+		session.lock.lock();
+		try {
+			sessions.put(id, session);
+			session.controller = controllers.get();
+			session.controller.create();
+			touch(session);
+		} finally {
+			session.lock.unlock();
+		}
+		evictIfNeeded();
+		return id;
+	}
+
+	/**
+	 * runs action on the controller of the session id, resuming the session
+	 * if it is passive. No other action of the session runs at the same time.
+	 *
+	 * @return what action returned.
+	 * @throws NoSuchElementException
+	 *             if there is no session id.
+	 */
+	public <T> T apply(String id, Function<ISudokuController, T> action) {
+		return applyLocked(lockedSession(id), action);
+	}
+
+	/**
+	 * runs action like apply, but does not wait while another action of the
+	 * session id runs.
+	 *
+	 * @return what action returned, null if the session was busy.
+	 * @throws NoSuchElementException
+	 *             if there is no session id.
+	 */
+	public <T> T tryApply(String id, Function<ISudokuController, T> action) {
+		Session session = sessions.get(id);
+		if (session == null) {
+			throw new NoSuchElementException("No session " + id);
+		}
+		if (!session.lock.tryLock()) {
+			return null;
+		}
+		if (session.removed) {
+			session.lock.unlock();
+			throw new NoSuchElementException("No session " + id);
+		}
+		return applyLocked(session, action);
+	}
+
+	/**
+	 * lets observer watch the controller of the session id, also after the
+	 * session was passivated and resumed. Passivating and resuming are not
+	 * reported.
+	 *
+	 * @throws NoSuchElementException
+	 *             if there is no session id.
+	 */
+	public void addObserver(String id, IObserver observer) {
+		Session session = lockedSession(id);
+		try {
+			session.observers.add(observer);
+			if (session.controller != null) {
+				session.controller.addObserver(observer);
+			}
+		} finally {
+			session.lock.unlock();
+		}
+	}
+
+	public void removeObserver(String id, IObserver observer) {
+		Session session = sessions.get(id);
+		if (session == null) {
+			return;
+		}
+		session.lock.lock();
+		try {
+			session.observers.remove(observer);
+			if (session.controller != null) {
+				session.controller.removeObserver(observer);
+			}
+		} finally {
+			session.lock.unlock();
+		}
+	}
+
+	/**
+	 * ends the session id.
+	 *
+	 * @return false if there was no such session.
+	 */
+	public boolean remove(String id) {
+		Session session = sessions.remove(id);
+		if (session == null) {
+			return false;
+		}
+		session.lock.lock();
+		try {
+			session.removed = true;
+			deactivate(session);
+			Files.deleteIfExists(file(id));
+		} catch (IOException e) {
+			LOGGER.info("Could not delete the file of session " + id, e);
+		} finally {
+			session.lock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * passivates the sessions that were not used for the idle time. Sessions
+	 * that are in use are left alone.
+	 */
+	public void passivateIdle() {
+		long now = System.currentTimeMillis();
+		for (Session session : leastRecentlyUsed()) {
+			if (now - session.lastAccess < idleMillis) {
+				break;
+			}
+			tryPassivate(session);
+		}
+	}
+
+	/**
+	 * passivates all sessions and stops the background work.
+	 */
+	@Override
+	public void close() {
+		// an interrupt would close the file a running passivation writes
+		housekeeper.shutdown();
+		try {
+			housekeeper.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (Session session : leastRecentlyUsed()) {
+			session.lock.lock();
+			try {
+				passivate(session);
+			} finally {
+				session.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return the session id, locked by the caller.
+	 * @throws NoSuchElementException
+	 *             if there is no session id.
+	 */
+	private Session lockedSession(String id) {
+		Session session = sessions.get(id);
+		if (session != null) {
+			session.lock.lock();
+			if (!session.removed) {
+				return session;
+			}
+			session.lock.unlock();
+		}
+		throw new NoSuchElementException("No session " + id);
+	}
+
+	/**
+	 * @return the file session id is passivated to.
+	 */
+	Path file(String id) {
+		return directory.resolve(id + SUFFIX);
+	}
+
+	/**
+	 * runs action on session, which the caller locked, and unlocks it.
+	 */
+	private <T> T applyLocked(Session session, Function<ISudokuController, T> action) {
+		T result;
+		try {
+			if (session.controller == null) {
+				activate(session);
+				touch(session);
+			}
+			result = action.apply(session.controller);
+			touch(session);
+		} finally {
+			session.lock.unlock();
+		}
+		evictIfNeeded();
+		return result;
+	}
+
+	private String newId() {
+		byte[] bytes = new byte[16];
+		random.nextBytes(bytes);
+		StringBuilder id = new StringBuilder(2 * bytes.length);
+		for (byte b : bytes) {
+			id.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return id.toString();
+	}
+
+	/**
+	 * marks session as the most recently used one and weighs it again. The
+	 * caller holds its lock.
+	 */
+	private void touch(Session session) {
+		long weight = weigher.applyAsLong(session.controller);
+		session.lastAccess = System.currentTimeMillis();
+		synchronized (active) {
+			active.put(session.id, session);
+			activeBytes += weight - session.weight;
+		}
+		session.weight = weight;
+	}
+
+	private void deactivate(Session session) {
+		synchronized (active) {
+			if (active.remove(session.id) != null) {
+				activeBytes -= session.weight;
+			}
+		}
+		session.weight = 0;
+		session.controller = null;
+	}
+
+	/**
+	 * @return the active sessions, the least recently used first.
+	 */
+	private List<Session> leastRecentlyUsed() {
+		synchronized (active) {
+			return new ArrayList<Session>(active.values());
+		}
+	}
+
+	/**
+	 * passivates least recently used sessions in the background until the
+	 * active ones fit into the budget.
+	 */
+	private void evictIfNeeded() {
+		if (getActiveBytes() > memoryBudget && !housekeeper.isShutdown()
+				&& evictionScheduled.compareAndSet(false, true)) {
+			housekeeper.execute(() -> {
+				evictionScheduled.set(false);
+				Iterator<Session> sessionsToEvict = leastRecentlyUsed().iterator();
+				while (getActiveBytes() > memoryBudget && sessionsToEvict.hasNext()) {
+					tryPassivate(sessionsToEvict.next());
+				}
+			});
+		}
+	}
+
+	private void tryPassivate(Session session) {
+		if (session.lock.tryLock()) {
+			try {
+				passivate(session);
+			} finally {
+				session.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * writes the game of session into its file and drops the controller. The
+	 * caller holds the lock. If the file can not be written the session stays
+	 * active.
+	 */
+	private void passivate(Session session) {
+		if (session.controller == null || session.removed) {
+			return;
+		}
+		if (!session.controller.saveSession(file(session.id).toString())) {
+			LOGGER.info("Could not passivate session " + session.id);
+			return;
+		}
+		for (IObserver observer : session.observers) {
+			session.controller.removeObserver(observer);
+		}
+		deactivate(session);
+	}
+
+	/**
+	 * resumes session from its file. The caller holds the lock.
+	 *
+	 * @throws IllegalStateException
+	 *             if the file can not be read, it is kept.
+	 */
+	private void activate(Session session) {
+		Path file = file(session.id);
+		ISudokuController controller = controllers.get();
+		if (!controller.loadSession(file.toString())) {
+			throw new IllegalStateException("Could not resume session " + session.id);
+		}
+		try {
+			Files.delete(file);
+		} catch (IOException e) {
+			LOGGER.info("Could not delete the file of session " + session.id, e);
+		}
+		for (IObserver observer : session.observers) {
+			controller.addObserver(observer);
+		}
+		session.controller = controller;
+	}
+}
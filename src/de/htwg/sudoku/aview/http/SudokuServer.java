@@ -0,0 +1,429 @@
+package de.htwg.sudoku.aview.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.htwg.sudoku.aview.StatusMessage;
+import de.htwg.sudoku.controller.GameStatus;
+import de.htwg.sudoku.controller.ISudokuController;
+
+/**
+ * An HTTP view that offers the operations of the controller as JSON
+ * endpoints. Every session plays its own game with its own controller, grid
+ * and undo history.
+ *
+ * <pre>
+ * POST   /sessions                 starts a session with a new puzzle
+ * GET    /sessions/{id}            the state of the game
+ * DELETE /sessions/{id}            ends the session
+ * GET    /sessions/{id}/events     the changes of the game as server-sent events, see EventStream
+ * GET    /sessions/{id}/board      the game as one frame of the BinaryProtocol
+ * GET    /sessions/{id}/frames     the changes of the game as frames of the BinaryProtocol
+ * POST   /sessions/{id}/{command}  set?row=&amp;column=&amp;value=, candidates?row=&amp;column=,
+ *                                  allcandidates, highlight?value=, create, solve, reset,
+ *                                  undo, redo, hint, size?value=, load (the puzzle is the body)
+ * </pre>
+ *
+ * Every answer is an object with the session, the status, the status message
+ * and the grid as written by toJson. Its ETag changes with the version of
+ * the grid and with the status, a GET with a matching If-None-Match is
+ * answered with 304 Not Modified and no body. Requests are handled by a fixed number
+ * of threads; when their queue is full the accepting thread handles the
+ * request itself, which slows down new connections instead of dropping them.
+ * The sessions are kept by a SessionRegistry, which handles the requests of
+ * one session one after the other and passivates the sessions not in use.
+ */
+public class SudokuServer implements Closeable {
+
+	/* Fields */
+	private static final Logger LOGGER = LogManager.getLogger(SudokuServer.class.getName());
+
+	static final String CONTEXT = "/sessions";
+	static final String EVENTS = "events";
+	static final String BOARD = "board";
+	static final String FRAMES = "frames";
+	private static final String JSON = "application/json; charset=utf-8";
+	private static final int MAX_BODY = 1 << 16;
+	private static final int BACKLOG = 1024;
+	private static final String NODELAY = "sun.net.httpserver.nodelay";
+
+	static {
+		// the JDK server writes the headers and the body of a reply apart;
+		// with Nagle the body waits for the delayed ACK of the client, some
+		// 40 ms on every request of a kept-alive connection
+		if (System.getProperty(NODELAY) == null) {
+			System.setProperty(NODELAY, "true");
+		}
+	}
+
+	private final HttpServer server;
+	private final ThreadPoolExecutor executor;
+	private final SessionRegistry sessions;
+	private final EventStream events;
+	private final JsonFactory jsonFactory = new JsonFactory();
+	/** keeps the entity tags of an earlier run from matching */
+	private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+	/* Constructors */
+	/**
+	 * serves on the loopback interface.
+	 *
+	 * @param port
+	 *            - 0 for any free port.
+	 */
+	public SudokuServer(int port, SessionRegistry sessions) throws IOException {
+		this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), sessions,
+				2 * Runtime.getRuntime().availableProcessors(), BACKLOG);
+	}
+
+	/**
+	 * @param threads
+	 *            - the number of threads that handle requests.
+	 * @param queueLength
+	 *            - the number of requests that may wait for a thread.
+	 */
+	public SudokuServer(InetSocketAddress address, SessionRegistry sessions, int threads, int queueLength)
+			throws IOException {
+		this.sessions = sessions;
+		this.events = new EventStream(sessions);
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueLength), new HandlerThreadFactory(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		this.server = HttpServer.create(address, BACKLOG);
+		server.createContext(CONTEXT, this::handle);
+		server.setExecutor(executor);
+	}
+
+	/* Getter and Setter */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public SessionRegistry getSessions() {
+		return sessions;
+	}
+
+	/* Methods */
+	public void start() {
+		server.start();
+		LOGGER.info("Serving Sudoku sessions on port " + getPort());
+	}
+
+	/**
+	 * stops accepting requests and waits at most a second for the running
+	 * ones. The event streams are ended, the sessions are left to their
+	 * registry.
+	 */
+	@Override
+	public void close() {
+		events.close();
+		server.stop(1);
+		executor.shutdown();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		boolean streaming = false;
+		try {
+			String rest = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+			String[] path = rest.split("/");
+			String method = exchange.getRequestMethod();
+			if (path.length == 3 && (EVENTS.equals(path[2]) || FRAMES.equals(path[2])) && "GET".equals(method)) {
+				events.subscribe(path[1], exchange, since(exchange), FRAMES.equals(path[2]));
+				streaming = true;
+			} else if (!rest.isEmpty() && rest.charAt(0) != '/') {
+				fail(exchange, 404, "Not found");
+			} else if (path.length <= 1) {
+				if ("POST".equals(method)) {
+					startSession(exchange);
+				} else {
+					fail(exchange, 405, "Use POST to start a session");
+				}
+			} else {
+				session(exchange, method, path);
+			}
+		} catch (NoSuchElementException e) {
+			fail(exchange, 404, e.getMessage());
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			fail(exchange, 400, e.getMessage());
+		} catch (RuntimeException e) {
+			LOGGER.info("Request failed", e);
+			fail(exchange, 500, "The request failed");
+		} finally {
+			if (!streaming) {
+				exchange.close();
+			}
+		}
+	}
+
+	/**
+	 * @return the last version an event stream client saw, -1 if it saw
+	 *         none.
+	 */
+	private static long since(HttpExchange exchange) {
+		String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+		if (lastEventId == null) {
+			lastEventId = parseQuery(exchange.getRequestURI().getRawQuery()).get("since");
+		}
+		return lastEventId == null ? -1 : Long.parseLong(lastEventId.trim());
+	}
+
+	private void session(HttpExchange exchange, String method, String[] path) throws IOException {
+		String id = path[1];
+		if (path.length > 3) {
+			fail(exchange, 404, "Not found");
+		} else if (path.length == 3 && BOARD.equals(path[2]) && "GET".equals(method)) {
+			byte[] frame = sessions.apply(id,
+					controller -> BinaryProtocol.board(new GameState(controller), controller.getVersion()));
+			send(exchange, 200, BinaryProtocol.CONTENT_TYPE, frame);
+		} else if (path.length == 3 && "POST".equals(method)) {
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			String body = "load".equals(path[2]) ? readBody(exchange) : null;
+			respond(exchange, 200, id, sessions.apply(id, controller -> {
+				execute(controller, path[2], query, body);
+				return new Game(controller);
+			}));
+		} else if (path.length == 2 && "GET".equals(method)) {
+			Game game = sessions.apply(id, Game::new);
+			if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag(game))) {
+				exchange.getResponseHeaders().set("ETag", etag(game));
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				respond(exchange, 200, id, game);
+			}
+		} else if (path.length == 2 && "DELETE".equals(method)) {
+			if (!sessions.remove(id)) {
+				throw new NoSuchElementException("No session " + id);
+			}
+			exchange.sendResponseHeaders(204, -1);
+		} else {
+			fail(exchange, 405, method + " is not supported here");
+		}
+	}
+
+	private void startSession(HttpExchange exchange) throws IOException {
+		String id = sessions.create();
+		respond(exchange, 201, id, sessions.apply(id, Game::new));
+	}
+
+	/**
+	 * runs command on controller.
+	 *
+	 * @throws NoSuchElementException
+	 *             if there is no such command.
+	 */
+	private static void execute(ISudokuController controller, String command, Map<String, String> query,
+			String body) {
+		int size = controller.getSize();
+		switch (command) {
+		case "set":
+			controller.setValue(argument(query, "row", 0, size - 1), argument(query, "column", 0, size - 1),
+					argument(query, "value", 1, size));
+			break;
+		case "candidates":
+			controller.showCandidates(argument(query, "row", 0, size - 1), argument(query, "column", 0, size - 1));
+			break;
+		case "allcandidates":
+			controller.showAllCandidates();
+			break;
+		case "highlight":
+			controller.highlight(argument(query, "value", 0, size));
+			break;
+		case "create":
+			controller.create();
+			break;
+		case "solve":
+			controller.solve();
+			break;
+		case "reset":
+			controller.reset();
+			break;
+		case "undo":
+			controller.undo();
+			break;
+		case "redo":
+			controller.redo();
+			break;
+		case "hint":
+			controller.hint();
+			break;
+		case "size":
+			controller.resetSize(argument(query, "value", 1, Integer.MAX_VALUE));
+			break;
+		case "load":
+			controller.parseStringToGrid(body);
+			break;
+		default:
+			throw new NoSuchElementException("Unknown command " + command);
+		}
+	}
+
+	/**
+	 * sends the state of a game. It was read while no other request of the
+	 * session ran, but is written after that.
+	 */
+	private void respond(HttpExchange exchange, int code, String id, Game game) throws IOException {
+		exchange.getResponseHeaders().set("ETag", etag(game));
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		ByteArrayOutputStream body = new ByteArrayOutputStream(game.grid.length() + 256);
+		try (JsonGenerator generator = jsonFactory.createGenerator(body)) {
+			generator.writeStartObject();
+			generator.writeStringField("session", id);
+			generator.writeStringField("status", game.status.name());
+			generator.writeStringField("message", StatusMessage.text.get(game.status) + game.statusText);
+			generator.writeFieldName("sudoku");
+			generator.writeRawValue(game.grid);
+			generator.writeEndObject();
+		}
+		send(exchange, code, JSON, body.toByteArray());
+	}
+
+	/**
+	 * sends body with its length, a chunked reply would need one more
+	 * write.
+	 */
+	private static void send(HttpExchange exchange, int code, String contentType, byte[] body)
+			throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(code, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.flush();
+	}
+
+	/**
+	 * @return the entity tag of what a response tells about game.
+	 */
+	private String etag(Game game) {
+		return "\"" + epoch + "-" + Long.toHexString(game.version) + "-"
+				+ Integer.toHexString(Objects.hash(game.status, game.statusText)) + "\"";
+	}
+
+	/**
+	 * @param ifNoneMatch
+	 *            - the entity tags a client has, may be null.
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if ("*".equals(tag) || etag.equals(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void fail(HttpExchange exchange, int code, String message) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (JsonGenerator generator = jsonFactory.createGenerator(body)) {
+			generator.writeStartObject();
+			generator.writeStringField("error", message);
+			generator.writeEndObject();
+		}
+		send(exchange, code, JSON, body.toByteArray());
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		if (query == null) {
+			return parameters;
+		}
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0) {
+				parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+			}
+		}
+		return parameters;
+	}
+
+	/**
+	 * @return the parameter name, it must be a number from min to max.
+	 */
+	private static int argument(Map<String, String> query, String name, int min, int max) {
+		String value = query.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing parameter " + name);
+		}
+		int number = Integer.parseInt(value);
+		if (number < min || number > max) {
+			throw new IllegalArgumentException(name + " must be from " + min + " to " + max);
+		}
+		return number;
+	}
+
+	private static String readBody(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		try (InputStream in = exchange.getRequestBody()) {
+			for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+				if (body.size() + read > MAX_BODY) {
+					throw new IllegalArgumentException("The puzzle is too long");
+				}
+				body.write(buffer, 0, read);
+			}
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * What a response tells about a game.
+	 */
+	private static class Game {
+
+		private final GameStatus status;
+		private final String statusText;
+		private final String grid;
+		private final long version;
+
+		Game(ISudokuController controller) {
+			this.status = controller.getStatus();
+			this.statusText = controller.getStatusText();
+			this.grid = controller.toJson();
+			this.version = controller.getVersion();
+		}
+	}
+
+	/**
+	 * names the handler threads and lets the JVM exit while they are idle.
+	 */
+	private static class HandlerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "sudoku-http-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -1,10 +1,12 @@
 package de.htwg.sudoku.aview.tui;
 
 import de.htwg.sudoku.aview.StatusMessage;
+import de.htwg.sudoku.controller.GameStatus;
 import de.htwg.sudoku.controller.ISudokuController;
 import de.htwg.util.observer.Event;
 import de.htwg.util.observer.IObserver;
 
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,6 +26,12 @@ public class TextUI implements IObserver {
 
 	protected ISudokuController controller;
 
+	/* the last page of toHtml and the state it shows */
+	private String html;
+	private long htmlVersion;
+	private GameStatus htmlStatus;
+	private String htmlStatusText;
+
 	@Inject
 	public TextUI(ISudokuController controller) {
 		this.controller = controller;
@@ -89,6 +97,9 @@ public class TextUI implements IObserver {
 		case "s":
 			controller.solve();
 			break;
+		case "h":
+			controller.hint();
+			break;
 		case "u":
 		case "z":
 			controller.undo();
@@ -129,15 +140,29 @@ public class TextUI implements IObserver {
 		result += NEWLINE + controller.getGridString();
 		result += NEWLINE + StatusMessage.text.get(controller.getStatus()) + controller.getStatusText();
 		result += NEWLINE
-				+ "Possible commands: q-quit, n-new, r-reset, f-refresh, s-solve, u-undo .,+,#-size, xy-show (x,y), xyz-set (x,y) to z";
+				+ "Possible commands: q-quit, n-new, r-reset, f-refresh, s-solve, h-hint, u-undo .,+,#-size, xy-show (x,y), xyz-set (x,y) to z";
 		return result;
 	}
 
+	/**
+	 * @return the game as HTML, it is rendered again only after the grid or
+	 *         the status changed.
+	 */
 	public String toHtml() {
-		String game = this.toString();
-		String result = game.replace(NEWLINE, "<br>");
-		result = result.replace("     ", " &nbsp; &nbsp; ");
-		result = result.replace("   ", " &nbsp; ");
-		return result;
+		long version = controller.getVersion();
+		GameStatus status = controller.getStatus();
+		String statusText = controller.getStatusText();
+		if (html == null || version != htmlVersion || status != htmlStatus
+				|| !Objects.equals(statusText, htmlStatusText)) {
+			String game = this.toString();
+			String result = game.replace(NEWLINE, "<br>");
+			result = result.replace("     ", " &nbsp; &nbsp; ");
+			result = result.replace("   ", " &nbsp; ");
+			html = result;
+			htmlVersion = version;
+			htmlStatus = status;
+			htmlStatusText = statusText;
+		}
+		return html;
 	}
 }
@@ -17,5 +17,7 @@ public enum  GameStatus {
     REDO, 
     UNDO,
     COPY,
-    PASTE
+    PASTE,
+    HINT,
+    RESUME
 }
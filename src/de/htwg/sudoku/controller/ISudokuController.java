@@ -38,6 +38,12 @@ public interface ISudokuController extends IObservable {
      */
     String getGridString();
 
+    /**
+     * @return the modification version of the grid, see IGrid.getVersion().
+     *         It does not cover the status.
+     */
+    long getVersion();
+
     /**
      * @return the textual representation of the status line.
      */
@@ -48,6 +54,11 @@ public interface ISudokuController extends IObservable {
      */
     String getStatusText();
 
+    /**
+     * @return the number of moves that can be undone or redone.
+     */
+    int getHistoryLength();
+
     /**
      * Get the value of the cell at coordinates (row, col).
      * 
@@ -98,6 +109,65 @@ public interface ISudokuController extends IObservable {
      */
     boolean isSet(int row, int column);
 
+    /**
+     * @param row
+     * @param column
+     * @return true if the value of the cell at (row, col) is set a second
+     *         time in its row, column or block.
+     */
+    boolean isConflicting(int row, int column);
+
+    /**
+     * Checks a move against the cached solution of the puzzle, without a
+     * search.
+     * 
+     * @param row
+     * @param column
+     * @param value
+     * @return true if value is the value of the cell at (row, column) in the
+     *         unique solution. If the puzzle has no unique solution, true if
+     *         value is a candidate of the cell.
+     */
+    boolean isCorrect(int row, int column, int value);
+
+    /**
+     * Find the next value the player could set and tell it in the status
+     * text.
+     */
+    void hint();
+
+    /**
+     * Record every following change in the session journal in directory. A
+     * session found there is resumed first.
+     * 
+     * @param directory
+     */
+    void openJournal(String directory);
+
+    /**
+     * Write what is pending and stop recording the session.
+     */
+    void closeJournal();
+
+    /**
+     * Write the whole session to file: the grid, its history, the cells that
+     * show their candidates and the status.
+     * 
+     * @param file
+     * @return false if the file could not be written.
+     */
+    boolean saveSession(String file);
+
+    /**
+     * Replace the session by the one saveSession wrote to file, exactly as it
+     * was. Observers are told that the grid changed.
+     * 
+     * @param file
+     * @return false if the file could not be read, the session is unchanged
+     *         then.
+     */
+    boolean loadSession(String file);
+
     /**
      * @param row
      * @param column
@@ -0,0 +1,65 @@
+package de.htwg.sudoku.controller.impl;
+
+import de.htwg.sudoku.model.IGrid;
+import de.htwg.sudoku.persistence.GridState;
+import de.htwg.util.command.UndoableCommand;
+
+/**
+ * A command that changes the whole grid. It remembers the state of the grid
+ * before and after the change, including which cells are givens. Undo and
+ * redo restore these states, so redoing a command that used random numbers
+ * brings back the same grid.
+ */
+public abstract class GridStateCommand implements UndoableCommand {
+
+/* Fields */
+    protected final IGrid grid;
+    private GridState before;
+    private GridState after;
+
+/* Constructors */
+    protected GridStateCommand(IGrid grid) {
+        this.grid = grid;
+    }
+
+/* Getter and Setter */
+    public GridState getBefore() {
+        return before;
+    }
+
+    public GridState getAfter() {
+        return after;
+    }
+
+    /**
+     * sets the states of a command that was done before, e.g. one read from
+     * a snapshot.
+     */
+    protected void setStates(GridState before, GridState after) {
+        this.before = before;
+        this.after = after;
+    }
+
+/* Methods */
+    @Override
+    public void doCommand() {
+        before = GridState.of(grid);
+        execute();
+        after = GridState.of(grid);
+    }
+
+    @Override
+    public void undoCommand() {
+        before.applyTo(grid);
+    }
+
+    @Override
+    public void redoCommand() {
+        after.applyTo(grid);
+    }
+
+    /**
+     * changes the grid.
+     */
+    protected abstract void execute();
+}
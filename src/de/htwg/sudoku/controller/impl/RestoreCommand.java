@@ -0,0 +1,34 @@
+package de.htwg.sudoku.controller.impl;
+
+import de.htwg.sudoku.model.IGrid;
+import de.htwg.sudoku.persistence.GridState;
+
+/**
+ * Sets the grid to a recorded state. It stands in for a create, solve or
+ * reset command when a session is replayed from its journal.
+ */
+public class RestoreCommand extends GridStateCommand {
+
+/* Fields */
+    private final GridState state;
+
+/* Constructors */
+    public RestoreCommand(IGrid grid, GridState state) {
+        super(grid);
+        this.state = state;
+    }
+
+    /**
+     * creates a command that was already done, it can be undone and redone.
+     */
+    public RestoreCommand(IGrid grid, GridState before, GridState after) {
+        this(grid, after);
+        setStates(before, after);
+    }
+
+/* Methods */
+    @Override
+    protected void execute() {
+        state.applyTo(grid);
+    }
+}
@@ -13,6 +13,14 @@ public class SetValueCommand implements UndoableCommand {
         this.value = value;
     }
 
+    public ICell getCell() {
+        return cell;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
     @Override
     public void doCommand() {
         cell.setValue(value);
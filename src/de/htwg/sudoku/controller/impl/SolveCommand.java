@@ -1,18 +1,27 @@
 package de.htwg.sudoku.controller.impl;
 
+import java.util.Collections;
+import java.util.List;
+
+import de.htwg.sudoku.model.ICell;
 import de.htwg.sudoku.model.IGrid;
-import de.htwg.util.command.UndoableCommand;
-import de.htwg.util.memento.Originator;
+import de.htwg.sudoku.model.SolveMode;
 
-public class SolveCommand extends Originator implements UndoableCommand {
+public class SolveCommand extends GridStateCommand {
 
 /* Fields */
-    private IGrid grid;
+    private SolveMode mode;
     private boolean result=false;
+    private List<ICell> contradiction = Collections.emptyList();
 
 /* Constructors */
     public SolveCommand(IGrid grid) {
-        this.grid = grid;
+        this(grid, SolveMode.BACKTRACKING);
+    }
+
+    public SolveCommand(IGrid grid, SolveMode mode) {
+        super(grid);
+        this.mode = mode;
     }
 
 /* Getter and Setter */
@@ -20,23 +29,21 @@ public class SolveCommand extends Originator implements UndoableCommand {
         return result;
     }
 
-/* Methods */
-    @Override
-    public void doCommand() {
-        result = false;
-        setMemento(grid.toString("."));
-        result = grid.solve();
+    /**
+     * @return the cells of a contradiction found before the search, an empty
+     *         list if the search was run.
+     */
+    public List<ICell> getContradiction() {
+        return contradiction;
     }
 
+/* Methods */
     @Override
-    public void undoCommand() {
-        grid.parseStringToGrid(getMemento());
-    }
-    
-    @Override
-    public void redoCommand() {
+    protected void execute() {
         result = false;
-        setMemento(grid.toString("."));
-        result = grid.solve();
+        contradiction = grid.findContradiction();
+        if (contradiction.isEmpty()) {
+            result = grid.solve(mode);
+        }
     }
 }
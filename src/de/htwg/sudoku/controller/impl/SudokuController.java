@@ -3,10 +3,18 @@ package de.htwg.sudoku.controller.impl;
 import de.htwg.sudoku.controller.GameStatus;
 import de.htwg.sudoku.controller.ISudokuController;
 import de.htwg.sudoku.controller.SizeChangedEvent;
+import de.htwg.sudoku.model.Hint;
 import de.htwg.sudoku.model.ICell;
 import de.htwg.sudoku.model.IGrid;
 import de.htwg.sudoku.model.IGridFactory;
+import de.htwg.sudoku.model.SolveMode;
+import de.htwg.sudoku.persistence.GridState;
+import de.htwg.sudoku.persistence.JournalRecord;
+import de.htwg.sudoku.persistence.PassiveSession;
+import de.htwg.sudoku.persistence.SessionJournal;
+import de.htwg.sudoku.persistence.SessionSnapshot;
 import de.htwg.util.command.UndoManager;
+import de.htwg.util.command.UndoableCommand;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -21,7 +29,10 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
 
 /**
  * Main controller of Sudoku
@@ -39,6 +50,8 @@ public class SudokuController extends Observable implements ISudokuController {
 	private int highlighted;
 	private static final int NORMALGRID = 9;
 	private boolean showCandidates = false;
+	private SessionJournal journal;
+	private String journalFailure;
 
 	/* Constructors */
 	@Inject
@@ -53,6 +66,7 @@ public class SudokuController extends Observable implements ISudokuController {
 		try {
 			this.grid = gridFactory.create(size);
 			undoManager.reset();
+			record(JournalRecord.resize(size));
 		} catch (IllegalArgumentException e) {
 			LOGGER.info("Setting Grid to wrong size", e);
 			status = GameStatus.ILLEGAL_ARGUMENT;
@@ -71,6 +85,7 @@ public class SudokuController extends Observable implements ISudokuController {
 		ICell cell = grid.getCell(row, column);
 		if (cell.isUnSet()) {
 			undoManager.doCommand(new SetValueCommand(cell, value));
+			record(JournalRecord.setValue(row, column, value));
 			status = GameStatus.CELL_SET_SUCCESS;
 			statusText = cell.mkString();
 		} else {
@@ -95,7 +110,12 @@ public class SudokuController extends Observable implements ISudokuController {
 
 	@Override
 	public String getStatusText() {
-		return statusText;
+		return journalFailure == null ? statusText : statusText + " (" + journalFailure + ")";
+	}
+
+	@Override
+	public int getHistoryLength() {
+		return undoManager.countCommands();
 	}
 
 	@Override
@@ -103,6 +123,11 @@ public class SudokuController extends Observable implements ISudokuController {
 		return grid.toString();
 	}
 
+	@Override
+	public long getVersion() {
+		return grid.getVersion();
+	}
+
 	@Override
 	public int getValue(int row, int column) {
 		return grid.getCell(row, column).getValue();
@@ -133,6 +158,28 @@ public class SudokuController extends Observable implements ISudokuController {
 		return grid.getCell(row, column).isSet();
 	}
 
+	@Override
+	public boolean isConflicting(int row, int column) {
+		return grid.getCell(row, column).isConflicting();
+	}
+
+	@Override
+	public boolean isCorrect(int row, int column, int value) {
+		int solution = grid.getSolutionValue(row, column);
+		if (solution == 0) {
+			return grid.candidates(row, column).get(value);
+		}
+		return solution == value;
+	}
+
+	@Override
+	public void hint() {
+		Hint hint = grid.getHint();
+		status = GameStatus.HINT;
+		statusText = hint == null ? "none" : hint.mkString();
+		notifyObservers();
+	}
+
 	@Override
 	public int blockAt(int row, int column) {
 		return grid.blockAt(row, column);
@@ -147,19 +194,21 @@ public class SudokuController extends Observable implements ISudokuController {
 	@Override
 	public void undo() {
 		undoManager.undoCommand();
+		record(JournalRecord.undo());
 		notifyObservers();
 	}
 
 	@Override
 	public void redo() {
 		undoManager.redoCommand();
+		record(JournalRecord.redo());
 		status = GameStatus.REDO;
 		notifyObservers();
 	}
 
 	@Override
 	public void reset() {
-		undoManager.doCommand(new ResetCommand(grid));
+		doGridCommand(new ResetCommand(grid));
 		status = GameStatus.RESET;
 		statusText = "";
 		notifyObservers();
@@ -167,8 +216,7 @@ public class SudokuController extends Observable implements ISudokuController {
 
 	@Override
 	public void create() {
-		undoManager.doCommand(new CreateCommand(grid));
-		grid.create();
+		doGridCommand(new CreateCommand(grid));
 		status = GameStatus.CREATE;
 		statusText = "";
 		notifyObservers();
@@ -177,6 +225,8 @@ public class SudokuController extends Observable implements ISudokuController {
 	@Override
 	public void resetSize(int newSize) {
 		this.grid = gridFactory.create(newSize);
+		undoManager.reset();
+		record(JournalRecord.resize(newSize));
 		reset();
 		SizeChangedEvent event = new SizeChangedEvent();
 		notifyObservers(event);
@@ -212,12 +262,15 @@ public class SudokuController extends Observable implements ISudokuController {
 	@Override
 	public void solve() {
 		boolean result;
-		SolveCommand command = new SolveCommand(grid);
-		undoManager.doCommand(command);
+		SolveCommand command = new SolveCommand(grid, SolveMode.PORTFOLIO);
+		doGridCommand(command);
 
 		result = command.getResult();
 		if (result) {
 			status = GameStatus.SOLVE_SUCCESS;
+		} else if (!command.getContradiction().isEmpty()) {
+			status = GameStatus.SOLVE_FAIL;
+			statusText = "contradiction at " + mkString(command.getContradiction());
 		} else {
 			status = GameStatus.SOLVE_FAIL;
 			statusText = "tried in " + grid.getSteps() + " steps";
@@ -225,6 +278,17 @@ public class SudokuController extends Observable implements ISudokuController {
 		notifyObservers();
 	}
 
+	private static String mkString(List<ICell> cells) {
+		StringBuilder result = new StringBuilder();
+		for (ICell cell : cells) {
+			if (result.length() > 0) {
+				result.append(", ");
+			}
+			result.append(cell.mkString());
+		}
+		return result.toString();
+	}
+
 	@Override
 	public void copy() {
 		StringSelection gridString = new StringSelection(grid.toString("0"));
@@ -240,7 +304,9 @@ public class SudokuController extends Observable implements ISudokuController {
 			String input;
 			try {
 				input = (String) transferable.getTransferData(DataFlavor.stringFlavor);
-				grid.parseStringToGrid(input);
+				if (grid.parseStringToGrid(input)) {
+					record(JournalRecord.load(GridState.of(grid)));
+				}
 			} catch (UnsupportedFlavorException e1) {
 			    LOGGER.info(e1);
 				statusText = "Could not read from Clipboard";
@@ -255,10 +321,201 @@ public class SudokuController extends Observable implements ISudokuController {
 
 	@Override
 	public void parseStringToGrid(String gridString) {
-		grid.parseStringToGrid(gridString);
+		if (grid.parseStringToGrid(gridString)) {
+			record(JournalRecord.load(GridState.of(grid)));
+		}
 		notifyObservers();
 
 	}
+
+	private void doGridCommand(GridStateCommand command) {
+		undoManager.doCommand(command);
+		record(JournalRecord.state(null, command.getAfter()));
+	}
+
+	@Override
+	public void openJournal(String directory) {
+		closeJournal();
+		journalFailure = null;
+		try {
+			SessionJournal opened = new SessionJournal(Paths.get(directory));
+			resume(opened);
+			journal = opened;
+			// every session starts with a snapshot, so the replay of the next
+			// resume only covers this session
+			journal.snapshot(snapshot());
+		} catch (IOException e) {
+			LOGGER.info("Could not open the session journal", e);
+			statusText = "Could not open journal " + directory;
+		}
+		notifyObservers(new SizeChangedEvent());
+	}
+
+	@Override
+	public void closeJournal() {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.close();
+		} catch (IOException e) {
+			LOGGER.info("Could not write the session journal", e);
+		}
+		journal = null;
+	}
+
+	@Override
+	public boolean saveSession(String file) {
+		int size = grid.getSize();
+		BitSet showCandidates = new BitSet(size * size);
+		for (int index = 0; index < size * size; index++) {
+			showCandidates.set(index, grid.getCell(index / size, index % size).isShowCandidates());
+		}
+		try {
+			new PassiveSession(snapshot(), showCandidates, status.name(), statusText).writeTo(Paths.get(file));
+			return true;
+		} catch (IOException e) {
+			LOGGER.info("Could not save the session", e);
+			return false;
+		}
+	}
+
+	@Override
+	public boolean loadSession(String file) {
+		PassiveSession session;
+		GameStatus savedStatus;
+		try {
+			session = PassiveSession.readFrom(Paths.get(file));
+			savedStatus = GameStatus.valueOf(session.getStatus());
+		} catch (IOException | IllegalArgumentException e) {
+			LOGGER.info("Could not load the session", e);
+			return false;
+		}
+		SessionSnapshot snapshot = session.getSnapshot();
+		int size = snapshot.getState().getSize();
+		grid = gridFactory.create(size);
+		snapshot.getState().applyTo(grid);
+		for (int index = 0; index < size * size; index++) {
+			grid.getCell(index / size, index % size).setShowCandidates(session.isShowCandidates(index));
+		}
+		undoManager.restore(toCommands(snapshot.getUndoHistory()), toCommands(snapshot.getRedoHistory()));
+		status = savedStatus;
+		statusText = session.getStatusText();
+		if (journal != null) {
+			try {
+				journal.snapshot(snapshot());
+			} catch (IOException e) {
+				stopJournal(e);
+			}
+		}
+		notifyObservers(new SizeChangedEvent());
+		return true;
+	}
+
+	private void record(JournalRecord journalRecord) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.append(journalRecord);
+			if (journal.needsSnapshot()) {
+				journal.snapshot(snapshot());
+			}
+		} catch (IOException e) {
+			stopJournal(e);
+		}
+	}
+
+	/**
+	 * gives up a journal that could not be written, the player is told in
+	 * the status text until the next journal is opened.
+	 */
+	private void stopJournal(IOException e) {
+		LOGGER.info("Could not write the session journal", e);
+		journalFailure = "journal stopped: " + e.getMessage();
+		closeJournal();
+	}
+
+	private void resume(SessionJournal opened) {
+		SessionSnapshot snapshot = opened.getSnapshot();
+		if (snapshot != null) {
+			grid = gridFactory.create(snapshot.getState().getSize());
+			snapshot.getState().applyTo(grid);
+			undoManager.restore(toCommands(snapshot.getUndoHistory()), toCommands(snapshot.getRedoHistory()));
+		}
+		for (JournalRecord journalRecord : opened.getRecords()) {
+			replay(journalRecord);
+		}
+		if (snapshot != null || !opened.getRecords().isEmpty()) {
+			status = GameStatus.RESUME;
+			statusText = "";
+		}
+	}
+
+	private void replay(JournalRecord journalRecord) {
+		switch (journalRecord.getType()) {
+		case SET_VALUE:
+			undoManager.doCommand(new SetValueCommand(
+					grid.getCell(journalRecord.getRow(), journalRecord.getColumn()), journalRecord.getValue()));
+			break;
+		case STATE:
+			undoManager.doCommand(new RestoreCommand(grid, journalRecord.getAfter()));
+			break;
+		case UNDO:
+			undoManager.undoCommand();
+			break;
+		case REDO:
+			undoManager.redoCommand();
+			break;
+		case RESIZE:
+			grid = gridFactory.create(journalRecord.getValue());
+			undoManager.reset();
+			break;
+		default:
+			journalRecord.getAfter().applyTo(grid);
+			break;
+		}
+	}
+
+	private SessionSnapshot snapshot() {
+		return new SessionSnapshot(GridState.of(grid), toRecords(undoManager.getUndoCommands()),
+				toRecords(undoManager.getRedoCommands()));
+	}
+
+	/**
+	 * converts the history into records. Commands on another grid are left
+	 * out, they can not be undone on this one anyway.
+	 */
+	private List<JournalRecord> toRecords(List<UndoableCommand> commands) {
+		List<JournalRecord> records = new ArrayList<JournalRecord>();
+		for (UndoableCommand command : commands) {
+			if (command instanceof SetValueCommand) {
+				SetValueCommand setValue = (SetValueCommand) command;
+				ICell cell = setValue.getCell();
+				if (cell.getRow() < grid.getSize() && cell.getColumn() < grid.getSize()
+						&& grid.getCell(cell.getRow(), cell.getColumn()) == cell) {
+					records.add(JournalRecord.setValue(cell.getRow(), cell.getColumn(), setValue.getValue()));
+				}
+			} else if (command instanceof GridStateCommand && ((GridStateCommand) command).grid == grid) {
+				GridStateCommand gridCommand = (GridStateCommand) command;
+				records.add(JournalRecord.state(gridCommand.getBefore(), gridCommand.getAfter()));
+			}
+		}
+		return records;
+	}
+
+	private List<UndoableCommand> toCommands(List<JournalRecord> records) {
+		List<UndoableCommand> commands = new ArrayList<UndoableCommand>();
+		for (JournalRecord journalRecord : records) {
+			if (journalRecord.getType() == JournalRecord.Type.SET_VALUE) {
+				commands.add(new SetValueCommand(grid.getCell(journalRecord.getRow(), journalRecord.getColumn()),
+						journalRecord.getValue()));
+			} else {
+				commands.add(new RestoreCommand(grid, journalRecord.getBefore(), journalRecord.getAfter()));
+			}
+		}
+		return commands;
+	}
 	
 	@Override
 	public String toJson() {
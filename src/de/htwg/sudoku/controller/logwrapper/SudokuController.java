@@ -82,6 +82,11 @@ public class SudokuController extends Observable implements ISudokuController {
 		return result;
 	}
 
+	@Override
+	public long getVersion() {
+		return realController.getVersion();
+	}
+
 	@Override
 	public void undo() {
 		pre();
@@ -166,6 +171,53 @@ public class SudokuController extends Observable implements ISudokuController {
 		return realController.isSet(row, column);
 	}
 
+	@Override
+	public boolean isConflicting(int row, int column) {
+		return realController.isConflicting(row, column);
+	}
+
+	@Override
+	public boolean isCorrect(int row, int column, int value) {
+		return realController.isCorrect(row, column, value);
+	}
+
+	@Override
+	public void hint() {
+		pre();
+		realController.hint();
+		post();
+	}
+
+	@Override
+	public void openJournal(String directory) {
+		pre();
+		realController.openJournal(directory);
+		post();
+	}
+
+	@Override
+	public void closeJournal() {
+		pre();
+		realController.closeJournal();
+		post();
+	}
+
+	@Override
+	public boolean saveSession(String file) {
+		pre();
+		boolean result = realController.saveSession(file);
+		post();
+		return result;
+	}
+
+	@Override
+	public boolean loadSession(String file) {
+		pre();
+		boolean result = realController.loadSession(file);
+		post();
+		return result;
+	}
+
 	@Override
 	public boolean isShowCandidates(int row, int column) {
 		return realController.isShowCandidates(row, column);
@@ -230,6 +282,11 @@ public class SudokuController extends Observable implements ISudokuController {
 		return realController.getStatusText();
 	}
 
+	@Override
+	public int getHistoryLength() {
+		return realController.getHistoryLength();
+	}
+
 	@Override
 	public void setGrid(int newSize) {
 		pre();
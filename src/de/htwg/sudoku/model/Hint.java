@@ -0,0 +1,50 @@
+package de.htwg.sudoku.model;
+
+/**
+ * A hint tells the player which value to set next and how it can be found.
+ */
+public final class Hint {
+
+/* Fields */
+    /** the technique of a hint that was taken from the solution */
+    public static final String SOLUTION = "solution";
+
+    private final int row;
+    private final int column;
+    private final int value;
+    private final String technique;
+
+/* Constructors */
+    public Hint(int row, int column, int value, String technique) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.technique = technique;
+    }
+
+/* Getter and Setter */
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return the name of the technique that finds the value, SOLUTION if no
+     *         technique of the logical solver does.
+     */
+    public String getTechnique() {
+        return technique;
+    }
+
+/* Methods */
+    public String mkString() {
+        return "(" + row + "," + column + ") = " + value + " by " + technique;
+    }
+}
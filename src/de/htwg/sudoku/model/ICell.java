@@ -25,6 +25,23 @@ public interface ICell {
 	 */
 	boolean isGiven();
 
+	/**
+	 * Mark the cell as part of the initial puzzle, or not.
+	 * 
+	 * @param b
+	 */
+	void setGiven(boolean b);
+
+	/**
+	 * @return the row of the cell in its grid.
+	 */
+	int getRow();
+
+	/**
+	 * @return the column of the cell in its grid.
+	 */
+	int getColumn();
+
 	/**
 	 * A set cell already contains a value different from 0.
 	 * 
@@ -39,6 +56,14 @@ public interface ICell {
 	 */
 	boolean isUnSet();
 
+	/**
+	 * A conflicting cell shares its value with another cell in one of its
+	 * rows, columns or blocks.
+	 * 
+	 * @return
+	 */
+	boolean isConflicting();
+
 	/**
 	 * Set the value showCandidates to b.
 	 * 
@@ -1,6 +1,7 @@
 package de.htwg.sudoku.model;
 
 import java.util.BitSet;
+import java.util.List;
 
 public interface IGrid {
 	
@@ -14,13 +15,13 @@ public interface IGrid {
 
     /**
      * @return the number of cells per edge. The typical value is 9 for a 9*9
-     *         Sudoku puzzle. Alternative values are 1, 4, 9 or 16.
+     *         Sudoku puzzle. Alternative values are 1, 4, 16 or 25.
      */
     int getSize();
 
     /**
      * @return the number of cells per block. The typical value is 3 for a 9*9
-     *         Sudoku puzzle. Alternative values are 1, 2, 3 and 4.
+     *         Sudoku puzzle. Alternative values are 1, 2, 4 and 5.
      */
     int getBlockSize();
 
@@ -29,6 +30,14 @@ public interface IGrid {
      */
     int getSteps();
 
+    /**
+     * @return the modification version of the grid. It increases whenever a
+     *         value, a given or the display of candidates changes, so equal
+     *         versions of a grid mean equal renderings. Versions of different
+     *         grids do not overlap, a new grid starts above all older ones.
+     */
+    long getVersion();
+
 /* Methods */
     
     /**
@@ -38,6 +47,25 @@ public interface IGrid {
      */
     boolean solve();
 
+    /**
+     * Calculate a solution for the Sudoku puzzle with the given algorithm.
+     * 
+     * @param mode
+     *            - the algorithm to use.
+     * @return true if a solution was found, false if no solution was found.
+     */
+    boolean solve(SolveMode mode);
+
+    /**
+     * Look for a contradiction in the Sudoku puzzle without searching: a value
+     * set twice in a house, a cell without candidates or a value that has no
+     * place left in a house.
+     * 
+     * @return the cells that take part in the contradiction, an empty list if
+     *         no contradiction was found.
+     */
+    List<ICell> findContradiction();
+
     /**
      * Set the values of all cells back to initial values.
      */
@@ -67,10 +95,13 @@ public interface IGrid {
 
     /**
      * Fill the cells of a grid with values parsed from the input string.
+     * Values above 9 are written as letters from A; '.' and 0 are empty
+     * cells, other characters are skipped.
      * 
      * @param input
-     * @return true if a value for every cell was found, false if not enough
-     *         values were found.
+     * @return true if exactly one value for every cell was found, false if
+     *         there were too few or too many or a value was out of range. The
+     *         grid is then not changed.
      */
     boolean parseStringToGrid(String input);
 
@@ -90,8 +121,34 @@ public interface IGrid {
 	String toJson();
 
 	 /**
-     * Check if the Sudoku puzzle has been solved yet.
+     * Check if the Sudoku puzzle has been solved yet, i.e. all cells are set
+     * and no value is set twice in a house.
      */
 	boolean isSolved();
 
+    /**
+     * Check that no value is set twice in a row, column or block.
+     */
+    boolean isValid();
+
+    /**
+     * @return the cells that share their value with another cell in a row,
+     *         column or block.
+     */
+    List<ICell> getConflictingCells();
+
+    /**
+     * @return the value of the cell at (row, column) in the unique solution
+     *         of the givens, 0 if the givens have no unique solution. The
+     *         solution is cached until a given changes.
+     */
+    int getSolutionValue(int row, int column);
+
+    /**
+     * @return the next value a human solver would find, or a value of the
+     *         solution if the techniques of the logical solver find none,
+     *         null if there is no hint.
+     */
+    Hint getHint();
+
 }
@@ -0,0 +1,22 @@
+package de.htwg.sudoku.model;
+
+/**
+ * The algorithm that is used to solve a Sudoku puzzle. The mode can be chosen
+ * for every call of {@link IGrid#solve(SolveMode)}.
+ */
+public enum SolveMode {
+    /**
+     * The randomized brute force backtracking in row-major cell order.
+     */
+    BACKTRACKING,
+    /**
+     * Several differently configured searches race on copies of the grid,
+     * the first result wins.
+     */
+    PORTFOLIO,
+    /**
+     * The puzzle is encoded as boolean formula and solved by the built-in
+     * conflict driven clause learning SAT solver. Meant for large grids.
+     */
+    SAT
+}
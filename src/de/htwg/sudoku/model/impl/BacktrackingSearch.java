@@ -0,0 +1,240 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+
+/**
+ * A configurable backtracking search on a Board. The order in which the cells
+ * are visited and the order in which the values are tried can be chosen, so
+ * that several differently configured searches can race against each other.
+ * The search stops early when its thread is interrupted.
+ */
+public class BacktrackingSearch implements Callable<BacktrackingSearch> {
+
+    /**
+     * The order in which the empty cells are filled.
+     */
+    public enum CellOrder {
+        ROW_MAJOR, MINIMUM_REMAINING_VALUES
+    }
+
+    /**
+     * The order in which the candidates of a cell are tried.
+     */
+    public enum ValueOrder {
+        RANDOM, LEAST_CONSTRAINING
+    }
+
+/* Fields */
+    private static final int CANCEL_CHECK_INTERVAL = 0xFF;
+
+    private final Board board;
+    private final CellOrder cellOrder;
+    private final ValueOrder valueOrder;
+    private final int[] permutation;
+    private int steps;
+    private boolean solved;
+    private boolean cancelled;
+
+/* Constructors */
+    public BacktrackingSearch(Board board, CellOrder cellOrder,
+            ValueOrder valueOrder, long seed) {
+        this.board = board;
+        this.cellOrder = cellOrder;
+        this.valueOrder = valueOrder;
+        this.permutation = shuffledValues(board.getSize(), new SplittableRandom(seed));
+    }
+
+/* Getter and Setter */
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * @return true if the search was interrupted before it could decide
+     *         whether a solution exists.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public CellOrder getCellOrder() {
+        return cellOrder;
+    }
+
+    public ValueOrder getValueOrder() {
+        return valueOrder;
+    }
+
+/* Methods */
+    @Override
+    public BacktrackingSearch call() {
+        steps = 0;
+        cancelled = false;
+        solved = search(0);
+        return this;
+    }
+
+    /**
+     * counts the solutions of the board, but stops as soon as limit solutions
+     * were found. The board is unchanged afterwards.
+     *
+     * @return the number of solutions, at most limit.
+     */
+    public int countSolutions(int limit) {
+        steps = 0;
+        cancelled = false;
+        return count(0, limit);
+    }
+
+    private int count(int from, int limit) {
+        steps++;
+        int index = nextCell(from);
+        if (index == board.getCellCount()) {
+            return 1;
+        }
+        int candidates = board.candidates(index);
+        int next = cellOrder == CellOrder.ROW_MAJOR ? index + 1 : 0;
+        int found = 0;
+        for (int value : orderValues(index, candidates)) {
+            board.setValue(index, value);
+            found += count(next, limit - found);
+            board.clearValue(index);
+            if (found >= limit) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private boolean search(int from) {
+        steps++;
+        if ((steps & CANCEL_CHECK_INTERVAL) == 0
+                && Thread.currentThread().isInterrupted()) {
+            cancelled = true;
+        }
+        if (cancelled) {
+            return false;
+        }
+        int index = nextCell(from);
+        if (index == board.getCellCount()) {
+            return true;
+        }
+        int candidates = board.candidates(index);
+        if (candidates == 0) {
+            return false;
+        }
+        int next = cellOrder == CellOrder.ROW_MAJOR ? index + 1 : 0;
+        for (int value : orderValues(index, candidates)) {
+            board.setValue(index, value);
+            if (search(next)) {
+                return true;
+            }
+            board.clearValue(index);
+            if (cancelled) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the next empty cell to fill, or the number of cells
+     *         if all cells are filled.
+     */
+    private int nextCell(int from) {
+        int cellCount = board.getCellCount();
+        if (cellOrder == CellOrder.ROW_MAJOR) {
+            int index = from;
+            while (index < cellCount && board.getValue(index) != 0) {
+                index++;
+            }
+            return index;
+        }
+        int best = cellCount;
+        int fewest = Integer.MAX_VALUE;
+        for (int index = 0; index < cellCount; index++) {
+            if (board.getValue(index) == 0) {
+                int count = Integer.bitCount(board.candidates(index));
+                if (count < fewest) {
+                    fewest = count;
+                    best = index;
+                    if (count <= 1) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int[] orderValues(int index, int candidates) {
+        int[] ordered = new int[Integer.bitCount(candidates)];
+        int count = 0;
+        for (int value : permutation) {
+            if ((candidates & (1 << value)) != 0) {
+                ordered[count++] = value;
+            }
+        }
+        if (valueOrder == ValueOrder.LEAST_CONSTRAINING && ordered.length > 1) {
+            sortByConstraint(index, ordered);
+        }
+        return ordered;
+    }
+
+    /**
+     * sorts the values so that the value that removes the fewest candidates
+     * from the empty peers of the cell at index comes first.
+     */
+    private void sortByConstraint(int index, int[] ordered) {
+        int[] removed = new int[board.getSize() + 1];
+        int size = board.getSize();
+        int row = board.rowOf(index);
+        int column = board.columnOf(index);
+        int block = board.blockOf(index);
+        for (int peer = 0; peer < board.getCellCount(); peer++) {
+            if (peer != index && board.getValue(peer) == 0
+                    && (board.rowOf(peer) == row || board.columnOf(peer) == column
+                    || board.blockOf(peer) == block)) {
+                int peerCandidates = board.candidates(peer);
+                for (int value = 1; value <= size; value++) {
+                    if ((peerCandidates & (1 << value)) != 0) {
+                        removed[value]++;
+                    }
+                }
+            }
+        }
+        // insertion sort, the arrays hold at most size values
+        for (int i = 1; i < ordered.length; i++) {
+            int value = ordered[i];
+            int j = i - 1;
+            while (j >= 0 && removed[ordered[j]] > removed[value]) {
+                ordered[j + 1] = ordered[j];
+                j--;
+            }
+            ordered[j + 1] = value;
+        }
+    }
+
+    private static int[] shuffledValues(int size, SplittableRandom random) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i + 1;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+}
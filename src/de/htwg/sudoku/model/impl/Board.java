@@ -0,0 +1,138 @@
+package de.htwg.sudoku.model.impl;
+
+/**
+ * A Board is a compact copy of the values of a Grid that is used by the
+ * solvers. The cells are addressed by their index row * size + column. For
+ * every House the values that are already used are kept as a bit mask: if bit
+ * v is set, the value v is used in that row, column or block.
+ */
+public class Board {
+
+/* Fields */
+    private final int size;
+    private final int blockSize;
+    private final int allValues;
+    private final int[] values;
+    private final int[] rowMask;
+    private final int[] columnMask;
+    private final int[] blockMask;
+
+/* Constructors */
+    public Board(Grid grid) {
+        this(grid.getSize());
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                int value = grid.getCell(row, column).getValue();
+                if (value != 0) {
+                    setValue(indexOf(row, column), value);
+                }
+            }
+        }
+    }
+
+    public Board(Board board) {
+        this.size = board.size;
+        this.blockSize = board.blockSize;
+        this.allValues = board.allValues;
+        this.values = board.values.clone();
+        this.rowMask = board.rowMask.clone();
+        this.columnMask = board.columnMask.clone();
+        this.blockMask = board.blockMask.clone();
+    }
+
+    /**
+     * creates an empty board.
+     */
+    public Board(int size) {
+        this.size = size;
+        this.blockSize = Grid.blocksPerEdge(size);
+        this.allValues = ((1 << size) - 1) << 1;
+        this.values = new int[size * size];
+        this.rowMask = new int[size];
+        this.columnMask = new int[size];
+        this.blockMask = new int[size];
+    }
+
+/* Getter and Setter */
+    public int getSize() {
+        return size;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getCellCount() {
+        return values.length;
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * sets the value of the cell at index and marks the value as used in its
+     * houses. The cell must be unset.
+     */
+    public void setValue(int index, int value) {
+        int bit = 1 << value;
+        values[index] = value;
+        rowMask[rowOf(index)] |= bit;
+        columnMask[columnOf(index)] |= bit;
+        blockMask[blockOf(index)] |= bit;
+    }
+
+    /**
+     * sets the cell at index back to 0 and releases its value in its houses.
+     */
+    public void clearValue(int index) {
+        int bit = ~(1 << values[index]);
+        values[index] = 0;
+        rowMask[rowOf(index)] &= bit;
+        columnMask[columnOf(index)] &= bit;
+        blockMask[blockOf(index)] &= bit;
+    }
+
+/* Methods */
+    public int indexOf(int row, int column) {
+        return row * size + column;
+    }
+
+    public int rowOf(int index) {
+        return index / size;
+    }
+
+    public int columnOf(int index) {
+        return index % size;
+    }
+
+    public int blockOf(int index) {
+        int row = index / size;
+        int column = index % size;
+        return column / blockSize + blockSize * (row / blockSize);
+    }
+
+    /**
+     * @return the values that can still be set at index, encoded as bit mask.
+     */
+    public int candidates(int index) {
+        return allValues & ~(rowMask[rowOf(index)] | columnMask[columnOf(index)]
+                | blockMask[blockOf(index)]);
+    }
+
+    /**
+     * @return a bit mask with the bits 1 to size set.
+     */
+    public int getAllValues() {
+        return allValues;
+    }
+
+    /**
+     * copies the values of this board into the cells of grid.
+     */
+    public void writeTo(Grid grid) {
+        for (int index = 0; index < values.length; index++) {
+            grid.getCell(rowOf(index), columnOf(index)).setValue(values[index]);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps a grid to the representative of its class under the symmetries of
+ * Sudoku: permuting bands, stacks, rows within a band and columns within a
+ * stack, transposing and relabelling the digits. The representative is the
+ * smallest sequence of values, row by row, where empty cells are 0 and the
+ * digits are relabelled in the order of their first appearance. Two grids
+ * are equivalent exactly if they have the same representative.
+ * All column orders are tried, the rows are chosen by a depth first search
+ * that stops as soon as its prefix is larger than the best one found so far.
+ * The number of column orders grows too fast above size 9, so only sizes up
+ * to 9 are supported. A Canonicalizer must not be shared between threads.
+ */
+public class Canonicalizer {
+
+/* Fields */
+    public static final int MAX_SIZE = 9;
+    private static final int UNKNOWN = Integer.MAX_VALUE;
+
+    private int size;
+    private int blockSize;
+    private List<int[]> columnOrders;
+    private int[] source;
+    private int[] best;
+    private boolean[] rowUsed;
+    private int[][] labels;
+    private int[] nextLabel;
+    private int[] columnOrder;
+    private boolean transposed;
+
+/* Methods */
+    public int[] canonicalize(Grid grid) {
+        return canonicalize(new Board(grid));
+    }
+
+    /**
+     * @return the values of the representative, row by row.
+     * @throws IllegalArgumentException
+     *             if the size is larger than MAX_SIZE.
+     */
+    public int[] canonicalize(Board board) {
+        int[] values = new int[board.getCellCount()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = board.getValue(index);
+        }
+        return canonicalize(board.getSize(), values);
+    }
+
+    public int[] canonicalize(int size, int[] values) {
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("canonical forms are only supported up to size " + MAX_SIZE);
+        }
+        init(size, values);
+        for (int transpose = 0; transpose < 2; transpose++) {
+            transposed = transpose == 1;
+            for (int[] order : columnOrders) {
+                columnOrder = order;
+                searchRows(0, -1);
+            }
+        }
+        return best.clone();
+    }
+
+    /**
+     * @return the representative as a line, '.' for empty cells.
+     */
+    public String canonicalString(Grid grid) {
+        int[] values = canonicalize(grid);
+        StringBuilder line = new StringBuilder(values.length);
+        for (int value : values) {
+            line.append(value == 0 ? '.' : GridParser.symbolOf(value));
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return a 64 bit hash of the values, used to index representatives.
+     */
+    public static long hash(int[] values) {
+        long hash = 0xcbf29ce484222325L;
+        for (int value : values) {
+            hash ^= value;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    private void init(int size, int[] values) {
+        if (size != this.size || columnOrders == null) {
+            this.size = size;
+            this.blockSize = Grid.blocksPerEdge(size);
+            this.columnOrders = lineOrders(size, blockSize);
+            this.best = new int[size * size];
+            this.rowUsed = new boolean[size];
+            this.labels = new int[size + 1][size + 1];
+            this.nextLabel = new int[size + 1];
+        }
+        this.source = values;
+        Arrays.fill(best, UNKNOWN);
+        Arrays.fill(labels[0], 0);
+        nextLabel[0] = 1;
+    }
+
+    /**
+     * chooses the source row of output row depth. The first row of a band
+     * may come from any band that is not used yet, the other rows from the
+     * band of the first row.
+     *
+     * @param band
+     *            - the source band of the current output band.
+     */
+    private void searchRows(int depth, int band) {
+        if (depth == size) {
+            return;
+        }
+        boolean newBand = depth % blockSize == 0;
+        for (int row = 0; row < size; row++) {
+            if (rowUsed[row] || (newBand ? isBandUsed(row / blockSize) : row / blockSize != band)) {
+                continue;
+            }
+            if (placeRow(depth, row)) {
+                rowUsed[row] = true;
+                searchRows(depth + 1, row / blockSize);
+                rowUsed[row] = false;
+            }
+        }
+    }
+
+    private boolean isBandUsed(int band) {
+        for (int row = band * blockSize; row < (band + 1) * blockSize; row++) {
+            if (rowUsed[row]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * relabels source row as output row depth and compares it with the best
+     * row. A smaller row becomes the new best row and makes all later best
+     * rows unknown.
+     *
+     * @return false if the row is larger than the best row.
+     */
+    private boolean placeRow(int depth, int row) {
+        int[] label = labels[depth + 1];
+        System.arraycopy(labels[depth], 0, label, 0, size + 1);
+        int next = nextLabel[depth];
+        int offset = depth * size;
+        boolean smaller = false;
+        for (int column = 0; column < size; column++) {
+            int value = valueAt(row, columnOrder[column]);
+            if (value != 0) {
+                if (label[value] == 0) {
+                    label[value] = next++;
+                }
+                value = label[value];
+            }
+            if (!smaller) {
+                if (value > best[offset + column]) {
+                    return false;
+                }
+                smaller = value < best[offset + column];
+            }
+            if (smaller) {
+                best[offset + column] = value;
+            }
+        }
+        if (smaller) {
+            Arrays.fill(best, offset + size, best.length, UNKNOWN);
+        }
+        nextLabel[depth + 1] = next;
+        return true;
+    }
+
+    private int valueAt(int row, int column) {
+        return transposed ? source[column * size + row] : source[row * size + column];
+    }
+
+    /**
+     * @return all orders of the lines that move whole bands and lines within
+     *         their band.
+     */
+    private static List<int[]> lineOrders(int size, int blockSize) {
+        List<int[]> orders = new ArrayList<int[]>();
+        List<int[]> blockPermutations = permutations(blockSize);
+        int combinations = 1;
+        for (int i = 0; i <= blockSize; i++) {
+            combinations *= blockPermutations.size();
+        }
+        for (int combination = 0; combination < combinations; combination++) {
+            int rest = combination;
+            int[] bands = blockPermutations.get(rest % blockPermutations.size());
+            rest /= blockPermutations.size();
+            int[] order = new int[size];
+            for (int band = 0; band < blockSize; band++) {
+                int[] lines = blockPermutations.get(rest % blockPermutations.size());
+                rest /= blockPermutations.size();
+                for (int line = 0; line < blockSize; line++) {
+                    order[band * blockSize + line] = bands[band] * blockSize + lines[line];
+                }
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static List<int[]> permutations(int length) {
+        List<int[]> result = new ArrayList<int[]>();
+        permute(new int[length], new boolean[length], 0, result);
+        return result;
+    }
+
+    private static void permute(int[] current, boolean[] used, int position, List<int[]> result) {
+        if (position == current.length) {
+            result.add(current.clone());
+            return;
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (!used[i]) {
+                used[i] = true;
+                current[position] = i;
+                permute(current, used, position + 1, result);
+                used[i] = false;
+            }
+        }
+    }
+}
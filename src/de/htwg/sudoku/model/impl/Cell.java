@@ -1,11 +1,15 @@
 package de.htwg.sudoku.model.impl;
 
+import java.util.Arrays;
+
 import de.htwg.sudoku.model.ICell;
 
 /**
  * A cell is the most fundamental field in a Sudoku puzzle.
  * It can be set to a value.
  * It has a row and column as coordinates.
+ * A cell knows the Houses it belongs to and the Grid that owns it, so that their
+ * counters are kept up to date whenever its value changes.
  */
 public class Cell implements ICell{
 
@@ -15,6 +19,8 @@ public class Cell implements ICell{
     private int column;
     private boolean given;
     private boolean showCandidates;
+    private House[] houses = new House[0];
+    private Grid grid;
 
     /* Constructors */
     public Cell(int row, int column) {
@@ -30,9 +36,20 @@ public class Cell implements ICell{
 
     @Override
     public void setValue(int value) {
+        int oldValue = this.value;
+        if (oldValue == value) {
+            return;
+        }
         this.value = value;
+        for (House house : houses) {
+            house.valueChanged(oldValue, value);
+        }
+        if (grid != null) {
+            grid.cellChanged(this, oldValue);
+        }
     }
 
+    @Override
     public int getRow() {
         return row;
     }
@@ -41,6 +58,7 @@ public class Cell implements ICell{
         this.row = row;
     }
 
+    @Override
     public int getColumn() {
         return column;
     }
@@ -59,7 +77,40 @@ public class Cell implements ICell{
         return !isSet();
     }
 
+    void setGrid(Grid grid) {
+        this.grid = grid;
+    }
+
+    void addHouse(House house) {
+        houses = Arrays.copyOf(houses, houses.length + 1);
+        houses[houses.length - 1] = house;
+    }
+
+    void removeHouse(House house) {
+        for (int index = 0; index < houses.length; index++) {
+            if (houses[index] == house) {
+                houses[index] = houses[houses.length - 1];
+                houses = Arrays.copyOf(houses, houses.length - 1);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isConflicting() {
+        for (House house : houses) {
+            if (value != 0 && house.countValue(value) > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
     public void setGiven(boolean b) {
+        if (given != b && grid != null) {
+            grid.givenChanged();
+        }
         given = b;
     }
 
@@ -70,6 +121,9 @@ public class Cell implements ICell{
 
     @Override
     public void setShowCandidates(boolean showCandidates) {
+        if (this.showCandidates != showCandidates && grid != null) {
+            grid.changed();
+        }
         this.showCandidates = showCandidates;
     }
 
@@ -87,7 +141,7 @@ public class Cell implements ICell{
 
     @Override
     public void toggleShowCandidates() {
-        showCandidates = !showCandidates;
+        setShowCandidates(!showCandidates);
     }
 
     @Override
@@ -99,7 +153,7 @@ public class Cell implements ICell{
         if (value == 0) {
             return zero;
         } else {
-            return "" + value;
+            return String.valueOf(GridParser.symbolOf(value));
         }
     }
 }
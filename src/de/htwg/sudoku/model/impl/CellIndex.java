@@ -0,0 +1,130 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A sparse set that splits the cells of a Grid into unset and set cells. The
+ * unset cells are kept at the front of an array, the set cells behind them.
+ * Moving a cell from one part to the other, counting and picking a random
+ * cell out of either part take constant time and allocate nothing.
+ */
+public class CellIndex {
+
+/* Fields */
+    private final int size;
+    private final Cell[] cells;
+    private final int[] position;
+    private int unsetCount;
+
+/* Constructors */
+    /**
+     * creates an index of the given cells, all of them must be unset.
+     */
+    public CellIndex(Cell[][] grid) {
+        this.size = grid.length;
+        this.cells = new Cell[size * size];
+        this.position = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                int index = row * size + column;
+                cells[index] = grid[row][column];
+                position[index] = index;
+            }
+        }
+        this.unsetCount = cells.length;
+    }
+
+/* Getter and Setter */
+    public int countUnsetCells() {
+        return unsetCount;
+    }
+
+    public int countSetCells() {
+        return cells.length - unsetCount;
+    }
+
+    /**
+     * @return the i-th unset cell, 0 <= i < countUnsetCells().
+     */
+    public Cell getUnsetCell(int i) {
+        return cells[i];
+    }
+
+    /**
+     * @return the i-th set cell, 0 <= i < countSetCells().
+     */
+    public Cell getSetCell(int i) {
+        return cells[unsetCount + i];
+    }
+
+/* Methods */
+    public Cell getRandomUnsetCell(SplittableRandom random) {
+        return getUnsetCell(random.nextInt(countUnsetCells()));
+    }
+
+    public Cell getRandomSetCell(SplittableRandom random) {
+        return getSetCell(random.nextInt(countSetCells()));
+    }
+
+    public Cell[] getUnsetCells() {
+        return Arrays.copyOfRange(cells, 0, unsetCount);
+    }
+
+    public Cell[] getSetCells() {
+        return Arrays.copyOfRange(cells, unsetCount, cells.length);
+    }
+
+    /**
+     * puts the cells back into row-major order. All cells must be unset. After
+     * a reset the random picks only depend on the random numbers, not on the
+     * history of the grid.
+     */
+    void reset() {
+        for (int index = 0; index < cells.length; index++) {
+            Cell cell = cells[index];
+            int home = indexOf(cell);
+            while (home != index) {
+                swap(index, home);
+                cell = cells[index];
+                home = indexOf(cell);
+            }
+        }
+        unsetCount = cells.length;
+    }
+
+    /**
+     * moves cell to the set part of the index.
+     */
+    void markSet(Cell cell) {
+        int from = position[indexOf(cell)];
+        if (from < unsetCount) {
+            unsetCount--;
+            swap(from, unsetCount);
+        }
+    }
+
+    /**
+     * moves cell to the unset part of the index.
+     */
+    void markUnset(Cell cell) {
+        int from = position[indexOf(cell)];
+        if (from >= unsetCount) {
+            swap(from, unsetCount);
+            unsetCount++;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Cell first = cells[i];
+        Cell second = cells[j];
+        cells[i] = second;
+        cells[j] = first;
+        position[indexOf(first)] = j;
+        position[indexOf(second)] = i;
+    }
+
+    private int indexOf(Cell cell) {
+        return cell.getRow() * size + cell.getColumn();
+    }
+}
@@ -0,0 +1,205 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+/**
+ * Patterns: Abstract Factory, TemplateMethod This class is a concrete strategy.
+ * It creates puzzles whose rating lies in a target band. The partial puzzle is
+ * rated after every removal of a symmetric pair of clues: a few pairs are
+ * tried and the one that moves the rating closest to the band is removed.
+ * Pairs whose removal makes the puzzle ambiguous or too hard are never tried
+ * again, and an attempt that stays too easy for too long is abandoned and
+ * started again from a new solution.
+ */
+public class DifficultyGridCreateStrategy extends GridCreateStrategyTemplate {
+
+/* Fields */
+    static final int SAMPLE_SIZE = 4;
+    static final int MAX_ATTEMPTS = 20;
+
+    private final int minRating;
+    private final int maxRating;
+    private final DifficultyRater rater;
+    private int rating;
+    private int attempts;
+
+/* Constructors */
+    /**
+     * rates with a LogicalSolver, the band is given in the weights of its
+     * techniques.
+     */
+    public DifficultyGridCreateStrategy(int minRating, int maxRating) {
+        this(minRating, maxRating, new LogicalSolver());
+    }
+
+    public DifficultyGridCreateStrategy(int minRating, int maxRating, DifficultyRater rater) {
+        if (minRating > maxRating) {
+            throw new IllegalArgumentException("empty rating band " + minRating + ".." + maxRating);
+        }
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        this.rater = rater;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the rating of the last created puzzle.
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * @return the number of attempts the last puzzle needed, 1 if the first
+     *         solution already gave a puzzle in the band.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isInBand(int rating) {
+        return rating >= minRating && rating <= maxRating;
+    }
+
+/* Methods */
+    @Override
+    public void prepareGrid() {
+        fillSolution();
+    }
+
+    /**
+     * removes clues until the rating is in the band and no further pair can
+     * be removed without leaving it. If no attempt reaches the band the
+     * puzzle of the last attempt is kept.
+     */
+    @Override
+    public void fillSymmetrically() {
+        attempts = 1;
+        while (!removeTowardsBand() && attempts < MAX_ATTEMPTS) {
+            attempts++;
+            fillSolution();
+        }
+    }
+
+    /**
+     * every removal keeps the puzzle uniquely solvable.
+     */
+    @Override
+    protected int[] uniqueSolution() {
+        return solution;
+    }
+
+    /**
+     * @return true if the rating of the puzzle ended in the band.
+     */
+    private boolean removeTowardsBand() {
+        List<Cell> pairs = shuffledPairs();
+        rating = rater.rate(new Board(grid));
+        int budget = ratingBudget();
+        while (!pairs.isEmpty()) {
+            int best = -1;
+            int bestRating = 0;
+            for (int i = 0; i < pairs.size() && i < SAMPLE_SIZE;) {
+                Board board = uniqueWithout(pairs.get(i));
+                budget--;
+                int tried = board == null ? 0 : rater.rate(board);
+                if (board == null || tried > maxRating) {
+                    // removing more clues never makes it unique or easier again
+                    pairs.remove(i);
+                } else {
+                    if (best < 0 || isCloser(tried, bestRating)) {
+                        best = i;
+                        bestRating = tried;
+                    }
+                    i++;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            removePair(pairs.remove(best));
+            rating = bestRating;
+            if (rating < minRating && budget <= 0) {
+                return false;
+            }
+        }
+        return isInBand(rating);
+    }
+
+    /**
+     * @return the number of ratings after which an attempt that is still too
+     *         easy is abandoned. A descent to a minimal 9x9 puzzle takes some
+     *         110 to 125 ratings and the band is mostly reached in its last
+     *         removals, so only descents that run longer than that are cut.
+     */
+    int ratingBudget() {
+        return 3 * grid.getSize() * grid.getSize() / 2;
+    }
+
+    /**
+     * below the band the harder puzzle is closer, inside the band the easier
+     * one, so that more pairs can still be removed.
+     */
+    private boolean isCloser(int tried, int best) {
+        return rating < minRating ? tried > best : tried < best;
+    }
+
+    /**
+     * @return the puzzle without the pair of cell, null if it is no longer
+     *         uniquely solvable. Ambiguity is checked apart from the rating,
+     *         a band that reaches UNSOLVABLE must not let it through.
+     */
+    private Board uniqueWithout(Cell cell) {
+        Cell symmetric = getSymmetricCell(cell);
+        int value = cell.getValue();
+        int symmetricValue = symmetric.getValue();
+        cell.reset();
+        symmetric.reset();
+        Board board = new Board(grid);
+        cell.setValue(value);
+        symmetric.setValue(symmetricValue);
+        BacktrackingSearch search = new BacktrackingSearch(new Board(board),
+                CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, random.nextLong());
+        return search.countSolutions(2) == 1 ? board : null;
+    }
+
+    private void removePair(Cell cell) {
+        cell.reset();
+        getSymmetricCell(cell).reset();
+    }
+
+    /**
+     * @return one cell of every symmetric pair in random order.
+     */
+    private List<Cell> shuffledPairs() {
+        int size = grid.getSize();
+        List<Cell> pairs = new ArrayList<Cell>();
+        for (int index = 0; index <= (size * size - 1) / 2; index++) {
+            pairs.add(grid.getCell(index / size, index % size));
+        }
+        for (int i = pairs.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            pairs.set(i, pairs.set(j, pairs.get(i)));
+        }
+        return pairs;
+    }
+
+    private void fillSolution() {
+        createSolution();
+        for (int row = 0; row < grid.getSize(); row++) {
+            for (int column = 0; column < grid.getSize(); column++) {
+                Cell cell = grid.getCell(row, column);
+                cell.setValue(solutionValue(cell));
+            }
+        }
+    }
+
+    private Cell getSymmetricCell(Cell cell) {
+        int last = grid.getSize() - 1;
+        return grid.getCell(last - cell.getRow(), last - cell.getColumn());
+    }
+}
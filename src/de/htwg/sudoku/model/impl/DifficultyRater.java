@@ -0,0 +1,22 @@
+package de.htwg.sudoku.model.impl;
+
+/**
+ * A DifficultyRater tells how hard a puzzle is for a human solver. Ratings are
+ * numbers, higher numbers mean harder puzzles. A puzzle that the rater can not
+ * solve without guessing gets the rating UNSOLVABLE.
+ */
+public interface DifficultyRater {
+
+    /**
+     * The rating of a puzzle that can not be solved by the techniques of the
+     * rater.
+     */
+    int UNSOLVABLE = Integer.MAX_VALUE;
+
+    /**
+     * @param board
+     *            - the puzzle, it is not changed.
+     * @return the rating of the puzzle.
+     */
+    int rate(Board board);
+}
@@ -0,0 +1,85 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import de.htwg.util.bloomfilter.BloomFilter;
+
+/**
+ * Remembers the canonical forms of the puzzles it has seen, so that puzzles
+ * that are only symmetric copies of each other can be rejected. By default
+ * the forms are kept in a hash set and the index is exact. For streams that
+ * are too long for that, the index can keep only a Bloom filter of the
+ * hashes of the forms; then its memory is fixed, but a few puzzles that are
+ * new may be rejected as duplicates. The index may be used by several
+ * threads.
+ */
+public class DuplicateIndex {
+
+/* Fields */
+    private final ThreadLocal<Canonicalizer> canonicalizers = new ThreadLocal<Canonicalizer>() {
+        @Override
+        protected Canonicalizer initialValue() {
+            return new Canonicalizer();
+        }
+    };
+    private final Set<String> forms;
+    private final BloomFilter filter;
+    private int duplicates;
+
+/* Constructors */
+    /**
+     * creates an exact index.
+     */
+    public DuplicateIndex() {
+        this.forms = new HashSet<String>();
+        this.filter = null;
+    }
+
+    /**
+     * creates an index that only keeps filter.
+     */
+    public DuplicateIndex(BloomFilter filter) {
+        this.forms = null;
+        this.filter = filter;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the number of puzzles add rejected.
+     */
+    public synchronized int getDuplicates() {
+        return duplicates;
+    }
+
+/* Methods */
+    /**
+     * @return true if no equivalent puzzle was added before.
+     * @throws IllegalArgumentException
+     *             if the grid is larger than Canonicalizer.MAX_SIZE.
+     */
+    public boolean add(Grid grid) {
+        Canonicalizer canonicalizer = canonicalizers.get();
+        int[] form = canonicalizer.canonicalize(grid);
+        boolean added;
+        synchronized (this) {
+            if (forms != null) {
+                added = forms.add(grid.getSize() + ":" + toString(form));
+            } else {
+                added = filter.put(Canonicalizer.hash(form) * 31 + grid.getSize());
+            }
+            if (!added) {
+                duplicates++;
+            }
+        }
+        return added;
+    }
+
+    private static String toString(int[] form) {
+        char[] chars = new char[form.length];
+        for (int i = 0; i < form.length; i++) {
+            chars[i] = (char) ('0' + form[i]);
+        }
+        return new String(chars);
+    }
+}
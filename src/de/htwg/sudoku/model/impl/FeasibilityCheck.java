@@ -0,0 +1,166 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A quick check whether a Grid can still be solved, meant to run before any
+ * search. It looks for values that are set twice in a House and then
+ * propagates naked and hidden singles on a copy of the grid until it finds a
+ * cell without candidates or a value that has no place left in a House.
+ * Passing the check does not guarantee that a solution exists.
+ */
+public class FeasibilityCheck {
+
+    /**
+     * The kind of contradiction that was found.
+     */
+    public enum Reason {
+        NONE, DUPLICATE_VALUE, NO_CANDIDATES, NO_PLACE_FOR_VALUE
+    }
+
+/* Fields */
+    private Reason reason = Reason.NONE;
+    private int value;
+    private final List<Cell> offendingCells = new ArrayList<Cell>();
+
+/* Getter and Setter */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the value that is set twice or has no place left, 0 if the
+     *         reason is not about a value.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return the cells of the grid that take part in the contradiction.
+     */
+    public List<Cell> getOffendingCells() {
+        return offendingCells;
+    }
+
+/* Methods */
+    /**
+     * @return true if no contradiction was found.
+     */
+    public boolean check(Grid grid) {
+        reason = Reason.NONE;
+        value = 0;
+        offendingCells.clear();
+        Board board = new Board(grid);
+        int[][] houses = houses(board);
+        return !findDuplicates(grid, board, houses) && propagate(grid, board, houses);
+    }
+
+    private boolean findDuplicates(Grid grid, Board board, int[][] houses) {
+        for (int[] house : houses) {
+            int seen = 0;
+            int duplicates = 0;
+            for (int index : house) {
+                int bit = 1 << board.getValue(index);
+                if (board.getValue(index) != 0 && (seen & bit) != 0) {
+                    duplicates |= bit;
+                }
+                seen |= bit;
+            }
+            if (duplicates != 0) {
+                value = Integer.numberOfTrailingZeros(duplicates);
+                for (int index : house) {
+                    if (board.getValue(index) == value) {
+                        offendingCells.add(cellAt(grid, board, index));
+                    }
+                }
+                reason = Reason.DUPLICATE_VALUE;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * sets naked and hidden singles on board until nothing changes or a
+     * contradiction shows up.
+     */
+    private boolean propagate(Grid grid, Board board, int[][] houses) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = 0; index < board.getCellCount(); index++) {
+                if (board.getValue(index) == 0) {
+                    int candidates = board.candidates(index);
+                    if (candidates == 0) {
+                        reason = Reason.NO_CANDIDATES;
+                        offendingCells.add(cellAt(grid, board, index));
+                        return false;
+                    }
+                    if (Integer.bitCount(candidates) == 1) {
+                        board.setValue(index, Integer.numberOfTrailingZeros(candidates));
+                        changed = true;
+                    }
+                }
+            }
+            for (int[] house : houses) {
+                int used = 0;
+                for (int index : house) {
+                    used |= 1 << board.getValue(index);
+                }
+                for (int candidate = 1; candidate <= board.getSize(); candidate++) {
+                    int bit = 1 << candidate;
+                    if ((used & bit) == 0) {
+                        int place = -1;
+                        int places = 0;
+                        for (int index : house) {
+                            if (board.getValue(index) == 0 && (board.candidates(index) & bit) != 0) {
+                                place = index;
+                                places++;
+                            }
+                        }
+                        if (places == 0) {
+                            reason = Reason.NO_PLACE_FOR_VALUE;
+                            value = candidate;
+                            for (int index : house) {
+                                if (board.getValue(index) == 0) {
+                                    offendingCells.add(cellAt(grid, board, index));
+                                }
+                            }
+                            return false;
+                        }
+                        if (places == 1) {
+                            board.setValue(place, candidate);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the indices of the cells of all rows, columns and blocks.
+     */
+    private static int[][] houses(Board board) {
+        int size = board.getSize();
+        int blockSize = board.getBlockSize();
+        int[][] houses = new int[3 * size][size];
+        for (int number = 0; number < size; number++) {
+            for (int i = 0; i < size; i++) {
+                houses[number][i] = board.indexOf(number, i);
+                houses[size + number][i] = board.indexOf(i, number);
+                houses[2 * size + number][i] = board.indexOf(
+                        blockSize * (number / blockSize) + i / blockSize,
+                        blockSize * (number % blockSize) + i % blockSize);
+            }
+        }
+        return houses;
+    }
+
+    private static Cell cellAt(Grid grid, Board board, int index) {
+        return grid.getCell(board.rowOf(index), board.columnOf(index));
+    }
+}
@@ -1,6 +1,8 @@
 package de.htwg.sudoku.model.impl;
 
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -8,21 +10,32 @@ import org.apache.logging.log4j.Logger;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import de.htwg.sudoku.model.Hint;
+import de.htwg.sudoku.model.ICell;
 import de.htwg.sudoku.model.IGrid;
+import de.htwg.sudoku.model.SolveMode;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+import de.htwg.sudoku.model.impl.LogicalSolver.Technique;
 
 /**
  * The Grid is the playing field of a Sudoku puzzle.
  * It consists of Cells.
  * Cells are organized in Houses.
- * The Grid has a size, which is the number of cells in a row or column. Size must be 1, 4, or 9.
+ * The Grid has a size, which is the number of cells in a row or column. Size must be 1, 4, 9, 16 or 25.
+ * The Grid keeps an index of its set and unset cells and the Houses that contain a value twice,
+ * so that isSolved(), isValid() and picking a random cell do not have to scan the cells.
  */
 public class Grid implements IGrid{
 
 /* Fields */
-    private static final int MAXSIZE = 9;
+    static final int MAXSIZE = 25;
     
 	private static final Logger LOGGER = LogManager.getLogger(Grid.class.getName());
 
+    /** counts the grids, every grid takes the next 2^32 versions */
+    private static final AtomicLong GRIDS = new AtomicLong();
+
     private int size;
     private int blockSize;
 
@@ -31,10 +44,32 @@ public class Grid implements IGrid{
     private House[] columns;
     private House[] blocks;
 
+    private CellIndex cellIndex;
+    private Set<House> conflictingHouses = new LinkedHashSet<House>();
+
     private int solutionCounter;
     private int steps;
-    private List<Integer> permutation;
-    protected GridCreateStrategyTemplate createStrategy = GridCreateStrategyFactory.getInstance();
+    private int[] permutation;
+    private SplittableRandom random = new SplittableRandom();
+    private int[] solution;
+    private boolean solutionSearched;
+    private GridParser parser;
+    private long version = GRIDS.getAndIncrement() << 32;
+    /** the renderings of renderedVersion by the string for empty cells */
+    private final Map<String, String> renderings = new HashMap<String, String>();
+    private String json;
+    private long renderedVersion = -1;
+    /** the FeasibilityCheck of checkedVersion, shared by the steps of a solve */
+    private FeasibilityCheck feasibility;
+    private long checkedVersion = -1;
+    /** the values as the solvers see them, kept up to date by cellChanged */
+    private Board board;
+    private LogicalSolver hintSolver;
+    /** the hint of hintVersion */
+    private Hint hint;
+    private long hintVersion = -1;
+    /** taken from the GridCreateStrategyFactory on the first create */
+    protected GridCreateStrategyTemplate createStrategy;
 
 
     /* Constructors */
@@ -45,7 +80,7 @@ public class Grid implements IGrid{
         }
        if (!isSquareOfNaturalNumber(size)) {
             throw new IllegalArgumentException(
-                    "size must be a square of a natural number, like 1,4 or 9");
+                    "size must be a square of a natural number, like 1, 4, 9, 16 or 25");
         }
         setSize(size);
         setBlockSize(blocksPerEdge(size));
@@ -66,12 +101,14 @@ public class Grid implements IGrid{
         for (int row = 0; row < getSize(); row++) {
             for (int column = 0; column < getSize(); column++) {
                 cells[row][column] = new Cell(row, column);
+                cells[row][column].setGrid(this);
                 rows[row].setCell(column, cells[row][column]);
                 columns[column].setCell(row, cells[row][column]);
                 blocks[blockAt(row, column)].setCell(
                         cellInBlockAt(row, column), cells[row][column]);
             }
         }
+        cellIndex = new CellIndex(cells);
     }
 
     /* Getter and Setter */
@@ -106,11 +143,40 @@ public class Grid implements IGrid{
         return rows[index];
     }
 
+    /**
+     * @return the index of the set and unset cells, it is kept up to date by
+     *         the cells.
+     */
+    public CellIndex getCellIndex() {
+        return cellIndex;
+    }
+
     @Override
     public int getSteps() {
         return steps;
     }
 
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the source of randomness for picking cells, candidates and the
+     *         order in which the solver tries values.
+     */
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * replaces the source of randomness, e.g. by a seeded one to make the
+     * creation of a puzzle reproducible.
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
 
 /* Methods */
 
@@ -170,7 +236,6 @@ public class Grid implements IGrid{
      * @return a value that can still legally be set for this position
      */
     public int getCandidate(int row, int column) {
-        Random random = new Random();
         int maxindex = this.candidates(row, column).cardinality();
         return candidates(row, column).nextSetBit(random.nextInt(maxindex));
     }
@@ -182,10 +247,14 @@ public class Grid implements IGrid{
                 getCell(row,column).reset();
             }
         }
+        cellIndex.reset();
     }
 
     @Override
     public void create() {
+        if (createStrategy == null) {
+            createStrategy = GridCreateStrategyFactory.newInstance();
+        }
         createStrategy.createNewGrid(this);
     }
 
@@ -200,10 +269,7 @@ public class Grid implements IGrid{
     }
 
     public Cell getRandomCell() {
-        Random random = new Random();
-        Cell[] unsetCells = getUnsetCells();
-
-        return unsetCells[random.nextInt(unsetCells.length)];
+        return cellIndex.getRandomUnsetCell(random);
     }
 
     Cell getSymmetricCell(Cell cell) {
@@ -216,25 +282,213 @@ public class Grid implements IGrid{
     }
 
     public Cell[] getUnsetCells() {
-        int i = 0;
-        Cell[] setCells = new Cell[countUnsetCells()];
-        for (int row = 0; row < getSize(); row++) {
-            for (int column = 0; column < getSize(); column++) {
-                if (getCell(row, column).isUnSet()) {
-                    setCells[i] = getCell(row, column);
-                    i++;
+        return cellIndex.getUnsetCells();
+    }
+
+    public int countUnsetCells() {
+        return cellIndex.countUnsetCells();
+    }
+
+    /**
+     * is called by a cell of this grid after its value changed. The Houses
+     * of the cell have already updated their counters.
+     */
+    void cellChanged(Cell cell, int oldValue) {
+        changed();
+        if (cell.isGiven()) {
+            givenChanged();
+        }
+        if (oldValue == 0) {
+            cellIndex.markSet(cell);
+        } else if (cell.isUnSet()) {
+            cellIndex.markUnset(cell);
+        }
+        int row = cell.getRow();
+        int column = cell.getColumn();
+        updateConflicts(rows[row]);
+        updateConflicts(columns[column]);
+        updateConflicts(blocks[blockAt(row, column)]);
+        updateBoard(cell, oldValue);
+    }
+
+    /**
+     * follows the change of cell on the board. A board can not tell which of
+     * two equal values in a house is cleared, so it is dropped while the grid
+     * has a conflict and built again when it is needed.
+     */
+    private void updateBoard(Cell cell, int oldValue) {
+        if (board == null) {
+            return;
+        }
+        if (!conflictingHouses.isEmpty()) {
+            board = null;
+            return;
+        }
+        int index = cell.getRow() * size + cell.getColumn();
+        if (oldValue != 0) {
+            board.clearValue(index);
+        }
+        if (cell.getValue() != 0) {
+            board.setValue(index, cell.getValue());
+        }
+    }
+
+    /**
+     * is called by a cell of this grid when something changed that shows in
+     * the renderings of the grid.
+     */
+    void changed() {
+        version++;
+    }
+
+    /**
+     * forgets the cached solution, it has to be searched again.
+     */
+    void givenChanged() {
+        changed();
+        solution = null;
+        solutionSearched = false;
+    }
+
+    /**
+     * caches solution as the unique solution of the givens, e.g. when a
+     * strategy knows it.
+     *
+     * @param solution
+     *            - the values row by row.
+     */
+    void setSolution(int[] solution) {
+        this.solution = solution.clone();
+        this.solutionSearched = true;
+    }
+
+    @Override
+    public int getSolutionValue(int row, int column) {
+        int[] values = getSolution();
+        return values == null ? 0 : values[row * size + column];
+    }
+
+    /**
+     * gives copy, which has the same givens as this grid, the cached solution
+     * of this grid.
+     */
+    void copySolutionTo(Grid copy) {
+        copy.solution = solution;
+        copy.solutionSearched = solutionSearched;
+    }
+
+    /**
+     * @return the unique solution of the givens, null if there is none. It is
+     *         searched once and then cached until a given changes.
+     */
+    int[] getSolution() {
+        if (!solutionSearched) {
+            solution = findUniqueSolution();
+            solutionSearched = true;
+        }
+        return solution;
+    }
+
+    private int[] findUniqueSolution() {
+        Board board = new Board(size);
+        for (int index = 0; index < size * size; index++) {
+            Cell cell = cells[index / size][index % size];
+            if (cell.isGiven() && cell.isSet()) {
+                if ((board.candidates(index) & 1 << cell.getValue()) == 0) {
+                    return null;
                 }
+                board.setValue(index, cell.getValue());
             }
         }
-        return setCells;
+        BacktrackingSearch counting = new BacktrackingSearch(new Board(board),
+                CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, 0);
+        if (counting.countSolutions(2) != 1) {
+            return null;
+        }
+        BacktrackingSearch search = new BacktrackingSearch(board,
+                CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, 0);
+        search.call();
+        int[] values = new int[size * size];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = board.getValue(index);
+        }
+        return values;
     }
 
-    public int countUnsetCells() {
-        int count = 0;
-        for (int r = 0; r < getSize(); r++) {
-            count += getRow(r).countUnsetCells();
+    /**
+     * asks the logical solver for the next value that can be found from the
+     * current values. If it finds none, or a value that does not fit the
+     * solution because of a wrong value of the player, the first unset cell
+     * gets the value of the cached solution. The hint is kept until the grid
+     * changes.
+     */
+    @Override
+    public Hint getHint() {
+        if (hintVersion != version) {
+            hint = findHint();
+            hintVersion = version;
         }
-        return count;
+        return hint;
+    }
+
+    private Hint findHint() {
+        if (cellIndex.countUnsetCells() == 0) {
+            return null;
+        }
+        if (board == null) {
+            board = new Board(this);
+        }
+        if (hintSolver == null) {
+            hintSolver = new LogicalSolver();
+        }
+        LogicalSolver solver = hintSolver;
+        Technique technique = solver.findPlacement(board);
+        int[] values = getSolution();
+        if (technique != null) {
+            int index = solver.getPlacedIndex();
+            if (values == null || values[index] == solver.getPlacedValue()) {
+                return new Hint(index / size, index % size, solver.getPlacedValue(), technique.name());
+            }
+        }
+        if (values == null) {
+            return null;
+        }
+        Cell cell = cellIndex.getUnsetCell(0);
+        return new Hint(cell.getRow(), cell.getColumn(),
+                values[cell.getRow() * size + cell.getColumn()], Hint.SOLUTION);
+    }
+
+    private void updateConflicts(House house) {
+        if (house.getConflicts() > 0) {
+            conflictingHouses.add(house);
+        } else {
+            conflictingHouses.remove(house);
+        }
+    }
+
+    /**
+     * @return true if no value is set twice in a row, column or block.
+     */
+    @Override
+    public boolean isValid() {
+        return conflictingHouses.isEmpty();
+    }
+
+    /**
+     * collects the cells that share their value with another cell of a row,
+     * column or block. Only the houses that contain a conflict are visited.
+     */
+    @Override
+    public List<ICell> getConflictingCells() {
+        Set<ICell> result = new LinkedHashSet<ICell>();
+        for (House house : conflictingHouses) {
+            for (Cell cell : house.getCells()) {
+                if (cell.isSet() && house.countValue(cell.getValue()) > 1) {
+                    result.add(cell);
+                }
+            }
+        }
+        return new ArrayList<ICell>(result);
     }
 
 
@@ -260,22 +514,59 @@ public class Grid implements IGrid{
         return toString(" ");
     }
 
+    /**
+     * the rendering is cached until the grid changes.
+     */
     @Override
     public String toString(String zero) {
+        String result = renderings().get(zero);
+        if (result == null) {
+            result = render(zero);
+            renderings.put(zero, result);
+        }
+        return result;
+    }
+
+    private String render(String zero) {
         String newLine = System.getProperty("line.separator");
-        String result = blockSeparator(blockSize) + newLine;
+        StringBuilder result = new StringBuilder();
+        result.append(blockSeparator(blockSize)).append(newLine);
         for (int row = 0; row < getSize(); row++) {
-            result = result + getRow(row).toString(zero) + newLine;
+            result.append(getRow(row).toString(zero)).append(newLine);
             if ((row + 1) % blockSize == 0) {
-                result = result + blockSeparator(blockSize) + newLine;
+                result.append(blockSeparator(blockSize)).append(newLine);
             }
 
         }
-        return result;
+        return result.toString();
     }
-    
-    
+
+    /**
+     * @return the renderings of the current version, the ones of older
+     *         versions are dropped.
+     */
+    private Map<String, String> renderings() {
+        if (renderedVersion != version) {
+            renderings.clear();
+            json = null;
+            renderedVersion = version;
+        }
+        return renderings;
+    }
+
+    /**
+     * the JSON is cached until the grid changes.
+     */
+    @Override
     public String toJson() {
+        renderings();
+        if (json == null) {
+            json = renderJson();
+        }
+        return json;
+    }
+
+    private String renderJson() {
         String result = "";
   
         int size = getSize();
@@ -338,45 +629,47 @@ public class Grid implements IGrid{
 
 
     /**
-     * takes a String and parses numbers out of it and fills the grid with these
-     * numbers. The String should contain size*size numbers. All other
-     * characters are ignored.
+     * takes a String and fills the grid with the values in it, '.' and 0 are
+     * empty cells. See GridParser for the symbols: digits, and letters from A
+     * for 10, so a letter is out of range below size 10. Other characters are
+     * skipped.
      *
      * @param input
-     *            must contain size*size digits.
-     * @return true if the parsing was successful, i.e. it found size*size
-     *         digits.
+     *            must contain exactly size*size symbols.
+     * @return true if the parsing was successful. Otherwise, because of a
+     *         value out of range or too few or too many cells, the grid is
+     *         not changed.
      */
     @Override
     public boolean parseStringToGrid(String input) {
         return parseStringToGrid(input, ".");
     }
 
+    /**
+     * reads the values of input, see GridParser for the format. The grid is
+     * only changed if input holds exactly one value for every cell.
+     *
+     * @param zero
+     *            - the symbol of an empty cell besides 0.
+     */
     public boolean parseStringToGrid(String input, String zero) {
-        int row = 0;
-        int column = 0;
-        String letter;
-        for (int i = 0; i < input.length(); i++) {
-            letter = input.substring(i, i + 1);
-            if (letter.matches("[0-9]") || letter.equals(zero)) {
-                Cell cell = getCell(row, column);
-                if (letter.matches("[1-9]")) {
-                    cell.setValue(Integer.parseInt(letter));
-                    cell.setGiven(true);
-                } else {
-                    cell.setGiven(false);
-                }
-                if (letter.equals(zero)) {
-                    cell.setValue(0);
-                }
-                column++;
-                if (column == getSize()) {
-                    column = 0;
-                    row++;
-                }
-            }
+        char zeroSymbol = zero.length() == 1 ? zero.charAt(0) : '0';
+        if (parser == null || parser.getZero() != zeroSymbol) {
+            parser = new GridParser(size, zeroSymbol);
         }
-        return row == getSize();
+        if (!parser.parse(input)) {
+            return false;
+        }
+        parser.applyTo(this);
+        return true;
+    }
+
+    /**
+     * @return the parser of the last call of parseStringToGrid, which tells
+     *         why the input was rejected. Null if nothing was parsed yet.
+     */
+    public GridParser getParser() {
+        return parser;
     }
 
     /**
@@ -387,17 +680,49 @@ public class Grid implements IGrid{
     @Override
     public boolean solve() {
         initSolve();
-        return solve(0, 0, 1);
+        return isFeasible() && solve(0, 0, 1);
+    }
+
+    /**
+     * solves the Sudoku with the algorithm chosen by mode.
+     *
+     * @return true if the Sudoku was solved
+     */
+    @Override
+    public boolean solve(SolveMode mode) {
+        if (!isFeasible()) {
+            steps = 0;
+            return false;
+        }
+        switch (mode) {
+        case PORTFOLIO:
+            PortfolioSolver solver = new PortfolioSolver(random.split());
+            boolean result = solver.solve(this);
+            steps = solver.getSteps();
+            return result;
+        case SAT:
+            SatGridSolver satSolver = new SatGridSolver();
+            boolean satResult = satSolver.solve(this);
+            steps = satSolver.getSteps();
+            return satResult;
+        default:
+            return solve();
+        }
     }
 
     private void initSolve() {
         solutionCounter = 0;
         steps = 0;
-        permutation = new ArrayList<Integer>();
+        permutation = new int[getSize()];
         for (int i = 0; i < getSize(); i++) {
-            permutation.add(i);
+            permutation[i] = i;
+        }
+        for (int i = getSize() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
         }
-        Collections.shuffle(permutation);
     }
 
     /**
@@ -410,7 +735,38 @@ public class Grid implements IGrid{
      */
     public boolean solve(int numSolutions) {
         initSolve();
-        return solve(0, 0, numSolutions);
+        return isFeasible() && solve(0, 0, numSolutions);
+    }
+
+    /**
+     * counts all solutions exactly, also when there are far too many to
+     * enumerate them. The grid is not changed.
+     */
+    public BigInteger countSolutions() {
+        return new SolutionCounter().count(this);
+    }
+
+    /**
+     * runs the propagation based pre-check, so that contradictory grids fail
+     * without a search. It runs once per version: findContradiction, solve
+     * and the solvers it calls all see the same check.
+     */
+    FeasibilityCheck feasibility() {
+        if (checkedVersion != version) {
+            feasibility = new FeasibilityCheck();
+            feasibility.check(this);
+            checkedVersion = version;
+        }
+        return feasibility;
+    }
+
+    boolean isFeasible() {
+        return feasibility().getReason() == FeasibilityCheck.Reason.NONE;
+    }
+
+    @Override
+    public List<ICell> findContradiction() {
+        return new ArrayList<ICell>(feasibility().getOffendingCells());
     }
 
     /**
@@ -434,7 +790,7 @@ public class Grid implements IGrid{
             return solve(r, c + 1, numSolutions);
         }
         for (int index = 0; index < getSize(); index++) {
-            int value = permutation.get(index) + 1;
+            int value = permutation[index] + 1;
             if (candidates(r, c).get(value)) {
                 getCell(r, c).setValue(value);
                 if (solve(r, c + 1, numSolutions)) {
@@ -447,15 +803,9 @@ public class Grid implements IGrid{
         return false;
     }
 
+    @Override
     public boolean isSolved() {
-        for (int row = 0; row < getSize(); row++) {
-            for (int column = 0; column < getSize(); column++) {
-                if (cells[row][column].isUnSet()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return cellIndex.countUnsetCells() == 0 && isValid();
     }
 
 
@@ -1,12 +1,18 @@
 package de.htwg.sudoku.model.impl;
 
+import java.util.function.Supplier;
+
 /**
  * Patterns: Abstract Factory This is the abstract factory for the strategy to
  * create grids
+ * A strategy keeps the puzzle it creates in fields, so every grid takes a
+ * strategy of its own from newInstance() and separate games create their
+ * puzzles at the same time.
  */
 public abstract class GridCreateStrategyFactory {
 /* Fields */
     private static GridCreateStrategyTemplate strategy = new RemovePairsGridCreateStrategy();
+    private static Supplier<GridCreateStrategyTemplate> strategies = RemovePairsGridCreateStrategy::new;
 
 /* Constructors */
     private GridCreateStrategyFactory(){
@@ -14,16 +20,43 @@ public abstract class GridCreateStrategyFactory {
     }
 
 /* Getter and Setter */
+    /**
+     * lets all grids share strat, it must not create two puzzles at once.
+     */
     public static void setStrategy(GridCreateStrategyTemplate strat) {
         strategy = strat;
+        strategies = () -> strat;
+    }
+
+    /**
+     * @param supplier
+     *            - creates the strategy of a grid.
+     */
+    public static void setStrategies(Supplier<GridCreateStrategyTemplate> supplier) {
+        strategy = null;
+        strategies = supplier;
     }
 
+    /**
+     * @return the strategy for a new grid.
+     */
+    public static GridCreateStrategyTemplate newInstance() {
+        return strategies.get();
+    }
+
+    /**
+     * @return the strategy of setStrategy. After setStrategies it is taken
+     *         from the supplier when it is first asked for; no grid uses it.
+     */
     public static GridCreateStrategyTemplate getInstance() {
+        if (strategy == null) {
+            strategy = strategies.get();
+        }
         return strategy;
     }
 
     public static GridCreateStrategyTemplate getStrategy() {
-        return strategy;
+        return getInstance();
     }
 
 }
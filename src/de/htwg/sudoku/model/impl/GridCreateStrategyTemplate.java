@@ -1,16 +1,38 @@
 package de.htwg.sudoku.model.impl;
 
+import java.util.SplittableRandom;
+
 /**
  * Patterns: Strategy and TemplateMethod This class is the abstract strategy for
  * the strategy pattern. At the same time it is a template for the
- * implementation of a strategy
+ * implementation of a strategy.
+ * All random decisions of a strategy and of the solver it uses come from one
+ * SplittableRandom, so a puzzle can be created again from size, strategy and
+ * seed.
+ * A strategy keeps the grid it works on in fields, so it creates one puzzle
+ * at a time; every grid has a strategy of its own.
  */
 public abstract class GridCreateStrategyTemplate {
 
     protected Grid grid;
+    protected SplittableRandom random;
+    protected int[] solution;
 
     public void createNewGrid(Grid grid) {
+        createNewGrid(grid, new SplittableRandom());
+    }
+
+    /**
+     * creates the same puzzle for the same seed and size.
+     */
+    public void createNewGrid(Grid grid, long seed) {
+        createNewGrid(grid, new SplittableRandom(seed));
+    }
+
+    private void createNewGrid(Grid grid, SplittableRandom random) {
         this.grid = grid;
+        this.random = random;
+        grid.setRandom(random.split());
         grid.reset();
         prepareGrid();
         fillSymmetrically();
@@ -21,8 +43,29 @@ public abstract class GridCreateStrategyTemplate {
         // by default do nothing
     }
 
+    /**
+     * derives a random solution from the canonical one without searching. The
+     * value of cell (row, column) is at index row * size + column.
+     */
+    protected int[] createSolution() {
+        solution = new SolvedGridGenerator().createSolution(grid.getSize(), random);
+        return solution;
+    }
+
+    protected int solutionValue(Cell cell) {
+        return solution[cell.getRow() * grid.getSize() + cell.getColumn()];
+    }
+
     public abstract void fillSymmetrically();
 
+    /**
+     * @return the solution if the strategy knows that it is the only one of
+     *         the puzzle, null otherwise.
+     */
+    protected int[] uniqueSolution() {
+        return null;
+    }
+
     private void postProcessGrid() {
         for (int row = 0; row < grid.getSize(); row++) {
             for (int column = 0; column < grid.getSize(); column++) {
@@ -31,6 +74,10 @@ public abstract class GridCreateStrategyTemplate {
                 }
             }
         }
+        int[] unique = uniqueSolution();
+        if (unique != null) {
+            grid.setSolution(unique);
+        }
 
     }
 }
@@ -0,0 +1,73 @@
+package de.htwg.sudoku.model.impl;
+
+import de.htwg.sudoku.model.impl.LogicalSolver.Technique;
+
+/**
+ * The strategies that can be created by name, e.g. by tools that generate
+ * puzzles without the application. Every call of create returns a new
+ * strategy, so each thread can have its own. The code of a type never
+ * changes, it is part of the puzzle IDs.
+ */
+public enum GridCreateStrategyType {
+    RANDOM(0) {
+        @Override
+        public GridCreateStrategyTemplate create() {
+            return new RandomGridCreateStrategy();
+        }
+    },
+    REMOVE_PAIRS(1) {
+        @Override
+        public GridCreateStrategyTemplate create() {
+            return new RemovePairsGridCreateStrategy();
+        }
+    },
+    /** puzzles that only need singles */
+    EASY(2) {
+        @Override
+        public GridCreateStrategyTemplate create() {
+            return new DifficultyGridCreateStrategy(Technique.HIDDEN_SINGLE.getWeight(),
+                    Technique.NAKED_SINGLE.getWeight());
+        }
+    },
+    /** puzzles that need intersections, pairs or an X-Wing */
+    MEDIUM(3) {
+        @Override
+        public GridCreateStrategyTemplate create() {
+            return new DifficultyGridCreateStrategy(Technique.POINTING.getWeight(),
+                    Technique.HIDDEN_PAIR.getWeight());
+        }
+    },
+    /** puzzles that need triples, a Swordfish, wings or chains */
+    HARD(4) {
+        @Override
+        public GridCreateStrategyTemplate create() {
+            return new DifficultyGridCreateStrategy(Technique.NAKED_TRIPLE.getWeight(),
+                    Technique.CHAIN.getWeight());
+        }
+    };
+
+    private final int code;
+
+    GridCreateStrategyType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if no type has the code.
+     */
+    public static GridCreateStrategyType fromCode(int code) {
+        for (GridCreateStrategyType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("unknown strategy code " + code);
+    }
+
+    public abstract GridCreateStrategyTemplate create();
+}
@@ -0,0 +1,253 @@
+package de.htwg.sudoku.model.impl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the values of a grid from text in a single pass without allocating
+ * anything per character. The values 1 to 9 are written as digits, larger
+ * values as letters starting with A for 10, so that grids up to the maximum
+ * size have a one-character symbol per cell. Letters are accepted in both
+ * cases. An empty cell is written as 0 or as the zero symbol of the parser.
+ * All other characters, like the borders of Grid.toString(), are skipped.
+ * A parser can be reused, its values are only meaningful after a parse that
+ * returned true.
+ */
+public class GridParser {
+
+    /**
+     * The reason why a text could not be read as a grid.
+     */
+    public enum Reason {
+        NONE, VALUE_OUT_OF_RANGE, TOO_MANY_CELLS, TOO_FEW_CELLS
+    }
+
+/* Fields */
+    private static final int NO_SYMBOL = -1;
+    private static final int LETTER_OFFSET = 10;
+
+    private final int size;
+    private final int cellCount;
+    private final char zero;
+    private final int[] values;
+    private int cells;
+    private Reason reason = Reason.NONE;
+    private int position;
+    private int value;
+
+/* Constructors */
+    public GridParser(int size) {
+        this(size, '.');
+    }
+
+    /**
+     * @param zero
+     *            - the symbol of an empty cell besides 0.
+     */
+    public GridParser(int size, char zero) {
+        this.size = size;
+        this.cellCount = size * size;
+        this.zero = zero;
+        this.values = new int[cellCount];
+    }
+
+/* Getter and Setter */
+    public int getSize() {
+        return size;
+    }
+
+    public char getZero() {
+        return zero;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the position of the offending character, or the length of the
+     *         input if there were too few cells.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the value of the offending symbol if it was out of range, 0
+     *         otherwise.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return the number of cells read, at most the number of cells of the
+     *         grid.
+     */
+    public int getCellCount() {
+        return cells;
+    }
+
+    /**
+     * @return the value of the cell at index row * size + column, 0 if it is
+     *         empty.
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return a copy of the values of the last successful parse.
+     */
+    public int[] getValues() {
+        return values.clone();
+    }
+
+    public String getErrorMessage() {
+        switch (reason) {
+        case VALUE_OUT_OF_RANGE:
+            return "value " + value + " at position " + position
+                    + " is larger than " + size;
+        case TOO_MANY_CELLS:
+            return "more than " + cellCount + " cells at position " + position;
+        case TOO_FEW_CELLS:
+            return "only " + cells + " of " + cellCount + " cells";
+        default:
+            return "";
+        }
+    }
+
+/* Methods */
+    /**
+     * @return the symbol of value, which must be between 1 and 35.
+     */
+    public static char symbolOf(int value) {
+        return (char) (value < LETTER_OFFSET ? '0' + value : 'A' + value - LETTER_OFFSET);
+    }
+
+    /**
+     * @return the value of the symbol c, 0 for '0' and -1 if c is no symbol.
+     */
+    public static int valueOf(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + LETTER_OFFSET;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + LETTER_OFFSET;
+        }
+        return NO_SYMBOL;
+    }
+
+    /**
+     * @return true if input holds exactly the cells of a grid.
+     */
+    public boolean parse(CharSequence input) {
+        return parse(input, 0, input.length());
+    }
+
+    /**
+     * reads the characters from start to end of input, e.g. one field of a
+     * line. Positions are relative to start.
+     */
+    public boolean parse(CharSequence input, int start, int end) {
+        begin();
+        for (int i = start; i < end; i++) {
+            if (!accept(input.charAt(i), i - start)) {
+                return false;
+            }
+        }
+        return finish(end - start);
+    }
+
+    public boolean parse(char[] input, int offset, int length) {
+        begin();
+        for (int i = 0; i < length; i++) {
+            if (!accept(input[offset + i], i)) {
+                return false;
+            }
+        }
+        return finish(length);
+    }
+
+    /**
+     * reads ASCII text.
+     */
+    public boolean parse(byte[] input, int offset, int length) {
+        begin();
+        for (int i = 0; i < length; i++) {
+            if (!accept(input[offset + i] & 0xFF, i)) {
+                return false;
+            }
+        }
+        return finish(length);
+    }
+
+    /**
+     * reads the remaining ASCII text of input without moving its position.
+     */
+    public boolean parse(ByteBuffer input) {
+        begin();
+        int start = input.position();
+        int length = input.remaining();
+        for (int i = 0; i < length; i++) {
+            if (!accept(input.get(start + i) & 0xFF, i)) {
+                return false;
+            }
+        }
+        return finish(length);
+    }
+
+    /**
+     * writes the values of the last successful parse into grid. Set cells
+     * become givens, all other cells are cleared.
+     */
+    public void applyTo(Grid grid) {
+        for (int index = 0; index < cellCount; index++) {
+            Cell cell = grid.getCell(index / size, index % size);
+            int cellValue = values[index];
+            cell.setValue(cellValue);
+            cell.setGiven(cellValue != 0);
+        }
+    }
+
+    private void begin() {
+        cells = 0;
+        reason = Reason.NONE;
+        position = 0;
+        value = 0;
+    }
+
+    /**
+     * @return false if c ends the parse with an error.
+     */
+    private boolean accept(int c, int at) {
+        int symbol = c == zero ? 0 : valueOf(c);
+        if (symbol == NO_SYMBOL) {
+            return true;
+        }
+        if (symbol > size) {
+            return fail(Reason.VALUE_OUT_OF_RANGE, at, symbol);
+        }
+        if (cells == cellCount) {
+            return fail(Reason.TOO_MANY_CELLS, at, 0);
+        }
+        values[cells++] = symbol;
+        return true;
+    }
+
+    private boolean finish(int length) {
+        if (cells < cellCount) {
+            return fail(Reason.TOO_FEW_CELLS, length, 0);
+        }
+        return true;
+    }
+
+    private boolean fail(Reason failure, int at, int symbol) {
+        reason = failure;
+        position = at;
+        value = symbol;
+        return false;
+    }
+}
@@ -1,11 +1,14 @@
 package de.htwg.sudoku.model.impl;
 
+import java.util.Arrays;
 import java.util.BitSet;
 
 /**
  * A House is a logical collection of Cells.
  * It is an abstraction over Rows, Columns, and Blocks in a Sudoku puzzle.
  * Its size is the number of cells it references.
+ * It counts how often each value is set in it, so that the number of set cells
+ * and the number of conflicts are available without scanning its cells.
  */
 public class House {
 
@@ -13,14 +16,17 @@ public class House {
     private int size;
     private int blockSize;
     private Cell[] cells;
+    private int[] valueCount;
+    private int conflicts;
 
 /* Constructors */
     public House(int size) {
         setSize(size);
         setBlockSize((int) Math.sqrt(size));
         cells = new Cell[getSize()];
+        valueCount = new int[getSize() + 1];
         for (int index = 0; index < getSize(); index++) {
-            getCells()[index] = new Cell(0, index);
+            setCell(index, new Cell(0, index));
         }
     }
 
@@ -42,7 +48,14 @@ public class House {
     }
 
     public void setCell(int index, Cell cell) {
+        Cell oldCell = getCells()[index];
+        if (oldCell != null) {
+            oldCell.removeHouse(this);
+            remove(oldCell.getValue());
+        }
         getCells()[index] = cell;
+        cell.addHouse(this);
+        add(cell.getValue());
     }
 
     public int getBlockSize() {
@@ -69,23 +82,51 @@ public class House {
     }
 
     public int countSetCells() {
-        int count = 0;
-        for (int index = 0; index < getSize(); index++) {
-            if (getCell(index).getValue() > 0) {
-                count++;
-            }
-        }
-        return count;
+        return getSize() - valueCount[0];
     }
 
     public int countUnsetCells() {
-        int count = 0;
-        for (int index = 0; index < getSize(); index++) {
-            if (getCell(index).getValue() == 0) {
-                count++;
-            }
+        return valueCount[0];
+    }
+
+    /**
+     * returns how many cells of this house have the given value.
+     */
+    public int countValue(int value) {
+        return value < valueCount.length ? valueCount[value] : 0;
+    }
+
+    /**
+     * returns the number of cells that repeat a value already set in this
+     * house. A valid house has no conflicts.
+     */
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * updates the counters when the value of one of the cells changes.
+     */
+    void valueChanged(int oldValue, int newValue) {
+        remove(oldValue);
+        add(newValue);
+    }
+
+    private void add(int value) {
+        if (value >= valueCount.length) {
+            valueCount = Arrays.copyOf(valueCount, value + 1);
+        }
+        if (value != 0 && valueCount[value] > 0) {
+            conflicts++;
+        }
+        valueCount[value]++;
+    }
+
+    private void remove(int value) {
+        valueCount[value]--;
+        if (value != 0 && valueCount[value] > 0) {
+            conflicts--;
         }
-        return count;
     }
 
 
@@ -0,0 +1,89 @@
+package de.htwg.sudoku.model.impl;
+
+/**
+ * A puzzle read by a PuzzleImporter, together with its solution if the
+ * collection had one and the line where it started.
+ */
+public final class ImportedPuzzle {
+
+/* Fields */
+    private final int size;
+    private final int[] values;
+    private final int[] solution;
+    private final long line;
+
+/* Constructors */
+    ImportedPuzzle(int size, int[] values, int[] solution, long line) {
+        this.size = size;
+        this.values = values;
+        this.solution = solution;
+        this.line = line;
+    }
+
+/* Getter and Setter */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the values row by row, 0 for empty cells.
+     */
+    public int[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * @return the solution row by row, null if the collection had none.
+     */
+    public int[] getSolution() {
+        return solution == null ? null : solution.clone();
+    }
+
+    /**
+     * @return the line of the file the puzzle starts in, counted from 1.
+     */
+    public long getLine() {
+        return line;
+    }
+
+/* Methods */
+    public Board toBoard() {
+        Board board = new Board(size);
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] != 0) {
+                board.setValue(index, values[index]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * sets grid to the puzzle, its values become givens. A solution from the
+     * collection is trusted to be the unique one, so the grid does not have
+     * to search it.
+     */
+    public void writeTo(Grid grid) {
+        grid.reset();
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] != 0) {
+                Cell cell = grid.getCell(index / size, index % size);
+                cell.setValue(values[index]);
+                cell.setGiven(true);
+            }
+        }
+        if (solution != null) {
+            grid.setSolution(solution);
+        }
+    }
+
+    /**
+     * @return the puzzle in one line, '.' for empty cells.
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder(values.length);
+        for (int value : values) {
+            line.append(value == 0 ? '.' : GridParser.symbolOf(value));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.BitSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Patterns: Abstract Factory, TemplateMethod This class is a concrete strategy.
+ * It draws the puzzles from a PuzzleLibrary instead of generating them. A
+ * puzzle is not served twice to the strategies that share a set of served
+ * ids, on top of the ones the query excludes. Every grid has a strategy of
+ * its own, so the strategies of one player share the set; a strategy made
+ * without one does not know what other grids were served. When the library
+ * has no puzzle left for the query, or holds puzzles of another size, the
+ * puzzle is generated by the fallback strategy.
+ */
+public class LibraryGridCreateStrategy extends GridCreateStrategyTemplate {
+
+/* Fields */
+    private static final Logger LOGGER = LogManager.getLogger(LibraryGridCreateStrategy.class.getName());
+
+    private final PuzzleLibrary library;
+    private final PuzzleLibrary.Query query;
+    private final BitSet served;
+    private final GridCreateStrategyTemplate fallback;
+    private int lastId = -1;
+
+/* Constructors */
+    public LibraryGridCreateStrategy(PuzzleLibrary library) {
+        this(library, new BitSet());
+    }
+
+    /**
+     * @param served
+     *            - the ids served so far, shared with other strategies.
+     */
+    public LibraryGridCreateStrategy(PuzzleLibrary library, BitSet served) {
+        this(library, new PuzzleLibrary.Query(), new RemovePairsGridCreateStrategy(), served);
+    }
+
+    /**
+     * @param query
+     *            - the puzzles to draw from, it is copied.
+     */
+    public LibraryGridCreateStrategy(PuzzleLibrary library, PuzzleLibrary.Query query,
+            GridCreateStrategyTemplate fallback) {
+        this(library, query, fallback, new BitSet());
+    }
+
+    /**
+     * @param query
+     *            - the puzzles to draw from, it is copied and keeps the ids
+     *            it excludes.
+     * @param served
+     *            - the ids served so far, shared with other strategies. They
+     *            synchronize on it.
+     */
+    public LibraryGridCreateStrategy(PuzzleLibrary library, PuzzleLibrary.Query query,
+            GridCreateStrategyTemplate fallback, BitSet served) {
+        this.library = library;
+        this.served = served;
+        this.query = new PuzzleLibrary.Query(query).excluding(served);
+        this.fallback = fallback;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the id of the last puzzle taken from the library, -1 if it was
+     *         generated.
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int countServed() {
+        synchronized (served) {
+            return served.cardinality();
+        }
+    }
+
+/* Methods */
+    @Override
+    public void fillSymmetrically() {
+        lastId = -1;
+        if (grid.getSize() == library.getSize()) {
+            synchronized (served) {
+                lastId = library.sample(query, random);
+                if (lastId >= 0) {
+                    served.set(lastId);
+                }
+            }
+        }
+        if (lastId < 0) {
+            LOGGER.info("No puzzle left in the library, generating one");
+            fallback.createNewGrid(grid, random.nextLong());
+            return;
+        }
+        library.writeTo(lastId, grid);
+    }
+}
@@ -0,0 +1,757 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Solves a puzzle the way a human does, with techniques that never guess.
+ * The techniques are tried in the order of their weight, and after every
+ * technique that made progress the solver starts again with the cheapest
+ * one. The rating of a puzzle is the weight of the hardest technique it
+ * needed, the histogram tells how often each technique was used.
+ * The solver works on candidate bitmasks and reuses its arrays between
+ * puzzles of the same size, so one instance must not be shared between
+ * threads.
+ */
+public class LogicalSolver implements DifficultyRater {
+
+    /**
+     * The techniques of the solver, ordered by their weight.
+     */
+    public enum Technique {
+        HIDDEN_SINGLE(10), NAKED_SINGLE(20), POINTING(26), CLAIMING(28),
+        NAKED_PAIR(30), X_WING(32), HIDDEN_PAIR(34), NAKED_TRIPLE(36),
+        SWORDFISH(38), HIDDEN_TRIPLE(40), XY_WING(42), CHAIN(50);
+
+        private final int weight;
+
+        Technique(int weight) {
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * The row, column and block structure of a grid of one size, shared by
+     * all solvers.
+     */
+    private static final class Layout {
+        private final int size;
+        private final int blockSize;
+        private final int[][] houses;
+        private final int[] row;
+        private final int[] column;
+        private final int[] block;
+        /** the row, column and block house of every cell */
+        private final int[][] housesOf;
+
+        private Layout(int size) {
+            this.size = size;
+            this.blockSize = Grid.blocksPerEdge(size);
+            this.houses = new int[3 * size][size];
+            this.row = new int[size * size];
+            this.column = new int[size * size];
+            this.block = new int[size * size];
+            this.housesOf = new int[size * size][];
+            for (int index = 0; index < size * size; index++) {
+                int r = index / size;
+                int c = index % size;
+                int b = blockSize * (r / blockSize) + c / blockSize;
+                row[index] = r;
+                column[index] = c;
+                block[index] = b;
+                housesOf[index] = new int[] { r, size + c, 2 * size + b };
+                houses[r][c] = index;
+                houses[size + c][r] = index;
+                houses[2 * size + b][blockSize * (r % blockSize) + c % blockSize] = index;
+            }
+        }
+    }
+
+/* Fields */
+    private static final Technique[] TECHNIQUES = Technique.values();
+    private static final Layout[] LAYOUTS = new Layout[Grid.MAXSIZE + 1];
+
+    private Layout layout;
+    private int size;
+    private int allValues;
+    private int[] values;
+    private int[] candidates;
+    private int[] placed;
+    private int[] items;
+    private int[] masks;
+    private int[] color;
+    private int[] queue;
+    private int unset;
+    private boolean contradiction;
+    private boolean tracking;
+    private int placedIndex;
+    private int placedValue;
+    private final int[] counts = new int[TECHNIQUES.length];
+    private int rating;
+
+/* Getter and Setter */
+    /**
+     * @return the weight of the hardest technique the last puzzle needed, 0
+     *         if it had no empty cell, UNSOLVABLE if the techniques were not
+     *         enough.
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * @return how often technique made progress on the last puzzle.
+     */
+    public int getCount(Technique technique) {
+        return counts[technique.ordinal()];
+    }
+
+    /**
+     * @return the techniques the last puzzle needed and how often each made
+     *         progress.
+     */
+    public Map<Technique, Integer> getHistogram() {
+        Map<Technique, Integer> histogram = new EnumMap<Technique, Integer>(Technique.class);
+        for (Technique technique : TECHNIQUES) {
+            if (counts[technique.ordinal()] > 0) {
+                histogram.put(technique, counts[technique.ordinal()]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the value of the cell at index after the last solve, 0 if the
+     *         techniques could not find it.
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    public boolean isSolved() {
+        return unset == 0 && !contradiction;
+    }
+
+    /**
+     * @return true if the last puzzle was found to have no solution.
+     */
+    public boolean isContradiction() {
+        return contradiction;
+    }
+
+    /**
+     * @return the cell of the value findPlacement found.
+     */
+    public int getPlacedIndex() {
+        return placedIndex;
+    }
+
+    public int getPlacedValue() {
+        return placedValue;
+    }
+
+/* Methods */
+    @Override
+    public int rate(Board board) {
+        solve(board);
+        return rating;
+    }
+
+    /**
+     * solves a copy of board with the techniques, board is not changed.
+     *
+     * @return true if the techniques were enough to solve it.
+     */
+    public boolean solve(Board board) {
+        init(board);
+        while (unset > 0 && !contradiction && nextStep() != null) {
+            // every step made progress
+        }
+        if (!isSolved()) {
+            rating = UNSOLVABLE;
+        }
+        return isSolved();
+    }
+
+    /**
+     * applies techniques to a copy of board until one of them sets a value.
+     * The cell and the value are kept, the technique is returned.
+     *
+     * @return the technique that set the value, or null if the techniques
+     *         can not set any value.
+     */
+    public Technique findPlacement(Board board) {
+        init(board);
+        tracking = true;
+        placedIndex = -1;
+        Technique technique = null;
+        while (placedIndex < 0 && unset > 0 && !contradiction) {
+            technique = nextStep();
+            if (technique == null) {
+                break;
+            }
+        }
+        tracking = false;
+        return placedIndex < 0 || contradiction ? null : technique;
+    }
+
+    /**
+     * applies the cheapest technique that makes progress.
+     *
+     * @return the technique, or null if none made progress.
+     */
+    private Technique nextStep() {
+        for (Technique technique : TECHNIQUES) {
+            int applied = apply(technique);
+            if (contradiction) {
+                return null;
+            }
+            if (applied > 0) {
+                counts[technique.ordinal()] += applied;
+                rating = Math.max(rating, technique.getWeight());
+                return technique;
+            }
+        }
+        return null;
+    }
+
+    private int apply(Technique technique) {
+        switch (technique) {
+        case HIDDEN_SINGLE:
+            return hiddenSingles();
+        case NAKED_SINGLE:
+            return nakedSingles();
+        case POINTING:
+            return intersections(true);
+        case CLAIMING:
+            return intersections(false);
+        case NAKED_PAIR:
+            return nakedSubsets(2);
+        case X_WING:
+            return fish(2);
+        case HIDDEN_PAIR:
+            return hiddenSubsets(2);
+        case NAKED_TRIPLE:
+            return nakedSubsets(3);
+        case SWORDFISH:
+            return fish(3);
+        case HIDDEN_TRIPLE:
+            return hiddenSubsets(3);
+        case XY_WING:
+            return xyWings();
+        default:
+            return chains();
+        }
+    }
+
+    private void init(Board board) {
+        if (board.getSize() != size || layout == null) {
+            size = board.getSize();
+            layout = layout(size);
+            allValues = board.getAllValues();
+            values = new int[size * size];
+            candidates = new int[size * size];
+            placed = new int[3 * size];
+            items = new int[size + 1];
+            masks = new int[size + 1];
+            color = new int[size * size];
+            queue = new int[size * size];
+        }
+        Arrays.fill(placed, 0);
+        Arrays.fill(counts, 0);
+        rating = 0;
+        contradiction = false;
+        unset = size * size;
+        for (int index = 0; index < size * size; index++) {
+            values[index] = 0;
+            candidates[index] = allValues;
+        }
+        for (int index = 0; index < size * size; index++) {
+            int value = board.getValue(index);
+            if (value != 0) {
+                place(index, value);
+            }
+        }
+    }
+
+    private static Layout layout(int size) {
+        Layout layout = LAYOUTS[size];
+        if (layout == null) {
+            layout = new Layout(size);
+            LAYOUTS[size] = layout;
+        }
+        return layout;
+    }
+
+    private void place(int index, int value) {
+        int bit = 1 << value;
+        values[index] = value;
+        candidates[index] = 0;
+        unset--;
+        if (tracking && placedIndex < 0) {
+            placedIndex = index;
+            placedValue = value;
+        }
+        placeInHouse(layout.row[index], bit);
+        placeInHouse(size + layout.column[index], bit);
+        placeInHouse(2 * size + layout.block[index], bit);
+    }
+
+    private void placeInHouse(int house, int bit) {
+        if ((placed[house] & bit) != 0) {
+            contradiction = true;
+        }
+        placed[house] |= bit;
+        for (int cell : layout.houses[house]) {
+            candidates[cell] &= ~bit;
+        }
+    }
+
+    /**
+     * @return true if a candidate of mask was removed from the cell.
+     */
+    private boolean eliminate(int index, int mask) {
+        if ((candidates[index] & mask) == 0) {
+            return false;
+        }
+        candidates[index] &= ~mask;
+        return true;
+    }
+
+    private boolean sees(int first, int second) {
+        return first != second && (layout.row[first] == layout.row[second]
+                || layout.column[first] == layout.column[second]
+                || layout.block[first] == layout.block[second]);
+    }
+
+    /* Singles */
+
+    private int hiddenSingles() {
+        int found = 0;
+        for (int house = 0; house < 3 * size; house++) {
+            int once = 0;
+            int twice = 0;
+            for (int cell : layout.houses[house]) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            if ((allValues & ~(once | placed[house])) != 0) {
+                contradiction = true;
+                return found;
+            }
+            int singles = once & ~twice;
+            while (singles != 0) {
+                int bit = singles & -singles;
+                singles &= singles - 1;
+                for (int cell : layout.houses[house]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(cell, Integer.numberOfTrailingZeros(bit));
+                        found++;
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int nakedSingles() {
+        int found = 0;
+        for (int index = 0; index < size * size; index++) {
+            if (values[index] == 0) {
+                int mask = candidates[index];
+                if (mask == 0) {
+                    contradiction = true;
+                    return found;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    place(index, Integer.numberOfTrailingZeros(mask));
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Intersections */
+
+    /**
+     * pointing: the candidates of a value in a block all lie on one line, so
+     * the value can be removed from the rest of the line. claiming: the
+     * candidates of a value on a line all lie in one block, so the value can
+     * be removed from the rest of the block.
+     */
+    private int intersections(boolean pointing) {
+        int blockSize = layout.blockSize;
+        int found = 0;
+        for (int line = 0; line < 2 * size; line++) {
+            boolean isRow = line < size;
+            int number = isRow ? line : line - size;
+            for (int k = 0; k < blockSize; k++) {
+                int block = isRow ? blockSize * (number / blockSize) + k
+                        : blockSize * k + number / blockSize;
+                int blockHouse = 2 * size + block;
+                int inBoth = 0;
+                int lineRest = 0;
+                int blockRest = 0;
+                for (int cell : layout.houses[line]) {
+                    if (layout.block[cell] == block) {
+                        inBoth |= candidates[cell];
+                    } else {
+                        lineRest |= candidates[cell];
+                    }
+                }
+                for (int cell : layout.houses[blockHouse]) {
+                    if (!onLine(cell, line)) {
+                        blockRest |= candidates[cell];
+                    }
+                }
+                int confined = inBoth & ~(pointing ? blockRest : lineRest);
+                if (confined != 0) {
+                    boolean changed = false;
+                    for (int cell : layout.houses[pointing ? line : blockHouse]) {
+                        if (pointing ? layout.block[cell] != block : !onLine(cell, line)) {
+                            changed |= eliminate(cell, confined);
+                        }
+                    }
+                    if (changed) {
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean onLine(int cell, int line) {
+        return line < size ? layout.row[cell] == line : layout.column[cell] == line - size;
+    }
+
+    /* Subsets */
+
+    private int nakedSubsets(int k) {
+        int found = 0;
+        for (int house = 0; house < 3 * size; house++) {
+            int count = 0;
+            for (int cell : layout.houses[house]) {
+                int bits = Integer.bitCount(candidates[cell]);
+                if (bits >= 2 && bits <= k) {
+                    items[count++] = cell;
+                }
+            }
+            if (count >= k) {
+                found += nakedSubset(house, count, k, 0, 0, 0, 0);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * k cells of a house that together have only k candidates take these
+     * values, so the other cells of the house can not.
+     */
+    private int nakedSubset(int house, int count, int k, int start, int depth,
+            int union, int chosen) {
+        if (depth == k) {
+            if (Integer.bitCount(union) != k) {
+                return 0;
+            }
+            boolean changed = false;
+            for (int cell : layout.houses[house]) {
+                if (!isChosen(cell, chosen, count)) {
+                    changed |= eliminate(cell, union);
+                }
+            }
+            return changed ? 1 : 0;
+        }
+        int found = 0;
+        for (int i = start; i < count; i++) {
+            int next = union | candidates[items[i]];
+            if (Integer.bitCount(next) <= k) {
+                found += nakedSubset(house, count, k, i + 1, depth + 1, next, chosen | 1 << i);
+            }
+        }
+        return found;
+    }
+
+    private boolean isChosen(int cell, int chosen, int count) {
+        for (int i = 0; i < count; i++) {
+            if ((chosen & 1 << i) != 0 && items[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int hiddenSubsets(int k) {
+        int found = 0;
+        for (int house = 0; house < 3 * size; house++) {
+            int count = 0;
+            for (int value = 1; value <= size; value++) {
+                int positions = positions(house, 1 << value);
+                int bits = Integer.bitCount(positions);
+                masks[value] = positions;
+                if (bits >= 2 && bits <= k) {
+                    items[count++] = value;
+                }
+            }
+            if (count >= k) {
+                found += hiddenSubset(house, count, k, 0, 0, 0, 0);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * k values that can only go into the same k cells of a house take these
+     * cells, so the cells can not take other values.
+     */
+    private int hiddenSubset(int house, int count, int k, int start, int depth,
+            int union, int chosenValues) {
+        if (depth == k) {
+            if (Integer.bitCount(union) != k) {
+                return 0;
+            }
+            boolean changed = false;
+            int[] cells = layout.houses[house];
+            for (int position = 0; position < size; position++) {
+                if ((union & 1 << position) != 0) {
+                    changed |= eliminate(cells[position], allValues & ~chosenValues);
+                }
+            }
+            return changed ? 1 : 0;
+        }
+        int found = 0;
+        for (int i = start; i < count; i++) {
+            int next = union | masks[items[i]];
+            if (Integer.bitCount(next) <= k) {
+                found += hiddenSubset(house, count, k, i + 1, depth + 1, next,
+                        chosenValues | 1 << items[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the positions within house of the cells that have a candidate
+     *         of mask.
+     */
+    private int positions(int house, int mask) {
+        int positions = 0;
+        int[] cells = layout.houses[house];
+        for (int position = 0; position < size; position++) {
+            if ((candidates[cells[position]] & mask) != 0) {
+                positions |= 1 << position;
+            }
+        }
+        return positions;
+    }
+
+    /* Fish */
+
+    /**
+     * X-Wing for k = 2, Swordfish for k = 3: if the candidates of a value in k
+     * rows lie in only k columns, the value can be removed from the other
+     * cells of these columns, and the same with rows and columns swapped.
+     */
+    private int fish(int k) {
+        int found = 0;
+        for (int value = 1; value <= size; value++) {
+            int bit = 1 << value;
+            for (int base = 0; base <= size; base += size) {
+                int count = 0;
+                for (int line = 0; line < size; line++) {
+                    int positions = positions(base + line, bit);
+                    int bits = Integer.bitCount(positions);
+                    if (bits >= 2 && bits <= k) {
+                        masks[count] = positions;
+                        items[count++] = line;
+                    }
+                }
+                if (count >= k) {
+                    found += fish(bit, base, count, k, 0, 0, 0, 0);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int fish(int bit, int base, int count, int k, int start, int depth,
+            int union, int baseLines) {
+        if (depth == k) {
+            if (Integer.bitCount(union) != k) {
+                return 0;
+            }
+            boolean changed = false;
+            int cover = base == 0 ? size : 0;
+            for (int line = 0; line < size; line++) {
+                if ((union & 1 << line) != 0) {
+                    int[] cells = layout.houses[cover + line];
+                    for (int position = 0; position < size; position++) {
+                        if ((baseLines & 1 << position) == 0) {
+                            changed |= eliminate(cells[position], bit);
+                        }
+                    }
+                }
+            }
+            return changed ? 1 : 0;
+        }
+        int found = 0;
+        for (int i = start; i < count; i++) {
+            int next = union | masks[i];
+            if (Integer.bitCount(next) <= k) {
+                found += fish(bit, base, count, k, i + 1, depth + 1, next, baseLines | 1 << items[i]);
+            }
+        }
+        return found;
+    }
+
+    /* Wings and chains */
+
+    /**
+     * a pivot with candidates xy sees a pincer with xz and a pincer with yz.
+     * Whatever the pivot takes, one pincer is z, so z can be removed from
+     * every cell that sees both pincers.
+     */
+    private int xyWings() {
+        int found = 0;
+        for (int pivot = 0; pivot < size * size; pivot++) {
+            int xy = candidates[pivot];
+            if (Integer.bitCount(xy) != 2) {
+                continue;
+            }
+            for (int first = 0; first < size * size; first++) {
+                int xz = candidates[first];
+                if (Integer.bitCount(xz) != 2 || Integer.bitCount(xz & xy) != 1 || !sees(pivot, first)) {
+                    continue;
+                }
+                int z = xz & ~xy;
+                int yz = (xy & ~xz) | z;
+                for (int second = first + 1; second < size * size; second++) {
+                    if (candidates[second] == yz && sees(pivot, second)) {
+                        boolean changed = false;
+                        for (int cell = 0; cell < size * size; cell++) {
+                            if (cell != pivot && sees(cell, first) && sees(cell, second)) {
+                                changed |= eliminate(cell, z);
+                            }
+                        }
+                        if (changed) {
+                            found++;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * simple colouring: the cells of a value that are joined by strong links
+     * (the only two places of the value in a house) get alternating colours,
+     * one colour is the value and the other is not. Two cells of the same
+     * colour that see each other make that colour false, and a cell that sees
+     * both colours can not take the value.
+     */
+    private int chains() {
+        int found = 0;
+        for (int value = 1; value <= size; value++) {
+            int bit = 1 << value;
+            Arrays.fill(color, 0);
+            int end = 0;
+            int component = 0;
+            for (int cell = 0; cell < size * size; cell++) {
+                if (color[cell] != 0 || (candidates[cell] & bit) == 0 || !hasStrongLink(cell, bit)) {
+                    continue;
+                }
+                int start = end;
+                component++;
+                color[cell] = 2 * component;
+                queue[end++] = cell;
+                for (int next = start; next < end; next++) {
+                    int current = queue[next];
+                    for (int house : layout.housesOf[current]) {
+                        int partner = strongPartner(house, current, bit);
+                        if (partner >= 0 && color[partner] == 0) {
+                            color[partner] = color[current] ^ 1;
+                            queue[end++] = partner;
+                        }
+                    }
+                }
+                if (eliminateByColours(bit, start, end)) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean eliminateByColours(int bit, int start, int end) {
+        for (int i = start; i < end; i++) {
+            for (int j = i + 1; j < end; j++) {
+                if (color[queue[i]] == color[queue[j]] && sees(queue[i], queue[j])) {
+                    int wrong = color[queue[i]];
+                    for (int k = start; k < end; k++) {
+                        if (color[queue[k]] == wrong) {
+                            eliminate(queue[k], bit);
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        boolean changed = false;
+        int component = color[queue[start]] & ~1;
+        for (int cell = 0; cell < size * size; cell++) {
+            if ((candidates[cell] & bit) == 0 || (color[cell] & ~1) == component) {
+                continue;
+            }
+            boolean seesEven = false;
+            boolean seesOdd = false;
+            for (int i = start; i < end && !(seesEven && seesOdd); i++) {
+                if (sees(cell, queue[i])) {
+                    if ((color[queue[i]] & 1) == 0) {
+                        seesEven = true;
+                    } else {
+                        seesOdd = true;
+                    }
+                }
+            }
+            if (seesEven && seesOdd) {
+                changed |= eliminate(cell, bit);
+            }
+        }
+        return changed;
+    }
+
+    private boolean hasStrongLink(int cell, int bit) {
+        for (int house : layout.housesOf[cell]) {
+            if (strongPartner(house, cell, bit) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the other cell of house with a candidate bit if there are
+     *         exactly two, otherwise -1.
+     */
+    private int strongPartner(int house, int cell, int bit) {
+        int partner = -1;
+        int count = 0;
+        for (int other : layout.houses[house]) {
+            if ((candidates[other] & bit) != 0) {
+                count++;
+                if (other != cell) {
+                    partner = other;
+                }
+            }
+        }
+        return count == 2 ? partner : -1;
+    }
+}
@@ -0,0 +1,282 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+/**
+ * Patterns: Abstract Factory, TemplateMethod This class is a concrete strategy.
+ * The givens of its puzzles lie exactly on the cells of a fixed mask. Each
+ * worker starts with the values of a random solution on the mask and then
+ * changes one given at a time, keeping a change if the puzzle still has a
+ * solution and not more solutions than before. The LogicalSolver prunes
+ * changes early: a puzzle it solves has exactly one solution, and a puzzle
+ * it finds contradictory has none, so only the rest are counted.
+ *
+ * The workers search in parallel, each with a random split off the one of
+ * the strategy and a budget of changes instead of time, so what a worker
+ * finds does not depend on the machine. The puzzle of the first worker, by
+ * number, that finds a unique one is kept; a worker stops early only once a
+ * worker with a lower number has succeeded. If none succeeds, the puzzle
+ * with the fewest solutions is kept. The same size, mask and seed therefore
+ * create the same puzzle, whatever the number of cores.
+ */
+public class MaskGridCreateStrategy extends GridCreateStrategyTemplate {
+
+/* Fields */
+    private static final Logger LOGGER = LogManager.getLogger(MaskGridCreateStrategy.class.getName());
+
+    /** solutions are only counted up to this limit */
+    private static final int COUNT_LIMIT = 64;
+    /** changes of a worker before it starts again from a new solution */
+    private static final int RESTART_INTERVAL = 2000;
+    /** probability of keeping a change that adds solutions */
+    private static final double NOISE = 0.05;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "mask-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final boolean[][] mask;
+    private final int threads;
+    private final int budget;
+    private int solutions;
+
+/* Constructors */
+    /**
+     * @param mask
+     *            - true for the cells that get a given.
+     * @param threads
+     *            - the number of workers.
+     * @param budget
+     *            - the number of changes every worker may try.
+     */
+    public MaskGridCreateStrategy(boolean[][] mask, int threads, int budget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.mask = new boolean[mask.length][];
+        for (int row = 0; row < mask.length; row++) {
+            if (mask[row].length != mask.length) {
+                throw new IllegalArgumentException("mask must be square");
+            }
+            this.mask[row] = mask[row].clone();
+        }
+        this.threads = threads;
+        this.budget = budget;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the number of solutions of the last puzzle, 1 if it is unique,
+     *         COUNT_LIMIT if it has at least that many.
+     */
+    public int getSolutions() {
+        return solutions;
+    }
+
+    public int countClues() {
+        int clues = 0;
+        for (boolean[] row : mask) {
+            for (boolean clue : row) {
+                if (clue) {
+                    clues++;
+                }
+            }
+        }
+        return clues;
+    }
+
+/* Methods */
+    /**
+     * @return the mask of a pattern of size * size characters, whitespace is
+     *         ignored, '.' and '0' are empty cells, all others are givens.
+     */
+    public static boolean[][] parseMask(String pattern) {
+        String cells = pattern.replaceAll("\\s", "");
+        int size = Grid.intSqrt(cells.length());
+        if (size * size != cells.length()) {
+            throw new IllegalArgumentException("pattern must have size * size cells");
+        }
+        boolean[][] mask = new boolean[size][size];
+        for (int index = 0; index < cells.length(); index++) {
+            char c = cells.charAt(index);
+            mask[index / size][index % size] = c != '.' && c != '0';
+        }
+        return mask;
+    }
+
+    @Override
+    public void fillSymmetrically() {
+        if (mask.length != grid.getSize()) {
+            throw new IllegalArgumentException("mask does not fit a grid of size " + grid.getSize());
+        }
+        Worker best = search();
+        solutions = best.solutions;
+        for (int index = 0; index < best.values.length; index++) {
+            if (best.values[index] != 0) {
+                grid.getCell(index / mask.length, index % mask.length).setValue(best.values[index]);
+            }
+        }
+    }
+
+    private Worker search() {
+        AtomicInteger winner = new AtomicInteger(threads);
+        List<Worker> workers = new ArrayList<Worker>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(i, random.split(), winner));
+        }
+        List<Future<Worker>> futures = new ArrayList<Future<Worker>>();
+        try {
+            for (Worker worker : workers) {
+                futures.add(EXECUTOR.submit(worker));
+            }
+            for (Future<Worker> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.info("Mask search was interrupted", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.info("Mask search failed", e);
+        } finally {
+            for (Future<Worker> future : futures) {
+                future.cancel(true);
+            }
+        }
+        if (winner.get() < threads) {
+            return workers.get(winner.get());
+        }
+        Worker best = workers.get(0);
+        for (Worker worker : workers) {
+            if (worker.solutions > 0 && (best.solutions == 0 || worker.solutions < best.solutions)) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * One worker of the search. It stops when it found a unique puzzle, when
+     * a worker with a lower number did or when its budget is used up.
+     */
+    private final class Worker implements Callable<Worker> {
+        private final int number;
+        private final SplittableRandom random;
+        private final AtomicInteger winner;
+        private int changes;
+        private final int size = mask.length;
+        private final int[] clues;
+        private final LogicalSolver solver = new LogicalSolver();
+        private int[] values;
+        private int solutions;
+
+        private Worker(int number, SplittableRandom random, AtomicInteger winner) {
+            this.number = number;
+            this.random = random;
+            this.winner = winner;
+            List<Integer> positions = new ArrayList<Integer>();
+            for (int index = 0; index < size * size; index++) {
+                if (mask[index / size][index % size]) {
+                    positions.add(index);
+                }
+            }
+            this.clues = new int[positions.size()];
+            for (int i = 0; i < clues.length; i++) {
+                clues[i] = positions.get(i);
+            }
+        }
+
+        @Override
+        public Worker call() {
+            do {
+                int[] current = randomStart();
+                int count = count(current);
+                keepIfBest(current, count);
+                for (int step = 0; step < RESTART_INTERVAL && count > 1 && !isOver(); step++) {
+                    changes++;
+                    int clue = clues[random.nextInt(clues.length)];
+                    int old = current[clue];
+                    int value = 1 + random.nextInt(size);
+                    if (value == old) {
+                        continue;
+                    }
+                    current[clue] = value;
+                    int changed = count(current);
+                    if (changed > 0 && (changed <= count || random.nextDouble() < NOISE)) {
+                        count = changed;
+                        keepIfBest(current, count);
+                    } else {
+                        current[clue] = old;
+                    }
+                }
+                if (count == 1) {
+                    winner.accumulateAndGet(number, Math::min);
+                }
+            } while (!isOver());
+            return this;
+        }
+
+        private boolean isOver() {
+            return winner.get() <= number || changes >= budget || Thread.currentThread().isInterrupted();
+        }
+
+        private void keepIfBest(int[] current, int count) {
+            if (values == null || count < solutions) {
+                values = current.clone();
+                solutions = count;
+            }
+        }
+
+        /**
+         * @return the values of a random solution on the cells of the mask.
+         */
+        private int[] randomStart() {
+            BacktrackingSearch search = new BacktrackingSearch(new Board(size),
+                    CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, random.nextLong());
+            Board solution = search.call().getBoard();
+            int[] start = new int[size * size];
+            for (int clue : clues) {
+                start[clue] = solution.getValue(clue);
+            }
+            return start;
+        }
+
+        /**
+         * @return the number of solutions up to COUNT_LIMIT, 0 if the givens
+         *         contradict each other.
+         */
+        private int count(int[] values) {
+            Board board = new Board(size);
+            for (int clue : clues) {
+                if ((board.candidates(clue) & 1 << values[clue]) == 0) {
+                    return 0;
+                }
+                board.setValue(clue, values[clue]);
+            }
+            if (solver.solve(board)) {
+                return 1;
+            }
+            if (solver.isContradiction()) {
+                return 0;
+            }
+            return new BacktrackingSearch(board, CellOrder.MINIMUM_REMAINING_VALUES,
+                    ValueOrder.RANDOM, 0).countSolutions(COUNT_LIMIT);
+        }
+    }
+}
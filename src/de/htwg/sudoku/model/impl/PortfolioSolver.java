@@ -0,0 +1,119 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+/**
+ * A portfolio solver races several differently configured searches on copies
+ * of the grid. The first search that either finds a solution or proves that
+ * there is none decides the result, all other searches are cancelled.
+ */
+public class PortfolioSolver {
+
+/* Fields */
+    private static final Logger LOGGER = LogManager.getLogger(PortfolioSolver.class.getName());
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "portfolio-solver");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final SplittableRandom random;
+    private int steps;
+
+/* Constructors */
+    public PortfolioSolver() {
+        this(new SplittableRandom());
+    }
+
+    public PortfolioSolver(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * @param random
+     *            - the source of the seeds of the searches.
+     */
+    public PortfolioSolver(SplittableRandom random) {
+        this.random = random;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the number of steps the winning search needed.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+/* Methods */
+    /**
+     * solves grid by racing the searches of the portfolio. On success the
+     * values of the winning search are written into grid.
+     *
+     * @return true if a solution was found.
+     */
+    public boolean solve(Grid grid) {
+        Board board = new Board(grid);
+        List<BacktrackingSearch> searches = portfolio(board);
+        CompletionService<BacktrackingSearch> completion = new ExecutorCompletionService<BacktrackingSearch>(EXECUTOR);
+        List<Future<BacktrackingSearch>> futures = new ArrayList<Future<BacktrackingSearch>>();
+        for (BacktrackingSearch search : searches) {
+            futures.add(completion.submit(search));
+        }
+        try {
+            for (int i = 0; i < searches.size(); i++) {
+                BacktrackingSearch winner = completion.take().get();
+                if (!winner.isCancelled()) {
+                    steps = winner.getSteps();
+                    if (winner.isSolved()) {
+                        winner.getBoard().writeTo(grid);
+                    }
+                    return winner.isSolved();
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.info("Portfolio solver was interrupted", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.info("Portfolio search failed", e);
+        } finally {
+            for (Future<BacktrackingSearch> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the configurations that race against each other: every combination of
+     * row-major and minimum remaining values cell order with random and
+     * least constraining value order, each on its own copy of the board with
+     * its own seed.
+     */
+    List<BacktrackingSearch> portfolio(Board board) {
+        List<BacktrackingSearch> searches = new ArrayList<BacktrackingSearch>();
+        for (CellOrder cellOrder : CellOrder.values()) {
+            for (ValueOrder valueOrder : ValueOrder.values()) {
+                searches.add(new BacktrackingSearch(new Board(board), cellOrder, valueOrder,
+                        random.nextLong()));
+            }
+        }
+        return searches;
+    }
+}
@@ -0,0 +1,154 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A catalog of puzzles that only stores their IDs, 8 bytes per puzzle. A
+ * puzzle is created from its ID when it is asked for, the most recently used
+ * puzzles are kept in an LRU cache. The catalog may be used by several
+ * threads; a puzzle is created outside the lock, so a slow one does not hold
+ * up the others.
+ */
+public class PuzzleCatalog {
+
+/* Fields */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int count;
+    private final Map<Long, Grid> cache;
+    /** a strategy creates one puzzle at a time, so every thread has its own */
+    private final ThreadLocal<Map<GridCreateStrategyType, GridCreateStrategyTemplate>> strategies =
+            new ThreadLocal<Map<GridCreateStrategyType, GridCreateStrategyTemplate>>() {
+                @Override
+                protected Map<GridCreateStrategyType, GridCreateStrategyTemplate> initialValue() {
+                    return new EnumMap<GridCreateStrategyType, GridCreateStrategyTemplate>(
+                            GridCreateStrategyType.class);
+                }
+            };
+    private int hits;
+    private int misses;
+
+/* Constructors */
+    /**
+     * @param cacheSize
+     *            - the number of created puzzles that are kept.
+     */
+    public PuzzleCatalog(final int cacheSize) {
+        this.cache = new LinkedHashMap<Long, Grid>(INITIAL_CAPACITY, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Grid> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+/* Getter and Setter */
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public synchronized long[] getIds() {
+        return Arrays.copyOf(ids, count);
+    }
+
+    public synchronized int getCacheHits() {
+        return hits;
+    }
+
+    public synchronized int getCacheMisses() {
+        return misses;
+    }
+
+/* Methods */
+    public synchronized void add(long id) {
+        PuzzleId.typeOf(id);
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * ids.length);
+        }
+        ids[count++] = id;
+    }
+
+    public void add(int size, GridCreateStrategyType type, long seed) {
+        add(PuzzleId.encode(size, type, seed));
+    }
+
+    /**
+     * @return a new grid with the puzzle at index, changing it does not
+     *         change the catalog.
+     */
+    public Grid get(int index) {
+        return copy(materialize(getId(index)));
+    }
+
+    /**
+     * @return a new grid with the puzzle of id, which need not be in the
+     *         catalog.
+     */
+    public Grid getById(long id) {
+        return copy(materialize(id));
+    }
+
+    /**
+     * @return the cached grid of id. It is not changed once it is in the
+     *         cache, so it may be copied without the lock.
+     */
+    private Grid materialize(long id) {
+        synchronized (this) {
+            Grid grid = cache.get(id);
+            if (grid != null) {
+                hits++;
+                return grid;
+            }
+            misses++;
+        }
+        GridCreateStrategyType type = PuzzleId.typeOf(id);
+        Map<GridCreateStrategyType, GridCreateStrategyTemplate> own = strategies.get();
+        GridCreateStrategyTemplate strategy = own.get(type);
+        if (strategy == null) {
+            strategy = type.create();
+            own.put(type, strategy);
+        }
+        Grid grid = PuzzleId.createGrid(id, strategy);
+        // searched once here instead of by every copy
+        grid.getSolution();
+        synchronized (this) {
+            // another thread may have created it meanwhile
+            Grid published = cache.get(id);
+            if (published != null) {
+                return published;
+            }
+            cache.put(id, grid);
+        }
+        return grid;
+    }
+
+    private static Grid copy(Grid grid) {
+        Grid copy = new Grid(grid.getSize());
+        for (int row = 0; row < grid.getSize(); row++) {
+            for (int column = 0; column < grid.getSize(); column++) {
+                Cell cell = grid.getCell(row, column);
+                copy.getCell(row, column).setValue(cell.getValue());
+                copy.getCell(row, column).setGiven(cell.isGiven());
+            }
+        }
+        grid.copySolutionTo(copy);
+        return copy;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+        }
+    }
+}
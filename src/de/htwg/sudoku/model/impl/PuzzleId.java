@@ -0,0 +1,96 @@
+package de.htwg.sudoku.model.impl;
+
+/**
+ * A puzzle ID packs everything that is needed to create a puzzle again into
+ * one long: the size in the top 3 bits, the code of the strategy type in the
+ * next 5 bits and the seed in the low 56 bits. Creating the puzzle of an ID
+ * runs the strategy with the seed, so the same ID always gives the same
+ * puzzle.
+ */
+public final class PuzzleId {
+
+/* Fields */
+    public static final int SEED_BITS = 56;
+    public static final long MAX_SEED = (1L << SEED_BITS) - 1;
+    private static final int TYPE_BITS = 5;
+    private static final int MAX_BLOCK_SIZE = 5;
+
+/* Constructors */
+    private PuzzleId() {
+        // only static methods
+    }
+
+/* Methods */
+    /**
+     * @throws IllegalArgumentException
+     *             if the size is not 1, 4, 9, 16 or 25 or the seed does not
+     *             fit into 56 bits.
+     */
+    public static long encode(int size, GridCreateStrategyType type, long seed) {
+        int blockSize = Grid.blocksPerEdge(size);
+        if (size < 1 || blockSize * blockSize != size || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("no puzzle ID for size " + size);
+        }
+        if (seed < 0 || seed > MAX_SEED) {
+            throw new IllegalArgumentException("seed must be between 0 and " + MAX_SEED);
+        }
+        return (long) (blockSize - 1) << (SEED_BITS + TYPE_BITS)
+                | (long) type.getCode() << SEED_BITS | seed;
+    }
+
+    public static int sizeOf(long id) {
+        int blockSize = (int) (id >>> (SEED_BITS + TYPE_BITS)) + 1;
+        return blockSize * blockSize;
+    }
+
+    public static GridCreateStrategyType typeOf(long id) {
+        return GridCreateStrategyType.fromCode((int) (id >>> SEED_BITS) & ((1 << TYPE_BITS) - 1));
+    }
+
+    public static long seedOf(long id) {
+        return id & MAX_SEED;
+    }
+
+    /**
+     * creates the puzzle of id with a new strategy of its type.
+     */
+    public static Grid createGrid(long id) {
+        return createGrid(id, typeOf(id).create());
+    }
+
+    /**
+     * creates the puzzle of id with strategy, which must be of the type of id.
+     */
+    public static Grid createGrid(long id, GridCreateStrategyTemplate strategy) {
+        Grid grid = new Grid(sizeOf(id));
+        strategy.createNewGrid(grid, seedOf(id));
+        return grid;
+    }
+
+    /**
+     * @return the ID as 16 hex digits, the form in which it is shared.
+     */
+    public static String toString(long id) {
+        String hex = Long.toHexString(id);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if text is not an ID in hex digits.
+     */
+    public static long parse(String text) {
+        long id;
+        try {
+            id = Long.parseUnsignedLong(text.trim(), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a puzzle ID: " + text, e);
+        }
+        int blockSize = (int) (id >>> (SEED_BITS + TYPE_BITS)) + 1;
+        if (blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("not a puzzle ID: " + text);
+        }
+        typeOf(id);
+        return id;
+    }
+}
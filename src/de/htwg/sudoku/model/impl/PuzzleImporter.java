@@ -0,0 +1,294 @@
+package de.htwg.sudoku.model.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads puzzle collections as a lazy stream. Only the current line and the
+ * current puzzle are held in memory, so files of any length can be
+ * imported. Records that can not be read are skipped and counted.
+ *
+ * The stream holds the file open, it has to be closed, e.g. with
+ * try-with-resources.
+ */
+public class PuzzleImporter {
+
+    /**
+     * The formats of puzzle collections.
+     */
+    public enum Format {
+        /** one puzzle per line */
+        SDM,
+        /** a single puzzle over several lines, comments start with # or [ */
+        SDK,
+        /**
+         * puzzles over several lines, separated by blank lines, comments or
+         * titles like "Grid 01", or simply following each other
+         */
+        MULTI,
+        /** comma separated, the first field that is a puzzle is the puzzle,
+         *  the next one its solution; a header line is skipped */
+        CSV;
+
+        /**
+         * @return the format that belongs to the extension of file, MULTI if
+         *         the extension is unknown.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".sdm")) {
+                return SDM;
+            } else if (name.endsWith(".sdk")) {
+                return SDK;
+            } else if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            return MULTI;
+        }
+    }
+
+/* Fields */
+    private static final Logger LOGGER = LogManager.getLogger(PuzzleImporter.class.getName());
+
+    private final int size;
+    private final char zero;
+    private final AtomicLong skipped = new AtomicLong();
+
+/* Constructors */
+    public PuzzleImporter(int size) {
+        this(size, '.');
+    }
+
+    /**
+     * @param zero
+     *            - the symbol of an empty cell besides 0.
+     */
+    public PuzzleImporter(int size, char zero) {
+        this.size = size;
+        this.zero = zero;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the number of records that could not be read, over all
+     *         streams of this importer.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+/* Methods */
+    public Stream<ImportedPuzzle> read(Path file) throws IOException {
+        return read(file, Format.of(file));
+    }
+
+    public Stream<ImportedPuzzle> read(Path file, Format format) throws IOException {
+        // ISO 8859-1 maps every byte to a character, so no input is rejected
+        return read(Files.newBufferedReader(file, StandardCharsets.ISO_8859_1), format);
+    }
+
+    /**
+     * @return the puzzles of reader, closing the stream closes reader.
+     */
+    public Stream<ImportedPuzzle> read(BufferedReader reader, Format format) {
+        Iterator<ImportedPuzzle> puzzles = new PuzzleIterator(reader, format);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(puzzles,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Reads the lines of one collection and assembles the puzzles.
+     */
+    private class PuzzleIterator implements Iterator<ImportedPuzzle> {
+
+        private final BufferedReader reader;
+        private final Format format;
+        private final GridParser parser = new GridParser(size, zero);
+        private final GridParser solutionParser = new GridParser(size, zero);
+        private final StringBuilder cells = new StringBuilder();
+        private int cellCount;
+        private long firstLine;
+        private long lineNumber;
+        private int returned;
+        private ImportedPuzzle next;
+
+        PuzzleIterator(BufferedReader reader, Format format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !(format == Format.SDK && returned > 0)) {
+                String line = readLine();
+                if (line == null) {
+                    next = flush();
+                    break;
+                }
+                lineNumber++;
+                next = accept(line);
+            }
+            return next != null;
+        }
+
+        @Override
+        public ImportedPuzzle next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ImportedPuzzle puzzle = next;
+            next = null;
+            returned++;
+            return puzzle;
+        }
+
+        private String readLine() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return the puzzle the line completes, null if there is none.
+         */
+        private ImportedPuzzle accept(String line) {
+            switch (format) {
+            case SDM:
+                return isComment(line) ? null : parseLine(line);
+            case CSV:
+                return parseFields(line);
+            default:
+                return collect(line);
+            }
+        }
+
+        private ImportedPuzzle parseLine(String line) {
+            if (parser.parse(line)) {
+                return new ImportedPuzzle(size, parser.getValues(), null, lineNumber);
+            }
+            skip(parser);
+            return null;
+        }
+
+        private ImportedPuzzle parseFields(String line) {
+            GridParser found = null;
+            int start = 0;
+            while (start <= line.length()) {
+                int end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = line.length();
+                }
+                GridParser field = found == null ? parser : solutionParser;
+                if (field.parse(line, start, end)) {
+                    if (found != null) {
+                        return new ImportedPuzzle(size, parser.getValues(), solutionParser.getValues(), lineNumber);
+                    }
+                    found = parser;
+                }
+                start = end + 1;
+            }
+            if (found != null) {
+                return new ImportedPuzzle(size, parser.getValues(), null, lineNumber);
+            }
+            if (lineNumber > 1) {
+                // the first line may be a header
+                skip(parser);
+            }
+            return null;
+        }
+
+        /**
+         * adds the cells of line to the current puzzle of a multi-line format.
+         */
+        private ImportedPuzzle collect(String line) {
+            if (isSeparator(line)) {
+                return flush();
+            }
+            int lineCells = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == zero || GridParser.valueOf(c) >= 0) {
+                    lineCells++;
+                }
+            }
+            if (lineCells == 0) {
+                return null;
+            }
+            if (cellCount == 0) {
+                firstLine = lineNumber;
+            }
+            cells.append(line).append('\n');
+            cellCount += lineCells;
+            return cellCount >= size * size ? flush() : null;
+        }
+
+        /**
+         * ends the current puzzle of a multi-line format.
+         */
+        private ImportedPuzzle flush() {
+            if (cellCount == 0) {
+                return null;
+            }
+            ImportedPuzzle puzzle = null;
+            if (parser.parse(cells)) {
+                puzzle = new ImportedPuzzle(size, parser.getValues(), null, firstLine);
+            } else {
+                skip(parser);
+            }
+            cells.setLength(0);
+            cellCount = 0;
+            return puzzle;
+        }
+
+        private boolean isComment(String line) {
+            String trimmed = line.trim();
+            return trimmed.isEmpty() || trimmed.charAt(0) == '#' || trimmed.charAt(0) == '[';
+        }
+
+        /**
+         * @return true for comments and, as long as letters are no symbols,
+         *         for titles.
+         */
+        private boolean isSeparator(String line) {
+            if (isComment(line)) {
+                return true;
+            }
+            if (size < GridParser.valueOf('A')) {
+                for (int i = 0; i < line.length(); i++) {
+                    if (Character.isLetter(line.charAt(i))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void skip(GridParser failed) {
+            skipped.incrementAndGet();
+            LOGGER.debug("Skipped the puzzle at line " + lineNumber + ": " + failed.getErrorMessage());
+        }
+    }
+}
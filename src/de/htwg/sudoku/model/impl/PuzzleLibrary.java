@@ -0,0 +1,350 @@
+package de.htwg.sudoku.model.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A read-only collection of puzzles of one size in a memory-mapped file, as
+ * written by PuzzleLibraryWriter. Nothing but the header is read into the
+ * heap; queries binary search the sorted indexes in the file and only touch
+ * the records they return.
+ *
+ * The file starts with a header, followed by fixed-length records and three
+ * indexes of (key, id) pairs sorted by key: the number of clues, the rating
+ * of the LogicalSolver and the upper half of the canonical hash. A record
+ * holds the full canonical hash, the rating, the number of clues and the
+ * values, packed into 4 bits per cell up to size 15. A puzzle is identified
+ * by the position of its record. The file must be smaller than 2 GB. A
+ * library may be queried by several threads.
+ */
+public class PuzzleLibrary implements Closeable {
+
+    /**
+     * The puzzles a query asks for. Without any restriction all puzzles
+     * match.
+     */
+    public static class Query {
+
+        private int minClues;
+        private int maxClues = Integer.MAX_VALUE;
+        private int minRating;
+        private int maxRating = Integer.MAX_VALUE;
+        private final List<BitSet> excluded = new ArrayList<BitSet>();
+
+        public Query() {
+            // all puzzles
+        }
+
+        public Query(Query query) {
+            this.minClues = query.minClues;
+            this.maxClues = query.maxClues;
+            this.minRating = query.minRating;
+            this.maxRating = query.maxRating;
+            this.excluded.addAll(query.excluded);
+        }
+
+        /**
+         * restricts the number of clues to min..max, both inclusive.
+         */
+        public Query clues(int min, int max) {
+            this.minClues = min;
+            this.maxClues = max;
+            return this;
+        }
+
+        /**
+         * restricts the rating to min..max, both inclusive.
+         */
+        public Query rating(int min, int max) {
+            this.minRating = min;
+            this.maxRating = max;
+            return this;
+        }
+
+        /**
+         * leaves out the puzzles whose ids are set in ids, e.g. the ones a
+         * player has already seen. The set is not copied, and it adds to the
+         * sets that are already excluded.
+         */
+        public Query excluding(BitSet ids) {
+            this.excluded.add(ids);
+            return this;
+        }
+
+        boolean matches(PuzzleLibrary library, int id) {
+            int clues = library.getClues(id);
+            int rating = library.getRating(id);
+            if (clues < minClues || clues > maxClues || rating < minRating || rating > maxRating) {
+                return false;
+            }
+            for (BitSet ids : excluded) {
+                if (ids.get(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+/* Fields */
+    static final int MAGIC = 0x53444C42;
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 64;
+    static final int INDEX_ENTRY = 8;
+
+    private static final int HASH = 0;
+    private static final int RATING = 8;
+    private static final int CLUES = 12;
+    private static final int CELLS = 14;
+    private static final int NIBBLE_SIZE = 15;
+    private static final int SAMPLE_ATTEMPTS = 32;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int count;
+    private final int recordLength;
+    private final int clueIndex;
+    private final int ratingIndex;
+    private final int hashIndex;
+
+/* Constructors */
+    public PuzzleLibrary(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException(file + " is too large to be mapped");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException(file + " is not a puzzle library");
+        }
+        this.size = buffer.getInt(8);
+        this.count = buffer.getInt(12);
+        this.recordLength = buffer.getInt(16);
+        this.clueIndex = (int) buffer.getLong(24);
+        this.ratingIndex = (int) buffer.getLong(32);
+        this.hashIndex = (int) buffer.getLong(40);
+    }
+
+/* Getter and Setter */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of puzzles, their ids are 0 to count - 1.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getClues(int id) {
+        return buffer.getShort(offset(id) + CLUES) & 0xFFFF;
+    }
+
+    public int getRating(int id) {
+        return buffer.getInt(offset(id) + RATING);
+    }
+
+    /**
+     * @return the hash of the canonical form of the puzzle, for sizes above
+     *         Canonicalizer.MAX_SIZE the hash of the puzzle itself.
+     */
+    public long getHash(int id) {
+        return buffer.getLong(offset(id) + HASH);
+    }
+
+    /**
+     * @return the values of the puzzle row by row, 0 for empty cells.
+     */
+    public int[] getValues(int id) {
+        int[] values = new int[size * size];
+        int start = offset(id) + CELLS;
+        for (int index = 0; index < values.length; index++) {
+            if (size <= NIBBLE_SIZE) {
+                int packed = buffer.get(start + index / 2);
+                values[index] = (index % 2 == 0 ? packed >> 4 : packed) & 0xF;
+            } else {
+                values[index] = buffer.get(start + index) & 0xFF;
+            }
+        }
+        return values;
+    }
+
+/* Methods */
+    /**
+     * sets grid to the puzzle id, its values become givens.
+     */
+    public void writeTo(int id, Grid grid) {
+        int[] values = getValues(id);
+        grid.reset();
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] != 0) {
+                Cell cell = grid.getCell(index / size, index % size);
+                cell.setValue(values[index]);
+                cell.setGiven(true);
+            }
+        }
+    }
+
+    /**
+     * @return the ids of all puzzles that match query, in ascending order.
+     */
+    public int[] find(Query query) {
+        int[] range = narrowestRange(query);
+        int[] ids = new int[range[2] - range[1]];
+        int found = 0;
+        for (int position = range[1]; position < range[2]; position++) {
+            int id = idAt(range[0], position);
+            if (query.matches(this, id)) {
+                ids[found++] = id;
+            }
+        }
+        int[] result = Arrays.copyOf(ids, found);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * picks a random puzzle that matches query. It tries a few random
+     * entries of the more selective index first and then scans that index
+     * from a random position.
+     *
+     * @return the id of the puzzle, -1 if no puzzle matches.
+     */
+    public int sample(Query query, SplittableRandom random) {
+        int[] range = narrowestRange(query);
+        int length = range[2] - range[1];
+        if (length == 0) {
+            return -1;
+        }
+        for (int attempt = 0; attempt < SAMPLE_ATTEMPTS; attempt++) {
+            int id = idAt(range[0], range[1] + random.nextInt(length));
+            if (query.matches(this, id)) {
+                return id;
+            }
+        }
+        int start = random.nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int id = idAt(range[0], range[1] + (start + i) % length);
+            if (query.matches(this, id)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the id of the puzzle whose canonical form has hash, -1 if there
+     *         is none.
+     */
+    public int findByHash(long hash) {
+        int key = (int) (hash >>> 32);
+        int end = lowerBound(hashIndex, (long) key + 1);
+        for (int position = lowerBound(hashIndex, key); position < end; position++) {
+            int id = idAt(hashIndex, position);
+            if (getHash(id) == hash) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the id of a puzzle that is equivalent to the set cells of grid,
+     *         -1 if there is none.
+     */
+    public int find(Grid grid) {
+        if (grid.getSize() != size) {
+            return -1;
+        }
+        int[] values = new int[size * size];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = grid.getCell(index / size, index % size).getValue();
+        }
+        return findByHash(Canonicalizer.hash(size <= Canonicalizer.MAX_SIZE
+                ? new Canonicalizer().canonicalize(size, values) : values));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static int recordLength(int size) {
+        int cells = size * size;
+        return CELLS + (size <= NIBBLE_SIZE ? (cells + 1) / 2 : cells);
+    }
+
+    /**
+     * writes a record into target.
+     */
+    static void encode(ByteBuffer target, long hash, int rating, int clues, int size, int[] values) {
+        target.putLong(HASH, hash);
+        target.putInt(RATING, rating);
+        target.putShort(CLUES, (short) clues);
+        for (int i = CELLS; i < target.limit(); i++) {
+            target.put(i, (byte) 0);
+        }
+        for (int index = 0; index < values.length; index++) {
+            if (size <= NIBBLE_SIZE) {
+                int position = CELLS + index / 2;
+                int shift = index % 2 == 0 ? 4 : 0;
+                target.put(position, (byte) (target.get(position) | values[index] << shift));
+            } else {
+                target.put(CELLS + index, (byte) values[index]);
+            }
+        }
+    }
+
+    /**
+     * @return the index and the range of positions in it that cover either
+     *         the clues or the rating of query, whichever range is shorter.
+     */
+    private int[] narrowestRange(Query query) {
+        int clueFrom = lowerBound(clueIndex, query.minClues);
+        int clueTo = lowerBound(clueIndex, (long) query.maxClues + 1);
+        int ratingFrom = lowerBound(ratingIndex, query.minRating);
+        int ratingTo = lowerBound(ratingIndex, (long) query.maxRating + 1);
+        if (clueTo - clueFrom <= ratingTo - ratingFrom) {
+            return new int[] { clueIndex, clueFrom, Math.max(clueFrom, clueTo) };
+        }
+        return new int[] { ratingIndex, ratingFrom, Math.max(ratingFrom, ratingTo) };
+    }
+
+    /**
+     * @return the first position in index whose key is at least key.
+     */
+    private int lowerBound(int index, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(index + middle * INDEX_ENTRY) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int idAt(int index, int position) {
+        return buffer.getInt(index + position * INDEX_ENTRY + 4);
+    }
+
+    private int offset(int id) {
+        return HEADER_LENGTH + id * recordLength;
+    }
+}
@@ -0,0 +1,167 @@
+package de.htwg.sudoku.model.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes a PuzzleLibrary file. The puzzles are streamed to disk as they are
+ * added, only their keys stay in memory until the indexes are sorted and
+ * written on close. Every puzzle is rated with the LogicalSolver and indexed
+ * by its canonical form, so puzzles that only differ by a symmetry of the
+ * grid are stored once.
+ */
+public class PuzzleLibraryWriter implements Closeable {
+
+/* Fields */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path file;
+    private final int size;
+    private final int recordLength;
+    private final DataOutputStream out;
+    private final byte[] record;
+    private final Set<Long> hashes = new HashSet<Long>();
+    private final LogicalSolver solver = new LogicalSolver();
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private int[] clueKeys = new int[INITIAL_CAPACITY];
+    private int[] ratingKeys = new int[INITIAL_CAPACITY];
+    private long[] hashKeys = new long[INITIAL_CAPACITY];
+    private int count;
+    private boolean closed;
+
+/* Constructors */
+    public PuzzleLibraryWriter(Path file, int size) throws IOException {
+        if (size < 1 || size > Grid.MAXSIZE || !Grid.isSquareOfNaturalNumber(size)) {
+            throw new IllegalArgumentException("no grid has size " + size);
+        }
+        this.file = file;
+        this.size = size;
+        this.recordLength = PuzzleLibrary.recordLength(size);
+        this.record = new byte[recordLength];
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        // the header is written on close, a file without it can not be opened
+        out.write(new byte[PuzzleLibrary.HEADER_LENGTH]);
+    }
+
+/* Getter and Setter */
+    public int getCount() {
+        return count;
+    }
+
+/* Methods */
+    /**
+     * adds the puzzle made of the set cells of grid.
+     *
+     * @return false if the library already holds an equivalent puzzle.
+     */
+    public boolean add(Grid grid) throws IOException {
+        int[] values = new int[size * size];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = grid.getCell(index / size, index % size).getValue();
+        }
+        return add(values);
+    }
+
+    /**
+     * @param values
+     *            - the values of the cells row by row, 0 for empty cells.
+     * @return false if the library already holds an equivalent puzzle.
+     */
+    public boolean add(int[] values) throws IOException {
+        if (values.length != size * size) {
+            throw new IllegalArgumentException("a puzzle of size " + size + " has "
+                    + size * size + " cells, not " + values.length);
+        }
+        Board board = new Board(size);
+        int clues = 0;
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] < 0 || values[index] > size) {
+                throw new IllegalArgumentException("value " + values[index] + " at " + index
+                        + " is out of range");
+            }
+            if (values[index] != 0) {
+                board.setValue(index, values[index]);
+                clues++;
+            }
+        }
+        long hash = Canonicalizer.hash(size <= Canonicalizer.MAX_SIZE
+                ? canonicalizer.canonicalize(size, values) : values);
+        if (!hashes.add(hash)) {
+            return false;
+        }
+        int rating = solver.rate(board);
+        PuzzleLibrary.encode(ByteBuffer.wrap(record), hash, rating, clues, size, values);
+        out.write(record);
+        grow();
+        clueKeys[count] = clues;
+        ratingKeys[count] = rating;
+        hashKeys[count] = hash;
+        count++;
+        return true;
+    }
+
+    /**
+     * sorts and writes the indexes and the header.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long clueIndex = PuzzleLibrary.HEADER_LENGTH + (long) count * recordLength;
+        long ratingIndex = clueIndex + (long) count * PuzzleLibrary.INDEX_ENTRY;
+        long hashIndex = ratingIndex + (long) count * PuzzleLibrary.INDEX_ENTRY;
+        writeIndex(clueKeys);
+        writeIndex(ratingKeys);
+        int[] hashHigh = new int[count];
+        for (int id = 0; id < count; id++) {
+            hashHigh[id] = (int) (hashKeys[id] >>> 32);
+        }
+        writeIndex(hashHigh);
+        out.close();
+        ByteBuffer header = ByteBuffer.allocate(PuzzleLibrary.HEADER_LENGTH);
+        header.putInt(PuzzleLibrary.MAGIC).putInt(PuzzleLibrary.VERSION).putInt(size)
+                .putInt(count).putInt(recordLength).putInt(0)
+                .putLong(clueIndex).putLong(ratingIndex).putLong(hashIndex);
+        header.rewind();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * writes the pairs (key, id) sorted by key and then id.
+     */
+    private void writeIndex(int[] keys) throws IOException {
+        long[] entries = new long[count];
+        for (int id = 0; id < count; id++) {
+            entries[id] = (long) keys[id] << 32 | id;
+        }
+        Arrays.sort(entries);
+        for (long entry : entries) {
+            out.writeLong(entry);
+        }
+    }
+
+    private void grow() {
+        if (count == clueKeys.length) {
+            clueKeys = Arrays.copyOf(clueKeys, 2 * count);
+            ratingKeys = Arrays.copyOf(ratingKeys, 2 * count);
+            hashKeys = Arrays.copyOf(hashKeys, 2 * count);
+        }
+    }
+}
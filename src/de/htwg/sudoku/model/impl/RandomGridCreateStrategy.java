@@ -1,29 +1,31 @@
 package de.htwg.sudoku.model.impl;
 
-import java.util.Random;
-
 /**
  * Patterns: Abstract Factory, TemplateMethod This class is a concrete strategy.
- * It follows the template for strategies
+ * It follows the template for strategies.
+ * The values of the random cells are taken from a random solution, so the
+ * puzzle always has a solution.
  */
 public class RandomGridCreateStrategy extends GridCreateStrategyTemplate {
 
+    @Override
+    public void prepareGrid() {
+        createSolution();
+    }
+
     @Override
     public void fillSymmetrically() {
         for (int i = 0; i < grid.getSize(); i++) {
             Cell cell1 = getRandomCell();
             Cell cell2 = getSymmetricCell(cell1);
-            cell1.setValue(grid.getCandidate(cell1.getRow(), cell1.getColumn()));
-            cell2.setValue(grid.getCandidate(cell2.getRow(), cell2.getColumn()));
+            cell1.setValue(solutionValue(cell1));
+            cell2.setValue(solutionValue(cell2));
         }
 
     }
 
     public Cell getRandomCell() {
-        Random random = new Random();
-        Cell[] unsetCells = getUnsetCells();
-
-        return unsetCells[random.nextInt(unsetCells.length)];
+        return grid.getCellIndex().getRandomUnsetCell(random);
     }
 
     Cell getSymmetricCell(Cell cell) {
@@ -36,25 +38,11 @@ public class RandomGridCreateStrategy extends GridCreateStrategyTemplate {
     }
 
     public Cell[] getUnsetCells() {
-        int i = 0;
-        Cell[] setCells = new Cell[countUnsetCells()];
-        for (int row = 0; row < grid.getSize(); row++) {
-            for (int column = 0; column < grid.getSize(); column++) {
-                if (grid.getCell(row, column).isUnSet()) {
-                    setCells[i] = grid.getCell(row, column);
-                    i++;
-                }
-            }
-        }
-        return setCells;
+        return grid.getCellIndex().getUnsetCells();
     }
 
     public int countUnsetCells() {
-        int count = 0;
-        for (int r = 0; r < grid.getSize(); r++) {
-            count += this.grid.getRow(r).countUnsetCells();
-        }
-        return count;
+        return grid.getCellIndex().countUnsetCells();
     }
 
 }
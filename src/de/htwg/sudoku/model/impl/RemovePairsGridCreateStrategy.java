@@ -1,6 +1,7 @@
 package de.htwg.sudoku.model.impl;
 
-import java.util.Random;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
 
 /**
  * Patterns: Abstract Factory, TemplateMethod This class is a concrete strategy.
@@ -11,7 +12,13 @@ public class RemovePairsGridCreateStrategy extends GridCreateStrategyTemplate {
 
 	@Override
 	public void prepareGrid() {
-        grid.solve();
+        createSolution();
+        for (int row = 0; row < grid.getSize(); row++) {
+            for (int column = 0; column < grid.getSize(); column++) {
+                Cell cell = grid.getCell(row, column);
+                cell.setValue(solutionValue(cell));
+            }
+        }
     }
 
     @Override
@@ -19,8 +26,22 @@ public class RemovePairsGridCreateStrategy extends GridCreateStrategyTemplate {
         removePairsUntilMinimalUniquelySolvable();
     }
 
+    /**
+     * every removal keeps the puzzle uniquely solvable.
+     */
+    @Override
+    protected int[] uniqueSolution() {
+        return solution;
+    }
+
+    /**
+     * removes symmetric pairs until the next removal would make the puzzle
+     * ambiguous. The values are mirrored on a Board, so a removal is checked
+     * without copying the grid.
+     */
     private void removePairsUntilMinimalUniquelySolvable() {
-        if (getSetCells().length > 1) {
+        if (countSetCells() > 1) {
+            Board board = new Board(grid);
             Cell cell1, cell2;
             int value1, value2;
             do {
@@ -31,30 +52,21 @@ public class RemovePairsGridCreateStrategy extends GridCreateStrategyTemplate {
                 if (cell1.isSet() && cell2.isSet()) {
                     cell1.reset();
                     cell2.reset();
+                    board.clearValue(indexOf(cell1));
+                    board.clearValue(indexOf(cell2));
                 }
-            } while (hasUniqueSolution(copyGridStructure()));
+            } while (hasUniqueSolution(board));
             cell1.setValue(value1);
             cell2.setValue(value2);
         }
     }
 
-    private Grid copyGridStructure() {
-        Grid copy = new Grid(grid.getSize());
-        int copiedValue;
-        for (int row = 0; row < grid.getSize(); row++) {
-            for (int column = 0; column < grid.getSize(); column++) {
-                copiedValue = grid.getCell(row, column).getValue();
-                copy.setCell(row, column, copiedValue);
-            }
-        }
-        return copy;
+    private int indexOf(Cell cell) {
+        return cell.getRow() * grid.getSize() + cell.getColumn();
     }
 
     public Cell getRandomCell() {
-        Random random = new Random();
-        Cell[] setCells = getSetCells();
-
-        return setCells[random.nextInt(setCells.length)];
+        return grid.getCellIndex().getRandomSetCell(random);
     }
 
     Cell getSymmetricCell(Cell cell) {
@@ -67,29 +79,20 @@ public class RemovePairsGridCreateStrategy extends GridCreateStrategyTemplate {
     }
 
     public Cell[] getSetCells() {
-        int i = 0;
-        Cell[] setCells = new Cell[countSetCells()];
-        for (int row = 0; row < grid.getSize(); row++) {
-            for (int column = 0; column < grid.getSize(); column++) {
-                if (grid.getCell(row, column).isSet()) {
-                    setCells[i] = grid.getCell(row, column);
-                    i++;
-                }
-            }
-        }
-        return setCells;
+        return grid.getCellIndex().getSetCells();
     }
 
     public int countSetCells() {
-        int count = 0;
-        for (int r = 0; r < grid.getSize(); r++) {
-            count += this.grid.getRow(r).countSetCells();
-        }
-        return count;
+        return grid.getCellIndex().countSetCells();
     }
 
     public boolean hasUniqueSolution(Grid grid) {
-        return !grid.solve(2);
+        return hasUniqueSolution(new Board(grid));
+    }
+
+    private static boolean hasUniqueSolution(Board board) {
+        return new BacktrackingSearch(board, CellOrder.MINIMUM_REMAINING_VALUES,
+                ValueOrder.RANDOM, 0).countSolutions(2) == 1;
     }
 
 }
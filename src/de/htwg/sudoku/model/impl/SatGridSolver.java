@@ -0,0 +1,139 @@
+package de.htwg.sudoku.model.impl;
+
+/**
+ * Solves a Grid by encoding it as a boolean formula in conjunctive normal form
+ * and handing it to the built-in SatSolver. There is one variable for every
+ * candidate value of every unset cell. Every cell and every value in a House
+ * get an "at least one" clause and an "at most one" encoding: pairwise for
+ * small groups, a sequential counter for larger ones.
+ */
+public class SatGridSolver {
+
+/* Fields */
+    private static final int PAIRWISE_LIMIT = 8;
+
+    private int steps;
+
+/* Getter and Setter */
+    /**
+     * @return the number of decisions the SAT solver needed.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+/* Methods */
+    /**
+     * solves grid. On success the solution is written into grid.
+     *
+     * @return true if a solution was found.
+     */
+    public boolean solve(Grid grid) {
+        steps = 0;
+        if (!grid.isFeasible()) {
+            return false;
+        }
+        Board board = new Board(grid);
+        int size = board.getSize();
+        SatSolver solver = new SatSolver();
+        int[][] variable = new int[board.getCellCount()][size + 1];
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getValue(index) == 0) {
+                int candidates = board.candidates(index);
+                for (int value = 1; value <= size; value++) {
+                    if ((candidates & (1 << value)) != 0) {
+                        variable[index][value] = solver.newVariable();
+                    }
+                }
+            }
+        }
+        encodeCells(board, variable, solver);
+        encodeHouses(board, variable, solver);
+        boolean solved = solver.solve();
+        steps = solver.getDecisions();
+        if (solved) {
+            for (int index = 0; index < board.getCellCount(); index++) {
+                for (int value = 1; value <= size; value++) {
+                    if (variable[index][value] != 0 && solver.value(variable[index][value])) {
+                        grid.getCell(board.rowOf(index), board.columnOf(index)).setValue(value);
+                    }
+                }
+            }
+        }
+        return solved;
+    }
+
+    private void encodeCells(Board board, int[][] variable, SatSolver solver) {
+        int size = board.getSize();
+        int[] group = new int[size];
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getValue(index) == 0) {
+                int count = 0;
+                for (int value = 1; value <= size; value++) {
+                    if (variable[index][value] != 0) {
+                        group[count++] = variable[index][value];
+                    }
+                }
+                exactlyOne(group, count, solver);
+            }
+        }
+    }
+
+    private void encodeHouses(Board board, int[][] variable, SatSolver solver) {
+        int size = board.getSize();
+        int blockSize = board.getBlockSize();
+        int[] cells = new int[size];
+        int[] group = new int[size];
+        for (int house = 0; house < 3 * size; house++) {
+            int number = house % size;
+            int used = 0;
+            for (int i = 0; i < size; i++) {
+                if (house < size) {
+                    cells[i] = board.indexOf(number, i);
+                } else if (house < 2 * size) {
+                    cells[i] = board.indexOf(i, number);
+                } else {
+                    cells[i] = board.indexOf(blockSize * (number / blockSize) + i / blockSize,
+                            blockSize * (number % blockSize) + i % blockSize);
+                }
+                used |= 1 << board.getValue(cells[i]);
+            }
+            for (int value = 1; value <= size; value++) {
+                if ((used & (1 << value)) == 0) {
+                    int count = 0;
+                    for (int cell : cells) {
+                        if (variable[cell][value] != 0) {
+                            group[count++] = variable[cell][value];
+                        }
+                    }
+                    exactlyOne(group, count, solver);
+                }
+            }
+        }
+    }
+
+    private void exactlyOne(int[] group, int count, SatSolver solver) {
+        int[] atLeastOne = new int[count];
+        System.arraycopy(group, 0, atLeastOne, 0, count);
+        solver.addClause(atLeastOne);
+        if (count <= PAIRWISE_LIMIT) {
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    solver.addClause(-group[i], -group[j]);
+                }
+            }
+        } else {
+            // sequential counter: s[i] is true if one of group[0..i] is true
+            int previous = solver.newVariable();
+            solver.addClause(-group[0], previous);
+            for (int i = 1; i < count - 1; i++) {
+                int current = solver.newVariable();
+                solver.addClause(-group[i], current);
+                solver.addClause(-previous, current);
+                solver.addClause(-group[i], -previous);
+                previous = current;
+            }
+            solver.addClause(-group[count - 1], -previous);
+        }
+    }
+}
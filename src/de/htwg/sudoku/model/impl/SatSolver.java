@@ -0,0 +1,505 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A small conflict driven clause learning SAT solver. Clauses are given in
+ * DIMACS style: a positive number v stands for the variable v, a negative
+ * number -v for its negation. The solver uses two watched literals for unit
+ * propagation, first-UIP clause learning, VSIDS branching with phase saving and
+ * restarts following the Luby sequence.
+ *
+ * All clauses have to be added before solve() is called.
+ */
+public class SatSolver {
+
+/* Fields */
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNDEFINED = 0;
+    private static final int NO_REASON = -1;
+    private static final int RESTART_BASE = 100;
+    private static final double VARIABLE_DECAY = 0.95;
+    private static final double RESCALE_LIMIT = 1e100;
+
+    private int variables;
+    private final List<int[]> clauses = new ArrayList<int[]>();
+    private boolean emptyClause;
+
+    private IntList[] watches;
+    private byte[] literalValue;
+    private int[] level;
+    private int[] reason;
+    private boolean[] phase;
+    private boolean[] seen;
+    private int[] trail;
+    private int trailSize;
+    private int propagated;
+    private IntList trailLimits;
+
+    private double[] activity;
+    private double activityIncrement = 1;
+    private int[] heap;
+    private int[] heapPosition;
+    private int heapSize;
+
+    private int decisions;
+    private int conflicts;
+
+/* Constructors */
+    public SatSolver() {
+        this(0);
+    }
+
+    public SatSolver(int variables) {
+        this.variables = variables;
+    }
+
+/* Getter and Setter */
+    public int getVariables() {
+        return variables;
+    }
+
+    public int getClauses() {
+        return clauses.size();
+    }
+
+    public int getDecisions() {
+        return decisions;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return the value of variable in the model found by the last successful
+     *         call of solve().
+     */
+    public boolean value(int variable) {
+        return literalValue[variable << 1] == TRUE;
+    }
+
+/* Methods */
+    /**
+     * @return the number of a new, unused variable.
+     */
+    public int newVariable() {
+        variables++;
+        return variables;
+    }
+
+    /**
+     * adds a clause, i.e. a disjunction of literals. An empty clause makes the
+     * problem unsatisfiable.
+     */
+    public void addClause(int... literals) {
+        int[] clause = new int[literals.length];
+        int length = 0;
+        for (int literal : literals) {
+            int encoded = encode(literal);
+            boolean duplicate = false;
+            for (int i = 0; i < length; i++) {
+                if (clause[i] == encoded) {
+                    duplicate = true;
+                } else if (clause[i] == (encoded ^ 1)) {
+                    // a tautology is always satisfied
+                    return;
+                }
+            }
+            if (!duplicate) {
+                clause[length++] = encoded;
+            }
+        }
+        if (length == 0) {
+            emptyClause = true;
+        } else {
+            clauses.add(Arrays.copyOf(clause, length));
+        }
+    }
+
+    /**
+     * @return true if an assignment was found that satisfies all clauses.
+     */
+    public boolean solve() {
+        if (emptyClause || !initialize()) {
+            return false;
+        }
+        for (int restart = 0;; restart++) {
+            int result = search(luby(restart) * RESTART_BASE);
+            if (result != 0) {
+                return result > 0;
+            }
+            backtrack(0);
+        }
+    }
+
+    /**
+     * runs the search until a result is found or the conflict budget is used
+     * up.
+     *
+     * @return 1 if satisfiable, -1 if unsatisfiable and 0 for a restart.
+     */
+    private int search(int conflictBudget) {
+        int conflictCount = 0;
+        IntList learnt = new IntList();
+        while (true) {
+            int conflict = propagate();
+            if (conflict != NO_REASON) {
+                conflicts++;
+                conflictCount++;
+                if (decisionLevel() == 0) {
+                    return -1;
+                }
+                int backjumpLevel = analyze(conflict, learnt);
+                backtrack(backjumpLevel);
+                if (learnt.size() == 1) {
+                    enqueue(learnt.get(0), NO_REASON);
+                } else {
+                    int[] clause = learnt.toArray();
+                    clauses.add(clause);
+                    int index = clauses.size() - 1;
+                    watches[clause[0]].add(index);
+                    watches[clause[1]].add(index);
+                    enqueue(clause[0], index);
+                }
+                decayActivities();
+            } else {
+                if (conflictCount >= conflictBudget) {
+                    return 0;
+                }
+                int variable = pickBranchVariable();
+                if (variable == 0) {
+                    return 1;
+                }
+                decisions++;
+                trailLimits.add(trailSize);
+                enqueue((variable << 1) | (phase[variable] ? 0 : 1), NO_REASON);
+            }
+        }
+    }
+
+    private boolean initialize() {
+        int literals = (variables + 1) << 1;
+        watches = new IntList[literals];
+        for (int i = 0; i < literals; i++) {
+            watches[i] = new IntList();
+        }
+        literalValue = new byte[literals];
+        level = new int[variables + 1];
+        reason = new int[variables + 1];
+        phase = new boolean[variables + 1];
+        seen = new boolean[variables + 1];
+        trail = new int[variables + 1];
+        trailSize = 0;
+        propagated = 0;
+        trailLimits = new IntList();
+        activity = new double[variables + 1];
+        heap = new int[variables + 1];
+        heapPosition = new int[variables + 1];
+        heapSize = 0;
+        for (int variable = 1; variable <= variables; variable++) {
+            heapPosition[variable] = -1;
+            heapInsert(variable);
+        }
+        for (int index = 0; index < clauses.size(); index++) {
+            int[] clause = clauses.get(index);
+            if (clause.length == 1) {
+                if (literalValue[clause[0]] == FALSE) {
+                    return false;
+                }
+                if (literalValue[clause[0]] == UNDEFINED) {
+                    enqueue(clause[0], NO_REASON);
+                }
+            } else {
+                watches[clause[0]].add(index);
+                watches[clause[1]].add(index);
+            }
+        }
+        return propagate() == NO_REASON;
+    }
+
+    private void enqueue(int literal, int because) {
+        int variable = literal >> 1;
+        literalValue[literal] = TRUE;
+        literalValue[literal ^ 1] = FALSE;
+        level[variable] = decisionLevel();
+        reason[variable] = because;
+        trail[trailSize++] = literal;
+    }
+
+    /**
+     * unit propagation with two watched literals.
+     *
+     * @return the index of a conflicting clause or NO_REASON.
+     */
+    private int propagate() {
+        while (propagated < trailSize) {
+            int falseLiteral = trail[propagated++] ^ 1;
+            IntList watchList = watches[falseLiteral];
+            int read = 0;
+            int write = 0;
+            while (read < watchList.size()) {
+                int index = watchList.get(read++);
+                int[] clause = clauses.get(index);
+                if (clause[0] == falseLiteral) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLiteral;
+                }
+                if (literalValue[clause[0]] == TRUE) {
+                    watchList.set(write++, index);
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < clause.length; k++) {
+                    if (literalValue[clause[k]] != FALSE) {
+                        clause[1] = clause[k];
+                        clause[k] = falseLiteral;
+                        watches[clause[1]].add(index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+                watchList.set(write++, index);
+                if (literalValue[clause[0]] == FALSE) {
+                    while (read < watchList.size()) {
+                        watchList.set(write++, watchList.get(read++));
+                    }
+                    watchList.shrink(write);
+                    propagated = trailSize;
+                    return index;
+                }
+                enqueue(clause[0], index);
+            }
+            watchList.shrink(write);
+        }
+        return NO_REASON;
+    }
+
+    /**
+     * derives the first-UIP clause of a conflict into learnt. The asserting
+     * literal is put first, a literal of the backjump level second.
+     *
+     * @return the level to backjump to.
+     */
+    private int analyze(int conflict, IntList learnt) {
+        learnt.shrink(0);
+        learnt.add(0);
+        int pathCount = 0;
+        int literal = -1;
+        int index = trailSize - 1;
+        int clauseIndex = conflict;
+        do {
+            int[] clause = clauses.get(clauseIndex);
+            for (int k = literal == -1 ? 0 : 1; k < clause.length; k++) {
+                int variable = clause[k] >> 1;
+                if (!seen[variable] && level[variable] > 0) {
+                    seen[variable] = true;
+                    bumpActivity(variable);
+                    if (level[variable] >= decisionLevel()) {
+                        pathCount++;
+                    } else {
+                        learnt.add(clause[k]);
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            literal = trail[index--];
+            clauseIndex = reason[literal >> 1];
+            seen[literal >> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt.set(0, literal ^ 1);
+
+        int backjumpLevel = 0;
+        for (int i = 1; i < learnt.size(); i++) {
+            int variable = learnt.get(i) >> 1;
+            seen[variable] = false;
+            if (level[variable] > backjumpLevel) {
+                backjumpLevel = level[variable];
+                int swap = learnt.get(1);
+                learnt.set(1, learnt.get(i));
+                learnt.set(i, swap);
+            }
+        }
+        return backjumpLevel;
+    }
+
+    private void backtrack(int targetLevel) {
+        if (decisionLevel() <= targetLevel) {
+            return;
+        }
+        int limit = trailLimits.get(targetLevel);
+        for (int i = trailSize - 1; i >= limit; i--) {
+            int literal = trail[i];
+            int variable = literal >> 1;
+            phase[variable] = (literal & 1) == 0;
+            literalValue[literal] = UNDEFINED;
+            literalValue[literal ^ 1] = UNDEFINED;
+            if (heapPosition[variable] < 0) {
+                heapInsert(variable);
+            }
+        }
+        trailSize = limit;
+        propagated = limit;
+        trailLimits.shrink(targetLevel);
+    }
+
+    private int decisionLevel() {
+        return trailLimits.size();
+    }
+
+    private int pickBranchVariable() {
+        while (heapSize > 0) {
+            int variable = heapRemoveMax();
+            if (literalValue[variable << 1] == UNDEFINED) {
+                return variable;
+            }
+        }
+        return 0;
+    }
+
+    private void bumpActivity(int variable) {
+        activity[variable] += activityIncrement;
+        if (activity[variable] > RESCALE_LIMIT) {
+            for (int i = 1; i <= variables; i++) {
+                activity[i] /= RESCALE_LIMIT;
+            }
+            activityIncrement /= RESCALE_LIMIT;
+        }
+        if (heapPosition[variable] >= 0) {
+            heapUp(heapPosition[variable]);
+        }
+    }
+
+    private void decayActivities() {
+        activityIncrement /= VARIABLE_DECAY;
+    }
+
+    private int encode(int literal) {
+        if (literal == 0 || Math.abs(literal) > variables) {
+            throw new IllegalArgumentException("unknown variable " + literal);
+        }
+        return literal > 0 ? literal << 1 : (-literal << 1) | 1;
+    }
+
+    /**
+     * @return the i-th element (starting at 0) of the Luby sequence
+     *         1,1,2,1,1,2,4,1,1,2,...
+     */
+    static int luby(int i) {
+        int size = 1;
+        int sequence = 0;
+        while (size < i + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        int x = i;
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            sequence--;
+            x = x % size;
+        }
+        return 1 << sequence;
+    }
+
+/* Heap of variables ordered by activity */
+    private void heapInsert(int variable) {
+        heap[heapSize] = variable;
+        heapPosition[variable] = heapSize;
+        heapSize++;
+        heapUp(heapSize - 1);
+    }
+
+    private int heapRemoveMax() {
+        int max = heap[0];
+        heapSize--;
+        heapPosition[max] = -1;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPosition[heap[0]] = 0;
+            heapDown(0);
+        }
+        return max;
+    }
+
+    private void heapUp(int position) {
+        int variable = heap[position];
+        int current = position;
+        while (current > 0) {
+            int parent = (current - 1) >> 1;
+            if (activity[heap[parent]] >= activity[variable]) {
+                break;
+            }
+            heap[current] = heap[parent];
+            heapPosition[heap[current]] = current;
+            current = parent;
+        }
+        heap[current] = variable;
+        heapPosition[variable] = current;
+    }
+
+    private void heapDown(int position) {
+        int variable = heap[position];
+        int current = position;
+        while (true) {
+            int child = 2 * current + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                child++;
+            }
+            if (activity[heap[child]] <= activity[variable]) {
+                break;
+            }
+            heap[current] = heap[child];
+            heapPosition[heap[current]] = current;
+            current = child;
+        }
+        heap[current] = variable;
+        heapPosition[variable] = current;
+    }
+
+    /**
+     * A growable list of ints without boxing.
+     */
+    private static final class IntList {
+        private int[] elements = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return elements[index];
+        }
+
+        void set(int index, int value) {
+            elements[index] = value;
+        }
+
+        void add(int value) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = value;
+        }
+
+        void shrink(int newSize) {
+            size = newSize;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(elements, size);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package de.htwg.sudoku.model.impl;
+
+/**
+ * Rates a puzzle by solving it with singles only. A puzzle that only needs
+ * hidden singles is rated HIDDEN_SINGLE, a puzzle that also needs naked
+ * singles is rated NAKED_SINGLE. A solved grid is rated 0. The ratings are
+ * the weights of the LogicalSolver, which rates the same puzzles the same
+ * way but also knows harder techniques.
+ */
+public class SinglesRater implements DifficultyRater {
+
+/* Fields */
+    public static final int HIDDEN_SINGLE = LogicalSolver.Technique.HIDDEN_SINGLE.getWeight();
+    public static final int NAKED_SINGLE = LogicalSolver.Technique.NAKED_SINGLE.getWeight();
+
+/* Methods */
+    @Override
+    public int rate(Board puzzle) {
+        Board board = new Board(puzzle);
+        int rating = 0;
+        int unset = countUnset(board);
+        while (unset > 0) {
+            int found = setHiddenSingles(board);
+            if (found > 0) {
+                rating = Math.max(rating, HIDDEN_SINGLE);
+            } else {
+                found = setNakedSingles(board);
+                if (found < 0) {
+                    return UNSOLVABLE;
+                }
+                rating = NAKED_SINGLE;
+            }
+            if (found == 0) {
+                return UNSOLVABLE;
+            }
+            unset -= found;
+        }
+        return rating;
+    }
+
+    /**
+     * @return the number of values that were set, -1 on a contradiction.
+     */
+    private int setNakedSingles(Board board) {
+        int found = 0;
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getValue(index) == 0) {
+                int candidates = board.candidates(index);
+                if (candidates == 0) {
+                    return -1;
+                }
+                if (Integer.bitCount(candidates) == 1) {
+                    board.setValue(index, Integer.numberOfTrailingZeros(candidates));
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private int setHiddenSingles(Board board) {
+        int size = board.getSize();
+        int blockSize = board.getBlockSize();
+        int found = 0;
+        for (int house = 0; house < 3 * size; house++) {
+            int number = house % size;
+            for (int value = 1; value <= size; value++) {
+                int bit = 1 << value;
+                int place = -1;
+                int places = 0;
+                for (int i = 0; i < size && places < 2; i++) {
+                    int index;
+                    if (house < size) {
+                        index = board.indexOf(number, i);
+                    } else if (house < 2 * size) {
+                        index = board.indexOf(i, number);
+                    } else {
+                        index = board.indexOf(blockSize * (number / blockSize) + i / blockSize,
+                                blockSize * (number % blockSize) + i % blockSize);
+                    }
+                    if (board.getValue(index) == value) {
+                        places = 2;
+                    } else if (board.getValue(index) == 0 && (board.candidates(index) & bit) != 0) {
+                        place = index;
+                        places++;
+                    }
+                }
+                if (places == 1) {
+                    board.setValue(place, value);
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int countUnset(Board board) {
+        int count = 0;
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getValue(index) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
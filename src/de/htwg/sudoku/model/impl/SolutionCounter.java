@@ -0,0 +1,260 @@
+package de.htwg.sudoku.model.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+/**
+ * Counts all solutions of a grid exactly, even if there are far too many to
+ * enumerate them. The rows are filled one after the other, and the number of
+ * completions is memoized for the state at each row boundary: the values
+ * used in each column and in each block of the current band. Only these
+ * values matter for the rows below, so equal states are counted once.
+ * Once no givens are left below a row, the state is normalized by
+ * relabelling the digits and sorting the columns within their stack and the
+ * stacks, which keeps the count and makes many more states equal.
+ * Grids that are at least half filled are counted by enumerating their
+ * solutions, which is faster for them as long as they have few; after
+ * ENUMERATION_LIMIT solutions the enumeration gives up for the memo.
+ */
+public class SolutionCounter {
+
+    /**
+     * the state at a row boundary, used as key of the memo.
+     */
+    private static final class State {
+        private final int row;
+        private final int[] masks;
+        private final int hash;
+
+        private State(int row, int[] columns, int[] blocks) {
+            this.row = row;
+            this.masks = Arrays.copyOf(columns, columns.length + blocks.length);
+            System.arraycopy(blocks, 0, masks, columns.length, blocks.length);
+            this.hash = 31 * row + Arrays.hashCode(masks);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof State)) {
+                return false;
+            }
+            State state = (State) other;
+            return row == state.row && Arrays.equals(masks, state.masks);
+        }
+    }
+
+/* Fields */
+    /** the number of solutions up to which enumerating beats the memo */
+    static final int ENUMERATION_LIMIT = 4096;
+
+    private int size;
+    private int blockSize;
+    private int allValues;
+    private int[] givens;
+    private int[] rowGivens;
+    private int[][] columnGivensBelow;
+    private boolean[] emptyFrom;
+    private final Map<State, BigInteger> memo = new HashMap<State, BigInteger>();
+    private boolean memoized;
+
+/* Getter and Setter */
+    /**
+     * @return true if the last count used the memo, false if it enumerated
+     *         the solutions.
+     */
+    public boolean isMemoized() {
+        return memoized;
+    }
+
+    /**
+     * @return the number of states the last count memoized.
+     */
+    public int getStates() {
+        return memo.size();
+    }
+
+/* Methods */
+    /**
+     * @return the number of solutions of grid, grid is not changed.
+     */
+    public BigInteger count(Grid grid) {
+        memo.clear();
+        memoized = false;
+        if (!grid.isFeasible()) {
+            return BigInteger.ZERO;
+        }
+        Board board = new Board(grid);
+        int empty = 0;
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getValue(index) == 0) {
+                empty++;
+            }
+        }
+        if (2 * empty <= board.getCellCount()) {
+            int found = new BacktrackingSearch(board, CellOrder.MINIMUM_REMAINING_VALUES,
+                    ValueOrder.RANDOM, 0).countSolutions(ENUMERATION_LIMIT);
+            if (found < ENUMERATION_LIMIT) {
+                return BigInteger.valueOf(found);
+            }
+        }
+        memoized = true;
+        init(board);
+        return countRows(0, new int[size], new int[blockSize]);
+    }
+
+    private void init(Board board) {
+        size = board.getSize();
+        blockSize = board.getBlockSize();
+        allValues = board.getAllValues();
+        givens = new int[size * size];
+        rowGivens = new int[size];
+        columnGivensBelow = new int[size][size];
+        emptyFrom = new boolean[size + 1];
+        for (int index = 0; index < givens.length; index++) {
+            givens[index] = board.getValue(index);
+            if (givens[index] != 0) {
+                rowGivens[index / size] |= 1 << givens[index];
+            }
+        }
+        emptyFrom[size] = true;
+        for (int row = size - 1; row >= 0; row--) {
+            emptyFrom[row] = emptyFrom[row + 1] && rowGivens[row] == 0;
+            for (int column = 0; column < size; column++) {
+                if (row + 1 < size) {
+                    int below = givens[(row + 1) * size + column];
+                    columnGivensBelow[row][column] = columnGivensBelow[row + 1][column]
+                            | (below == 0 ? 0 : 1 << below);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of ways to fill the rows from row on, if the values
+     *         in columns and blocks are used above.
+     */
+    private BigInteger countRows(int row, int[] columns, int[] blocks) {
+        if (row == size) {
+            return BigInteger.ONE;
+        }
+        if (emptyFrom[row]) {
+            normalize(columns, blocks);
+        }
+        State state = new State(row, columns, blocks);
+        BigInteger count = memo.get(state);
+        if (count == null) {
+            count = fillRow(row, 0, 0, columns, blocks);
+            memo.put(state, count);
+        }
+        return count;
+    }
+
+    private BigInteger fillRow(int row, int column, int rowMask, int[] columns, int[] blocks) {
+        if (column == size) {
+            int[] nextBlocks = (row + 1) % blockSize == 0 ? new int[blockSize] : blocks.clone();
+            return countRows(row + 1, columns.clone(), nextBlocks);
+        }
+        int stack = column / blockSize;
+        int given = givens[row * size + column];
+        int free = given != 0 ? 1 << given
+                : allValues & ~(rowGivens[row] | columnGivensBelow[row][column]);
+        free &= ~(columns[column] | blocks[stack] | rowMask);
+        BigInteger count = BigInteger.ZERO;
+        while (free != 0) {
+            int bit = free & -free;
+            free &= free - 1;
+            columns[column] |= bit;
+            blocks[stack] |= bit;
+            count = count.add(fillRow(row, column + 1, rowMask | bit, columns, blocks));
+            columns[column] &= ~bit;
+            blocks[stack] &= ~bit;
+        }
+        return count;
+    }
+
+    /**
+     * applies symmetries that keep the number of completions of empty rows:
+     * relabelling the digits in the order of their first appearance and
+     * sorting the columns within each stack and the stacks.
+     */
+    private void normalize(int[] columns, int[] blocks) {
+        for (int round = 0; round < 2; round++) {
+            relabel(columns, blocks);
+            sortColumns(columns, blocks);
+        }
+    }
+
+    private void relabel(int[] columns, int[] blocks) {
+        int[] label = new int[size + 1];
+        int next = 1;
+        for (int mask : columns) {
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int value = Integer.numberOfTrailingZeros(rest);
+                if (label[value] == 0) {
+                    label[value] = next++;
+                }
+            }
+        }
+        for (int value = 1; value <= size; value++) {
+            if (label[value] == 0) {
+                label[value] = next++;
+            }
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = relabel(columns[i], label);
+        }
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = relabel(blocks[i], label);
+        }
+    }
+
+    private static int relabel(int mask, int[] label) {
+        int result = 0;
+        for (int rest = mask; rest != 0; rest &= rest - 1) {
+            result |= 1 << label[Integer.numberOfTrailingZeros(rest)];
+        }
+        return result;
+    }
+
+    private void sortColumns(int[] columns, int[] blocks) {
+        for (int stack = 0; stack < blockSize; stack++) {
+            Arrays.sort(columns, stack * blockSize, (stack + 1) * blockSize);
+        }
+        // insertion sort of the stacks by their block and then their columns
+        int[] stackColumns = new int[blockSize];
+        for (int i = 1; i < blockSize; i++) {
+            int block = blocks[i];
+            System.arraycopy(columns, i * blockSize, stackColumns, 0, blockSize);
+            int j = i - 1;
+            while (j >= 0 && compareStacks(blocks[j], columns, j * blockSize, block, stackColumns) > 0) {
+                blocks[j + 1] = blocks[j];
+                System.arraycopy(columns, j * blockSize, columns, (j + 1) * blockSize, blockSize);
+                j--;
+            }
+            blocks[j + 1] = block;
+            System.arraycopy(stackColumns, 0, columns, (j + 1) * blockSize, blockSize);
+        }
+    }
+
+    private int compareStacks(int firstBlock, int[] columns, int offset, int secondBlock, int[] second) {
+        if (firstBlock != secondBlock) {
+            return Integer.compare(firstBlock, secondBlock);
+        }
+        for (int i = 0; i < blockSize; i++) {
+            if (columns[offset + i] != second[i]) {
+                return Integer.compare(columns[offset + i], second[i]);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,87 @@
+package de.htwg.sudoku.model.impl;
+
+import java.util.SplittableRandom;
+
+/**
+ * Creates random solved grids without any search. It starts from a canonical
+ * solution and applies transformations that keep a solution valid: relabelling
+ * the digits, permuting the bands and stacks, permuting the rows within a band
+ * and the columns within a stack, and transposing. Each solution costs
+ * O(size * size).
+ */
+public class SolvedGridGenerator {
+
+/* Methods */
+    /**
+     * @return the value of the cell (row, column) of the canonical solution
+     *         of a grid with the given size.
+     */
+    public static int canonicalValue(int size, int row, int column) {
+        int blockSize = Grid.blocksPerEdge(size);
+        return ((row % blockSize) * blockSize + row / blockSize + column) % size + 1;
+    }
+
+    /**
+     * @return a random solution, the value of cell (row, column) is at index
+     *         row * size + column.
+     */
+    public int[] createSolution(int size, SplittableRandom random) {
+        int blockSize = Grid.blocksPerEdge(size);
+        int[] rowOrder = lineOrder(blockSize, random);
+        int[] columnOrder = lineOrder(blockSize, random);
+        int[] label = permutation(size, random);
+        boolean transpose = random.nextBoolean();
+        int[] solution = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                int value = canonicalValue(size, rowOrder[row], columnOrder[column]);
+                int index = transpose ? column * size + row : row * size + column;
+                solution[index] = label[value - 1] + 1;
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * fills all cells of grid with a random solution.
+     */
+    public void fill(Grid grid, SplittableRandom random) {
+        int size = grid.getSize();
+        int[] solution = createSolution(size, random);
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                grid.getCell(row, column).setValue(solution[row * size + column]);
+            }
+        }
+    }
+
+    /**
+     * @return an order of the rows (or columns) that only moves whole bands
+     *         and lines within their band.
+     */
+    private static int[] lineOrder(int blockSize, SplittableRandom random) {
+        int[] bands = permutation(blockSize, random);
+        int[] order = new int[blockSize * blockSize];
+        for (int band = 0; band < blockSize; band++) {
+            int[] lines = permutation(blockSize, random);
+            for (int line = 0; line < blockSize; line++) {
+                order[band * blockSize + line] = bands[band] * blockSize + lines[line];
+            }
+        }
+        return order;
+    }
+
+    private static int[] permutation(int length, SplittableRandom random) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package de.htwg.sudoku.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import de.htwg.sudoku.model.ICell;
+import de.htwg.sudoku.model.IGrid;
+
+/**
+ * The values and the given flags of all cells of a grid, one byte per cell.
+ * Unlike the text of a grid it keeps apart the givens of the puzzle and the
+ * values of the player.
+ */
+public final class GridState {
+
+/* Fields */
+    private static final int GIVEN = 0x80;
+    private static final int VALUE = 0x7F;
+
+    private final int size;
+    private final byte[] cells;
+
+/* Constructors */
+    private GridState(int size, byte[] cells) {
+        this.size = size;
+        this.cells = cells;
+    }
+
+/* Getter and Setter */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the value of the cell at index row * size + column.
+     */
+    public int getValue(int index) {
+        return cells[index] & VALUE;
+    }
+
+    public boolean isGiven(int index) {
+        return (cells[index] & GIVEN) != 0;
+    }
+
+/* Methods */
+    public static GridState of(IGrid grid) {
+        int size = grid.getSize();
+        byte[] cells = new byte[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                ICell cell = grid.getCell(row, column);
+                cells[row * size + column] = (byte) (cell.getValue() | (cell.isGiven() ? GIVEN : 0));
+            }
+        }
+        return new GridState(size, cells);
+    }
+
+    /**
+     * sets all cells of grid to this state.
+     *
+     * @throws IllegalArgumentException
+     *             if grid has a different size.
+     */
+    public void applyTo(IGrid grid) {
+        if (grid.getSize() != size) {
+            throw new IllegalArgumentException("state of size " + size
+                    + " does not fit a grid of size " + grid.getSize());
+        }
+        for (int index = 0; index < cells.length; index++) {
+            ICell cell = grid.getCell(index / size, index % size);
+            cell.setValue(getValue(index));
+            cell.setGiven(isGiven(index));
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(size);
+        out.write(cells);
+    }
+
+    public static GridState readFrom(DataInput in) throws IOException {
+        int size = in.readUnsignedByte();
+        byte[] cells = new byte[size * size];
+        in.readFully(cells);
+        return new GridState(size, cells);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GridState)) {
+            return false;
+        }
+        GridState state = (GridState) other;
+        return size == state.size && Arrays.equals(cells, state.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+}
@@ -0,0 +1,177 @@
+package de.htwg.sudoku.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One entry of a session journal. The records describe the effect of a
+ * controller command rather than the command itself, so that replaying them
+ * does not depend on random numbers: a created or solved grid is stored as
+ * its resulting state.
+ */
+public final class JournalRecord {
+
+    /**
+     * The kind of a record. The codes are part of the file format and must
+     * not change.
+     */
+    public enum Type {
+        /** a value set by the player */
+        SET_VALUE(1),
+        /** an undoable change of the whole grid, like create, solve or reset */
+        STATE(2),
+        UNDO(3),
+        REDO(4),
+        /** a new empty grid of another size, the undo history is cleared */
+        RESIZE(5),
+        /** a grid read from text, it is not part of the undo history */
+        LOAD(6);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("no record type with code " + code);
+        }
+    }
+
+/* Fields */
+    private static final JournalRecord UNDO = new JournalRecord(Type.UNDO, 0, 0, 0, null, null);
+    private static final JournalRecord REDO = new JournalRecord(Type.REDO, 0, 0, 0, null, null);
+
+    private final Type type;
+    private final int row;
+    private final int column;
+    private final int value;
+    private final GridState before;
+    private final GridState after;
+
+/* Constructors */
+    private JournalRecord(Type type, int row, int column, int value,
+            GridState before, GridState after) {
+        this.type = type;
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.before = before;
+        this.after = after;
+    }
+
+    public static JournalRecord setValue(int row, int column, int value) {
+        return new JournalRecord(Type.SET_VALUE, row, column, value, null, null);
+    }
+
+    /**
+     * @param before
+     *            - the state before the change, only needed for the undo
+     *            history of a snapshot, may be null.
+     */
+    public static JournalRecord state(GridState before, GridState after) {
+        return new JournalRecord(Type.STATE, 0, 0, 0, before, after);
+    }
+
+    public static JournalRecord undo() {
+        return UNDO;
+    }
+
+    public static JournalRecord redo() {
+        return REDO;
+    }
+
+    public static JournalRecord resize(int size) {
+        return new JournalRecord(Type.RESIZE, 0, 0, size, null, null);
+    }
+
+    public static JournalRecord load(GridState after) {
+        return new JournalRecord(Type.LOAD, 0, 0, 0, null, after);
+    }
+
+/* Getter and Setter */
+    public Type getType() {
+        return type;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the value of SET_VALUE, the size of RESIZE.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    public GridState getBefore() {
+        return before;
+    }
+
+    public GridState getAfter() {
+        return after;
+    }
+
+/* Methods */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(type.getCode());
+        switch (type) {
+        case SET_VALUE:
+            out.writeByte(row);
+            out.writeByte(column);
+            out.writeByte(value);
+            break;
+        case RESIZE:
+            out.writeByte(value);
+            break;
+        case STATE:
+            out.writeBoolean(before != null);
+            if (before != null) {
+                before.writeTo(out);
+            }
+            after.writeTo(out);
+            break;
+        case LOAD:
+            after.writeTo(out);
+            break;
+        default:
+            break;
+        }
+    }
+
+    public static JournalRecord readFrom(DataInput in) throws IOException {
+        Type type = Type.fromCode(in.readUnsignedByte());
+        switch (type) {
+        case SET_VALUE:
+            int row = in.readUnsignedByte();
+            int column = in.readUnsignedByte();
+            return setValue(row, column, in.readUnsignedByte());
+        case RESIZE:
+            return resize(in.readUnsignedByte());
+        case STATE:
+            GridState before = in.readBoolean() ? GridState.readFrom(in) : null;
+            return state(before, GridState.readFrom(in));
+        case LOAD:
+            return load(GridState.readFrom(in));
+        case UNDO:
+            return UNDO;
+        default:
+            return REDO;
+        }
+    }
+}
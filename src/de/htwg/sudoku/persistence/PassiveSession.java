@@ -0,0 +1,115 @@
+package de.htwg.sudoku.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A session put aside in a single file: the snapshot of the grid and its
+ * history, plus what a resume must not lose for the player to notice, the
+ * cells that show their candidates and the status with its text.
+ *
+ * Unlike a SessionJournal it is written once and read once. It is written to
+ * a temporary file and renamed atomically, so the file is either the whole
+ * session or absent.
+ */
+public final class PassiveSession {
+
+/* Fields */
+    private static final int MAGIC = 0x53555053;
+    private static final int VERSION = 1;
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final SessionSnapshot snapshot;
+    private final BitSet showCandidates;
+    private final String status;
+    private final String statusText;
+
+/* Constructors */
+    /**
+     * @param showCandidates
+     *            - bit row * size + column is set if the cell shows its
+     *            candidates.
+     * @param status
+     *            - the name of the status of the game.
+     */
+    public PassiveSession(SessionSnapshot snapshot, BitSet showCandidates, String status,
+            String statusText) {
+        this.snapshot = snapshot;
+        this.showCandidates = (BitSet) showCandidates.clone();
+        this.status = status;
+        this.statusText = statusText;
+    }
+
+/* Getter and Setter */
+    public SessionSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return true if the cell at index row * size + column shows its
+     *         candidates.
+     */
+    public boolean isShowCandidates(int index) {
+        return showCandidates.get(index);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getStatusText() {
+        return statusText;
+    }
+
+/* Methods */
+    /**
+     * writes the session to file, replacing what was there.
+     */
+    public void writeTo(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            snapshot.writeTo(out);
+            byte[] shown = showCandidates.toByteArray();
+            out.writeInt(shown.length);
+            out.write(shown);
+            out.writeUTF(status);
+            out.writeUTF(statusText);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // the rename must not reach the disk before the content
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static PassiveSession readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new IOException(file + " is not a passive session");
+            }
+            SessionSnapshot snapshot = SessionSnapshot.readFrom(in);
+            byte[] shown = new byte[in.readInt()];
+            in.readFully(shown);
+            String status = in.readUTF();
+            return new PassiveSession(snapshot, BitSet.valueOf(shown), status, in.readUTF());
+        }
+    }
+}
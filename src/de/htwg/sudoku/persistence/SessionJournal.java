@@ -0,0 +1,406 @@
+package de.htwg.sudoku.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An append-only journal of a session in a directory of its own. Appending a
+ * record only encodes it, a background thread writes the records and forces
+ * them to disk in groups: it waits for the commit interval after the first
+ * pending record and then commits everything that arrived in the meantime
+ * with a single fsync.
+ *
+ * A snapshot starts a new generation: it is written to a temporary file and
+ * renamed atomically, then the journal of the next generation is opened and
+ * the old one deleted. Opening a directory reads the last snapshot and the
+ * records of its generation. A record is framed with its length and CRC, so
+ * a record that was torn by a crash ends the replay and is cut off.
+ */
+public class SessionJournal implements Closeable {
+
+/* Fields */
+    private static final Logger LOGGER = LogManager.getLogger(SessionJournal.class.getName());
+
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 20;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 500;
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SNAPSHOT_TMP = "snapshot.tmp";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x53554453;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int FRAME_HEADER = 8;
+    private static final Object CLOSE = new Object();
+
+    private final Path directory;
+    private final long commitIntervalMillis;
+    private final int snapshotInterval;
+    private final SessionSnapshot snapshot;
+    private final List<JournalRecord> records;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+    private final Thread flusher;
+
+    private long generation;
+    private FileChannel channel;
+    private int recordsSinceSnapshot;
+    private long appended;
+    private long durable;
+    private int commits;
+    private IOException failure;
+    private boolean closed;
+
+/* Constructors */
+    public SessionJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * opens the journal in directory and reads what it holds.
+     *
+     * @param commitIntervalMillis
+     *            - how long the first pending record waits for others
+     *            before they are forced to disk together.
+     * @param snapshotInterval
+     *            - the number of records after which needsSnapshot() becomes
+     *            true.
+     */
+    public SessionJournal(Path directory, long commitIntervalMillis, int snapshotInterval)
+            throws IOException {
+        this.directory = directory;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.snapshotInterval = snapshotInterval;
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_TMP));
+        this.snapshot = readSnapshot();
+        Path journal = journalPath(generation);
+        this.records = new ArrayList<JournalRecord>();
+        long valid = readRecords(journal, records);
+        this.channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > valid) {
+            LOGGER.info("Cutting off a torn tail of " + journal + " at " + valid);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        deleteOtherGenerations();
+        this.recordsSinceSnapshot = records.size();
+        this.flusher = new Thread(this::flush, "session-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the snapshot found when the journal was opened, null if there
+     *         was none.
+     */
+    public SessionSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the records found when the journal was opened, they follow the
+     *         snapshot.
+     */
+    public List<JournalRecord> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    /**
+     * @return the number of fsyncs of the journal so far.
+     */
+    public synchronized int getCommits() {
+        return commits;
+    }
+
+    public synchronized boolean needsSnapshot() {
+        return recordsSinceSnapshot >= snapshotInterval;
+    }
+
+/* Methods */
+    /**
+     * @return true if directory holds a snapshot a session can be resumed
+     *         from.
+     */
+    public static boolean hasSnapshot(Path directory) {
+        return Files.exists(directory.resolve(SNAPSHOT));
+    }
+
+    /**
+     * deletes a closed journal together with its directory.
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * queues record for the next group commit, it does not wait for the disk.
+     *
+     * @throws IOException
+     *             if an earlier commit failed, nothing is queued after that.
+     */
+    public void append(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            record.writeTo(out);
+        } catch (IOException e) {
+            // writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        byte[] frame = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(frame, FRAME_HEADER, frame.length - FRAME_HEADER);
+        ByteBuffer.wrap(frame).putInt(frame.length - FRAME_HEADER).putInt((int) crc.getValue());
+        synchronized (this) {
+            recordsSinceSnapshot++;
+            enqueue(frame);
+        }
+    }
+
+    /**
+     * queues snapshot, the records appended afterwards go to the journal of
+     * the next generation.
+     *
+     * @throws IOException
+     *             if an earlier commit failed.
+     */
+    public synchronized void snapshot(SessionSnapshot next) throws IOException {
+        recordsSinceSnapshot = 0;
+        enqueue(next);
+    }
+
+    /**
+     * waits until everything appended so far is on disk.
+     *
+     * @throws IOException
+     *             if the journal could not be written.
+     */
+    public synchronized void sync() throws IOException {
+        long target = appended;
+        while (durable < target && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for the journal", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * commits what is pending and closes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(CLOSE);
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void enqueue(Object item) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("journal is closed");
+        }
+        if (failure != null) {
+            // the flusher has stopped, nothing would drain the queue
+            throw failure;
+        }
+        appended++;
+        queue.add(item);
+    }
+
+    /**
+     * the loop of the background thread.
+     */
+    private void flush() {
+        List<Object> batch = new ArrayList<Object>();
+        boolean open = true;
+        while (open) {
+            try {
+                batch.add(queue.take());
+                if (commitIntervalMillis > 0 && batch.get(0) != CLOSE) {
+                    Thread.sleep(commitIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch);
+            open = !batch.contains(CLOSE);
+            int count = batch.size() - (open ? 0 : 1);
+            try {
+                write(batch);
+                synchronized (this) {
+                    durable += count;
+                    commits++;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Could not write the session journal", e);
+                synchronized (this) {
+                    failure = e;
+                    queue.clear();
+                    notifyAll();
+                }
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<Object> batch) throws IOException {
+        for (Object item : batch) {
+            if (item instanceof byte[]) {
+                ByteBuffer frame = ByteBuffer.wrap((byte[]) item);
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            } else if (item instanceof SessionSnapshot) {
+                channel.force(false);
+                startGeneration((SessionSnapshot) item);
+            }
+        }
+        channel.force(false);
+    }
+
+    private void startGeneration(SessionSnapshot next) throws IOException {
+        long nextGeneration = generation + 1;
+        Path tmp = directory.resolve(SNAPSHOT_TMP);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(SNAPSHOT_VERSION);
+            out.writeLong(nextGeneration);
+            next.writeTo(out);
+        }
+        try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                file.write(buffer);
+            }
+            file.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        channel.close();
+        Files.deleteIfExists(journalPath(generation));
+        generation = nextGeneration;
+        channel = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private SessionSnapshot readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT);
+        generation = 0;
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readUnsignedByte() != SNAPSHOT_VERSION) {
+                throw new IOException(path + " is not a session snapshot");
+            }
+            generation = in.readLong();
+            return SessionSnapshot.readFrom(in);
+        }
+    }
+
+    /**
+     * reads the intact records of journal into result.
+     *
+     * @return the length of the intact part of the file.
+     */
+    private static long readRecords(Path journal, List<JournalRecord> result) throws IOException {
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journal));
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= FRAME_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return start;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            try (DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(buffer.array(), buffer.position(), length))) {
+                result.add(JournalRecord.readFrom(in));
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.info("Unreadable record in " + journal, e);
+                return start;
+            }
+            buffer.position(buffer.position() + length);
+        }
+        return buffer.position();
+    }
+
+    private void deleteOtherGenerations() throws IOException {
+        String current = journalPath(generation).getFileName().toString();
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory,
+                JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path journal : journals) {
+                if (!journal.getFileName().toString().equals(current)) {
+                    Files.delete(journal);
+                }
+            }
+        }
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve(JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+}
@@ -0,0 +1,78 @@
+package de.htwg.sudoku.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The complete state of a session at one point of its journal: the grid and
+ * its undo and redo history. The history is stored as SET_VALUE and STATE
+ * records, the STATE records carry the state before the change so that they
+ * can still be undone after a resume.
+ */
+public final class SessionSnapshot {
+
+/* Fields */
+    private final GridState state;
+    private final List<JournalRecord> undoHistory;
+    private final List<JournalRecord> redoHistory;
+
+/* Constructors */
+    /**
+     * @param undoHistory
+     *            - the commands that can be undone, the next one first.
+     * @param redoHistory
+     *            - the commands that can be redone, the next one first.
+     */
+    public SessionSnapshot(GridState state, List<JournalRecord> undoHistory,
+            List<JournalRecord> redoHistory) {
+        this.state = state;
+        this.undoHistory = Collections.unmodifiableList(new ArrayList<JournalRecord>(undoHistory));
+        this.redoHistory = Collections.unmodifiableList(new ArrayList<JournalRecord>(redoHistory));
+    }
+
+/* Getter and Setter */
+    public GridState getState() {
+        return state;
+    }
+
+    public List<JournalRecord> getUndoHistory() {
+        return undoHistory;
+    }
+
+    public List<JournalRecord> getRedoHistory() {
+        return redoHistory;
+    }
+
+/* Methods */
+    public void writeTo(DataOutput out) throws IOException {
+        state.writeTo(out);
+        writeHistory(out, undoHistory);
+        writeHistory(out, redoHistory);
+    }
+
+    public static SessionSnapshot readFrom(DataInput in) throws IOException {
+        GridState state = GridState.readFrom(in);
+        List<JournalRecord> undoHistory = readHistory(in);
+        return new SessionSnapshot(state, undoHistory, readHistory(in));
+    }
+
+    private static void writeHistory(DataOutput out, List<JournalRecord> history) throws IOException {
+        out.writeInt(history.size());
+        for (JournalRecord record : history) {
+            record.writeTo(out);
+        }
+    }
+
+    private static List<JournalRecord> readHistory(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<JournalRecord> history = new ArrayList<JournalRecord>(count);
+        for (int i = 0; i < count; i++) {
+            history.add(JournalRecord.readFrom(in));
+        }
+        return history;
+    }
+}
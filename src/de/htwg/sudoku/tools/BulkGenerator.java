@@ -0,0 +1,247 @@
+package de.htwg.sudoku.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.htwg.sudoku.model.impl.Board;
+import de.htwg.sudoku.model.impl.Canonicalizer;
+import de.htwg.sudoku.model.impl.DuplicateIndex;
+import de.htwg.sudoku.model.impl.Grid;
+import de.htwg.sudoku.model.impl.GridCreateStrategyTemplate;
+import de.htwg.sudoku.model.impl.GridCreateStrategyType;
+import de.htwg.sudoku.model.impl.GridParser;
+
+/**
+ * Generates many puzzles without the application. The seeds of a range are
+ * spread over parallel workers, each with its own strategy. Every puzzle is
+ * written as one line: seed, number of clues, solve steps and the puzzle,
+ * separated by tabs. Lines are written as soon as a batch of a worker is
+ * done, so the order of the seeds in the output is not fixed. With a
+ * DuplicateIndex, puzzles that are symmetric copies of earlier ones are
+ * skipped.
+ */
+public final class BulkGenerator {
+
+/* Fields */
+    private static final int BATCH_SIZE = 64;
+    private static final String SEPARATOR = "\t";
+
+    private final int size;
+    private final GridCreateStrategyType type;
+    private final int threads;
+    private DuplicateIndex duplicateIndex;
+    private long elapsedNanos;
+
+/* Constructors */
+    public BulkGenerator(int size, GridCreateStrategyType type, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        if (size < 1 || !Grid.isSquareOfNaturalNumber(size)) {
+            throw new IllegalArgumentException("size must be a square of a natural number");
+        }
+        this.size = size;
+        this.type = type;
+        this.threads = threads;
+    }
+
+/* Getter and Setter */
+    /**
+     * @return the time the last call of generate took in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @param duplicateIndex
+     *            - the index that rejects duplicates, null to keep all.
+     */
+    public void setDuplicateIndex(DuplicateIndex duplicateIndex) {
+        this.duplicateIndex = duplicateIndex;
+    }
+
+/* Methods */
+    /**
+     * generates the puzzles for the seeds firstSeed .. firstSeed + count - 1
+     * and writes them to out.
+     *
+     * @return the number of puzzles written, less than count if duplicates
+     *         were skipped.
+     */
+    public int generate(long firstSeed, int count, Writer out)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> workers = new ArrayList<Future<Integer>>();
+            for (int worker = 0; worker < threads; worker++) {
+                workers.add(executor.submit(new Worker(firstSeed, count, worker, out)));
+            }
+            int written = 0;
+            for (Future<Integer> worker : workers) {
+                written += get(worker);
+            }
+            out.flush();
+            return written;
+        } finally {
+            executor.shutdownNow();
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private static int get(Future<Integer> worker) throws IOException, InterruptedException {
+        try {
+            return worker.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("puzzle generation failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return the line of the puzzle that strategy creates from seed.
+     */
+    public static String generate(GridCreateStrategyTemplate strategy, int size, long seed) {
+        return describe(create(strategy, size, seed), seed);
+    }
+
+    private static Grid create(GridCreateStrategyTemplate strategy, int size, long seed) {
+        Grid grid = new Grid(size);
+        strategy.createNewGrid(grid, seed);
+        return grid;
+    }
+
+    private static String describe(Grid grid, long seed) {
+        int clues = grid.getCellIndex().countSetCells();
+        int steps = solveSteps(grid, seed);
+        return seed + SEPARATOR + clues + SEPARATOR + steps + SEPARATOR + toLine(grid);
+    }
+
+    private static int solveSteps(Grid grid, long seed) {
+        Grid copy = new Grid(grid.getSize());
+        new Board(grid).writeTo(copy);
+        copy.setRandom(new SplittableRandom(seed));
+        copy.solve();
+        return copy.getSteps();
+    }
+
+    /**
+     * @return the values of grid row by row, '.' for empty cells and the
+     *         digits 1-9 and letters A-P for values.
+     */
+    static String toLine(Grid grid) {
+        StringBuilder line = new StringBuilder(grid.getSize() * grid.getSize());
+        for (int row = 0; row < grid.getSize(); row++) {
+            for (int column = 0; column < grid.getSize(); column++) {
+                int value = grid.getCell(row, column).getValue();
+                line.append(value == 0 ? '.' : GridParser.symbolOf(value));
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Creates the puzzles of every threads-th seed, starting with the seed of
+     * its number.
+     */
+    private final class Worker implements Callable<Integer> {
+        private final long firstSeed;
+        private final int count;
+        private final int number;
+        private final Writer out;
+
+        private Worker(long firstSeed, int count, int number, Writer out) {
+            this.firstSeed = firstSeed;
+            this.count = count;
+            this.number = number;
+            this.out = out;
+        }
+
+        @Override
+        public Integer call() throws IOException {
+            GridCreateStrategyTemplate strategy = type.create();
+            StringBuilder batch = new StringBuilder();
+            int lines = 0;
+            int written = 0;
+            for (int i = number; i < count && !Thread.currentThread().isInterrupted(); i += threads) {
+                long seed = firstSeed + i;
+                Grid grid = create(strategy, size, seed);
+                if (duplicateIndex != null && !duplicateIndex.add(grid)) {
+                    continue;
+                }
+                batch.append(describe(grid, seed)).append('\n');
+                written++;
+                if (++lines == BATCH_SIZE) {
+                    write(batch);
+                    lines = 0;
+                }
+            }
+            write(batch);
+            return written;
+        }
+
+        private void write(StringBuilder batch) throws IOException {
+            synchronized (out) {
+                out.write(batch.toString());
+            }
+            batch.setLength(0);
+        }
+    }
+
+    /**
+     * usage: BulkGenerator size strategy firstSeed count [threads [file]]
+     * Puzzles up to size 9 are deduplicated.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("usage: BulkGenerator size strategy firstSeed count [threads [file]]");
+            System.err.println("strategies: " + Arrays.toString(GridCreateStrategyType.values()));
+            System.exit(1);
+        }
+        int size = Integer.parseInt(args[0]);
+        GridCreateStrategyType type = GridCreateStrategyType.valueOf(args[1].toUpperCase(Locale.ROOT));
+        long firstSeed = Long.parseLong(args[2]);
+        int count = Integer.parseInt(args[3]);
+        int threads = args.length > 4 ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        BulkGenerator generator = new BulkGenerator(size, type, threads);
+        DuplicateIndex duplicateIndex = null;
+        if (size <= Canonicalizer.MAX_SIZE) {
+            duplicateIndex = new DuplicateIndex();
+            generator.setDuplicateIndex(duplicateIndex);
+        }
+        Writer out = args.length > 5
+                ? Files.newBufferedWriter(Paths.get(args[5]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        int written;
+        try {
+            written = generator.generate(firstSeed, count, out);
+        } finally {
+            out.close();
+        }
+        double seconds = generator.getElapsedNanos() / 1e9;
+        System.err.printf(Locale.ROOT, "%d puzzles in %.2f s, %.1f puzzles/s with %d threads%n",
+                written, seconds, written / seconds, threads);
+        if (duplicateIndex != null) {
+            System.err.printf(Locale.ROOT, "%d duplicates skipped%n", duplicateIndex.getDuplicates());
+        }
+    }
+}
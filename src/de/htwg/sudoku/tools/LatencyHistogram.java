@@ -0,0 +1,106 @@
+package de.htwg.sudoku.tools;
+
+/**
+ * Counts latencies in buckets that grow with the latency: below 16 every
+ * value has a bucket, above there are 16 buckets per power of two. A
+ * percentile is therefore off by less than 1/16 of its value, and the
+ * histogram takes the same few KB however many latencies it counts. It is
+ * not thread-safe, every thread keeps its own and they are merged.
+ */
+public final class LatencyHistogram {
+
+/* Fields */
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+/* Getter and Setter */
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of the latencies, 0 if there are none.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+/* Methods */
+    /**
+     * @param latency
+     *            - not negative, in any unit.
+     */
+    public void record(long latency) {
+        if (latency < 0) {
+            throw new IllegalArgumentException("latency must not be negative");
+        }
+        counts[index(latency)]++;
+        count++;
+        sum += latency;
+        max = Math.max(max, latency);
+    }
+
+    /**
+     * adds the latencies of other to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] += other.counts[index];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param percentile
+     *            - from 0 to 100.
+     * @return the latency that percentile percent of the latencies do not
+     *         exceed, rounded up to the end of its bucket but not above the
+     *         maximum. 0 if there are none.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be from 0 to 100");
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length && count > 0; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return Math.min(max, lowerBound(index + 1) - 1);
+            }
+        }
+        return max;
+    }
+
+    static int index(long latency) {
+        if (latency < SUB_BUCKETS) {
+            return (int) latency;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(latency);
+        int mantissa = (int) (latency >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * @return the least latency of the bucket index.
+     */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long mantissa = SUB_BUCKETS + index % SUB_BUCKETS;
+        return exponent - SUB_BITS >= 64 - SUB_BITS - 1 ? Long.MAX_VALUE : mantissa << (exponent - SUB_BITS);
+    }
+}
@@ -0,0 +1,631 @@
+package de.htwg.sudoku.tools;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import de.htwg.sudoku.controller.ISudokuController;
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.impl.GridFactory;
+
+/**
+ * Drives simulated players against games and measures how the stack holds
+ * up. Every player plays a game of its own on a thread of its own, picking
+ * moves at random by the weights of a mix and running them one after the
+ * other without think time. The games run in process, each with its own
+ * controller, or as sessions of a SudokuServer.
+ *
+ * The report is JSON, so that runs before and after a change can be
+ * compared: the throughput, the latency percentiles of all moves and of
+ * every kind of move, the GC pauses and samples of the heap over time.
+ * Moves during the warm-up are played but not counted.
+ */
+public final class LoadTest {
+
+/* Fields */
+    private final int players;
+    private final int size;
+    private final Map<Move, Integer> mix;
+    private final int totalWeight;
+
+    /**
+     * What a player does.
+     */
+    public enum Move {
+        SET, CANDIDATES, UNDO, SOLVE, CREATE;
+
+        /**
+         * @return the mix of most moves setting a value, as a player does
+         *         when solving by hand.
+         */
+        public static Map<Move, Integer> defaultMix() {
+            Map<Move, Integer> mix = new EnumMap<Move, Integer>(Move.class);
+            mix.put(SET, 60);
+            mix.put(CANDIDATES, 20);
+            mix.put(UNDO, 12);
+            mix.put(SOLVE, 4);
+            mix.put(CREATE, 4);
+            return mix;
+        }
+
+        /**
+         * @param mix
+         *            - like set=60,candidates=20,undo=12,solve=4,create=4,
+         *            moves left out are not played.
+         */
+        public static Map<Move, Integer> parseMix(String mix) {
+            Map<Move, Integer> weights = new EnumMap<Move, Integer>(Move.class);
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.split("=");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Illegal mix entry " + entry);
+                }
+                weights.put(valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+            }
+            return weights;
+        }
+    }
+
+    /**
+     * The game of one player.
+     */
+    public interface Game extends Closeable {
+
+        /**
+         * plays move, at random where the move needs a cell or value.
+         *
+         * @throws IOException
+         *             if the move failed, it is counted as an error.
+         */
+        void play(Move move, SplittableRandom random) throws IOException;
+    }
+
+    /**
+     * Starts the game of a player.
+     */
+    public interface GameFactory {
+
+        /**
+         * @param size
+         *            - the size of the grid the game is played on.
+         */
+        Game start(int size) throws IOException;
+    }
+
+/* Constructors */
+    /**
+     * @param mix
+     *            - the weight of every move.
+     */
+    public LoadTest(int players, int size, Map<Move, Integer> mix) {
+        if (players < 1) {
+            throw new IllegalArgumentException("players must be at least 1");
+        }
+        int weights = 0;
+        for (int weight : mix.values()) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("weights must not be negative");
+            }
+            weights += weight;
+        }
+        if (weights == 0) {
+            throw new IllegalArgumentException("the mix has no moves");
+        }
+        this.players = players;
+        this.size = size;
+        this.mix = new EnumMap<Move, Integer>(mix);
+        this.totalWeight = weights;
+    }
+
+/* Methods */
+    /**
+     * @return games that each have their own controller.
+     */
+    public static GameFactory inProcess() {
+        return size -> new ControllerGame(new SudokuController(new GridFactory()), size);
+    }
+
+    /**
+     * @param base
+     *            - the address of a SudokuServer, e.g. http://localhost:8080.
+     * @return games that are sessions of the server.
+     */
+    public static GameFactory overHttp(String base) {
+        return size -> new HttpGame(base, size);
+    }
+
+    /**
+     * lets the players play for warm-up and duration.
+     *
+     * @param sampleMillis
+     *            - how often the heap and the progress are sampled.
+     */
+    public Report run(GameFactory games, long warmupMillis, long durationMillis, long sampleMillis)
+            throws IOException, InterruptedException {
+        Report report = new Report(this, durationMillis);
+        List<Game> started = new ArrayList<Game>();
+        ExecutorService executor = Executors.newFixedThreadPool(players);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        GcPauses pauses = new GcPauses();
+        try {
+            for (int player = 0; player < players; player++) {
+                started.add(games.start(size));
+            }
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+            long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            List<Future<Player>> results = new ArrayList<Future<Player>>();
+            for (int player = 0; player < players; player++) {
+                results.add(executor.submit(new Player(started.get(player), player, measureFrom, end, report)));
+            }
+            Thread.sleep(warmupMillis);
+            pauses.start();
+            report.sample(0, pauses);
+            sampler.scheduleAtFixedRate(() -> report.sample(System.nanoTime() - measureFrom, pauses),
+                    sampleMillis, sampleMillis, TimeUnit.MILLISECONDS);
+            for (Future<Player> result : results) {
+                report.add(get(result));
+            }
+            sampler.shutdown();
+            sampler.awaitTermination(1, TimeUnit.MINUTES);
+            report.sample(System.nanoTime() - measureFrom, pauses);
+        } finally {
+            sampler.shutdownNow();
+            executor.shutdownNow();
+            pauses.stop();
+            for (Game game : started) {
+                game.close();
+            }
+        }
+        return report;
+    }
+
+    private static Player get(Future<Player> player) throws InterruptedException {
+        try {
+            return player.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("a player failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return a move by the weights of the mix.
+     */
+    Move pick(SplittableRandom random) {
+        int remaining = random.nextInt(totalWeight);
+        for (Map.Entry<Move, Integer> entry : mix.entrySet()) {
+            remaining -= entry.getValue();
+            if (remaining < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("the weights changed");
+    }
+
+    /**
+     * Plays the moves of one player and measures them.
+     */
+    private final class Player implements Callable<Player> {
+        private final Game game;
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long end;
+        private final Report report;
+        private final Map<Move, LatencyHistogram> latencies = new EnumMap<Move, LatencyHistogram>(Move.class);
+        private long errors;
+
+        private Player(Game game, long seed, long measureFrom, long end, Report report) {
+            this.game = game;
+            this.random = new SplittableRandom(seed);
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.report = report;
+            for (Move move : Move.values()) {
+                latencies.put(move, new LatencyHistogram());
+            }
+        }
+
+        @Override
+        public Player call() {
+            for (long now = System.nanoTime(); now < end && !Thread.currentThread().isInterrupted();) {
+                Move move = pick(random);
+                boolean failed = false;
+                try {
+                    game.play(move, random);
+                } catch (IOException | RuntimeException e) {
+                    failed = true;
+                }
+                long done = System.nanoTime();
+                if (now >= measureFrom) {
+                    if (failed) {
+                        errors++;
+                    } else {
+                        latencies.get(move).record(done - now);
+                        report.moves.incrementAndGet();
+                    }
+                }
+                now = done;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * A game on a controller of its own.
+     */
+    static final class ControllerGame implements Game {
+        private final ISudokuController controller;
+
+        ControllerGame(ISudokuController controller, int size) {
+            this.controller = controller;
+            controller.resetSize(size);
+            controller.create();
+        }
+
+        @Override
+        public void play(Move move, SplittableRandom random) {
+            int size = controller.getSize();
+            switch (move) {
+            case SET:
+                controller.setValue(random.nextInt(size), random.nextInt(size), 1 + random.nextInt(size));
+                break;
+            case CANDIDATES:
+                controller.showCandidates(random.nextInt(size), random.nextInt(size));
+                break;
+            case UNDO:
+                controller.undo();
+                break;
+            case SOLVE:
+                controller.solve();
+                break;
+            case CREATE:
+                controller.create();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown move " + move);
+            }
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+
+    /**
+     * A game as a session of a SudokuServer.
+     */
+    static final class HttpGame implements Game {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        private final String session;
+        private final int size;
+
+        HttpGame(String base, int size) throws IOException {
+            this.size = size;
+            String sessions = base + "/sessions";
+            HttpURLConnection connection = request("POST", sessions);
+            try (InputStream in = connection.getInputStream()) {
+                this.session = sessions + "/" + MAPPER.readTree(in).get("session").asText();
+            }
+            send("POST", "/size?value=" + size);
+            send("POST", "/create");
+        }
+
+        @Override
+        public void play(Move move, SplittableRandom random) throws IOException {
+            switch (move) {
+            case SET:
+                send("POST", "/set?row=" + random.nextInt(size) + "&column=" + random.nextInt(size) + "&value="
+                        + (1 + random.nextInt(size)));
+                break;
+            case CANDIDATES:
+                send("POST", "/candidates?row=" + random.nextInt(size) + "&column=" + random.nextInt(size));
+                break;
+            default:
+                send("POST", "/" + move.name().toLowerCase(Locale.ROOT));
+                break;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            send("DELETE", "");
+        }
+
+        /**
+         * sends a request on the session and reads the answer to the end,
+         * so that the connection is used again.
+         */
+        private void send(String method, String path) throws IOException {
+            HttpURLConnection connection = request(method, session + path);
+            int code = connection.getResponseCode();
+            InputStream body = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream in = body) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // skip the answer
+                    }
+                }
+            }
+            if (code >= 300) {
+                throw new IOException(method + " " + path + " answered " + code);
+            }
+        }
+
+        private static HttpURLConnection request(String method, String url) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod(method);
+            if ("POST".equals(method)) {
+                connection.setDoOutput(true);
+                connection.getOutputStream().close();
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Adds up the pauses the collectors report. Concurrent cycles do not
+     * stop the players and are left out.
+     */
+    private static final class GcPauses implements NotificationListener {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void start() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        void stop() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    try {
+                        ((NotificationEmitter) collector).removeNotificationListener(this);
+                    } catch (ListenerNotFoundException e) {
+                        // was not started
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData());
+            if (info.getGcAction().toLowerCase(Locale.ROOT).contains("concurrent")
+                    || info.getGcName().toLowerCase(Locale.ROOT).contains("concurrent")) {
+                return;
+            }
+            long millis = info.getGcInfo().getDuration();
+            count.incrementAndGet();
+            totalMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+        }
+    }
+
+    /**
+     * The measurements of a run.
+     */
+    public static final class Report {
+        private final LoadTest test;
+        private final long durationMillis;
+        private final AtomicLong moves = new AtomicLong();
+        private final Map<Move, LatencyHistogram> latencies = new EnumMap<Move, LatencyHistogram>(Move.class);
+        private final LatencyHistogram all = new LatencyHistogram();
+        private final List<long[]> samples = new ArrayList<long[]>();
+        private long errors;
+        private long gcCount;
+        private long gcPauseMillis;
+        private long gcMaxPauseMillis;
+
+        private Report(LoadTest test, long durationMillis) {
+            this.test = test;
+            this.durationMillis = durationMillis;
+            for (Move move : Move.values()) {
+                latencies.put(move, new LatencyHistogram());
+            }
+        }
+
+        public long getMoves() {
+            return all.getCount();
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return the moves per second.
+         */
+        public double getThroughput() {
+            return all.getCount() * 1000.0 / durationMillis;
+        }
+
+        /**
+         * @return the latencies of the moves in nanoseconds, null for all.
+         */
+        public LatencyHistogram getLatencies(Move move) {
+            return move == null ? all : latencies.get(move);
+        }
+
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * @return the samples taken, one per line: elapsed milliseconds,
+         *         moves so far, heap used, heap used after the last
+         *         collection, GC pauses so far and their milliseconds.
+         */
+        public synchronized List<long[]> getSamples() {
+            return new ArrayList<long[]>(samples);
+        }
+
+        private void add(Player player) {
+            for (Move move : Move.values()) {
+                latencies.get(move).add(player.latencies.get(move));
+                all.add(player.latencies.get(move));
+            }
+            errors += player.errors;
+        }
+
+        private synchronized void sample(long elapsedNanos, GcPauses pauses) {
+            long used = 0;
+            long usedAfterGc = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    used += pool.getUsage().getUsed();
+                    MemoryUsage collected = pool.getCollectionUsage();
+                    usedAfterGc += collected == null ? 0 : collected.getUsed();
+                }
+            }
+            gcCount = pauses.count.get();
+            gcPauseMillis = pauses.totalMillis.get();
+            gcMaxPauseMillis = pauses.maxMillis.get();
+            samples.add(new long[] { TimeUnit.NANOSECONDS.toMillis(elapsedNanos), moves.get(), used, usedAfterGc,
+                    gcCount, gcPauseMillis });
+        }
+
+        /**
+         * writes the report as a JSON object, out is left open.
+         */
+        public synchronized void write(Writer out) throws IOException {
+            try (JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartObject();
+                generator.writeNumberField("players", test.players);
+                generator.writeNumberField("size", test.size);
+                generator.writeObjectFieldStart("mix");
+                for (Map.Entry<Move, Integer> entry : test.mix.entrySet()) {
+                    generator.writeNumberField(entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue());
+                }
+                generator.writeEndObject();
+                generator.writeNumberField("durationMillis", durationMillis);
+                generator.writeNumberField("moves", getMoves());
+                generator.writeNumberField("errors", errors);
+                generator.writeNumberField("throughput", Math.round(getThroughput() * 10) / 10.0);
+                generator.writeFieldName("latencyMicros");
+                writeLatencies(generator, all);
+                generator.writeObjectFieldStart("latencyMicrosByMove");
+                for (Move move : test.mix.keySet()) {
+                    generator.writeFieldName(move.name().toLowerCase(Locale.ROOT));
+                    writeLatencies(generator, latencies.get(move));
+                }
+                generator.writeEndObject();
+                generator.writeObjectFieldStart("gc");
+                generator.writeNumberField("pauses", gcCount);
+                generator.writeNumberField("pauseMillis", gcPauseMillis);
+                generator.writeNumberField("maxPauseMillis", gcMaxPauseMillis);
+                generator.writeEndObject();
+                generator.writeArrayFieldStart("samples");
+                for (long[] sample : samples) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("elapsedMillis", sample[0]);
+                    generator.writeNumberField("moves", sample[1]);
+                    generator.writeNumberField("heapUsedBytes", sample[2]);
+                    generator.writeNumberField("heapAfterGcBytes", sample[3]);
+                    generator.writeNumberField("gcPauses", sample[4]);
+                    generator.writeNumberField("gcPauseMillis", sample[5]);
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+
+        private static void writeLatencies(JsonGenerator generator, LatencyHistogram histogram)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("count", histogram.getCount());
+            generator.writeNumberField("mean", Math.round(histogram.getMean() / 100) / 10.0);
+            generator.writeNumberField("p50", histogram.getPercentile(50) / 1000);
+            generator.writeNumberField("p90", histogram.getPercentile(90) / 1000);
+            generator.writeNumberField("p99", histogram.getPercentile(99) / 1000);
+            generator.writeNumberField("p999", histogram.getPercentile(99.9) / 1000);
+            generator.writeNumberField("max", histogram.getMax() / 1000);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * usage: LoadTest players seconds [size [mix [url [file]]]]
+     * The games run in process unless the url of a server is given, - also
+     * stands for in process. The report is written to file or to standard
+     * output; the log of the application may go there too.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: LoadTest players seconds [size [mix [url [file]]]]");
+            System.err.println("mix: e.g. set=60,candidates=20,undo=12,solve=4,create=4 or default");
+            System.exit(1);
+        }
+        int players = Integer.parseInt(args[0]);
+        long millis = Long.parseLong(args[1]) * 1000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 9;
+        Map<Move, Integer> mix = args.length > 3 && !"default".equals(args[3]) ? Move.parseMix(args[3])
+                : Move.defaultMix();
+        GameFactory games = args.length > 4 && !"-".equals(args[4]) ? overHttp(args[4]) : inProcess();
+        LoadTest test = new LoadTest(players, size, mix);
+        Report report = test.run(games, Math.min(millis / 5, 10000), millis, 1000);
+        Writer out = args.length > 5
+                ? Files.newBufferedWriter(Paths.get(args[5]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            report.write(out);
+            out.write(System.lineSeparator());
+        } finally {
+            out.close();
+        }
+        System.err.printf(Locale.ROOT, "%d moves, %.1f moves/s, p99 %d us, %d errors with %d players%n",
+                report.getMoves(), report.getThroughput(), report.getLatencies(null).getPercentile(99) / 1000,
+                report.getErrors(), players);
+    }
+}
@@ -0,0 +1,81 @@
+package de.htwg.util.bloomfilter;
+
+/**
+ * A Bloom filter of 64 bit hashes. It never forgets a hash that was put into
+ * it, but it may claim to contain a hash that was never put into it. The
+ * memory is fixed when it is created, so it suits streams of unknown length.
+ * The k bit positions of a hash are derived from its two halves by double
+ * hashing.
+ */
+public class BloomFilter {
+
+/* Fields */
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+/* Constructors */
+    /**
+     * @param expectedInsertions
+     *            - the number of hashes the filter is sized for.
+     * @param falsePositiveRate
+     *            - the rate of false positives after that many insertions,
+     *            between 0 and 1.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("illegal size of a Bloom filter");
+        }
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = new long[(int) ((Math.max(64, optimalBits) + 63) / 64)];
+        this.bitCount = 64L * bits.length;
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) expectedInsertions * ln2));
+    }
+
+/* Getter and Setter */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+/* Methods */
+    /**
+     * @return true if the filter changed, i.e. the hash was certainly not
+     *         contained before.
+     */
+    public boolean put(long hash) {
+        boolean changed = false;
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long position = position(first + i * second);
+            long mask = 1L << position;
+            int word = (int) (position >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long hash) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long position = position(first + i * second);
+            if ((bits[(int) (position >>> 6)] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long position(int combined) {
+        return (combined & Integer.MAX_VALUE) % bitCount;
+    }
+}
@@ -1,19 +1,53 @@
 package de.htwg.util.command;
 
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The UndoManager holds a Stack of Commands. When a Command is added,it
  * executes the doCommand. When undo is called it calls the top of the Stack and
- * calls undoCommand
+ * calls undoCommand. Every controller has its own UndoManager, so games
+ * played side by side have separate histories.
  */
 public class UndoManager {
 	/* Fields */
-	private static Deque<UndoableCommand> undoStack = new LinkedList<UndoableCommand>();
-	private static Deque<UndoableCommand> redoStack = new LinkedList<UndoableCommand>();
+	private Deque<UndoableCommand> undoStack = new LinkedList<UndoableCommand>();
+	private Deque<UndoableCommand> redoStack = new LinkedList<UndoableCommand>();
 
-	private static UndoableCommand topCommand;
+	/* Getter and Setter */
+	/**
+	 * @return the commands that can be undone, the next one first.
+	 */
+	public List<UndoableCommand> getUndoCommands() {
+		return new ArrayList<UndoableCommand>(undoStack);
+	}
+
+	/**
+	 * @return the commands that can be redone, the next one first.
+	 */
+	public List<UndoableCommand> getRedoCommands() {
+		return new ArrayList<UndoableCommand>(redoStack);
+	}
+
+	/**
+	 * @return the number of commands that can be undone or redone.
+	 */
+	public int countCommands() {
+		return undoStack.size() + redoStack.size();
+	}
+
+	/**
+	 * replaces both stacks, e.g. with a history read from disk. The commands
+	 * must already be done or undone.
+	 */
+	public void restore(List<UndoableCommand> undoCommands, List<UndoableCommand> redoCommands) {
+		undoStack.clear();
+		undoStack.addAll(undoCommands);
+		redoStack.clear();
+		redoStack.addAll(redoCommands);
+	}
 
 	/* Methods */
 	public void doCommand(UndoableCommand newCommand) {
@@ -23,7 +57,7 @@ public class UndoManager {
 
 	public void undoCommand() {
 		if (!undoStack.isEmpty()) {
-			topCommand = undoStack.pop();
+			UndoableCommand topCommand = undoStack.pop();
 			topCommand.undoCommand();
 			redoStack.push(topCommand);
 		}
@@ -31,12 +65,17 @@ public class UndoManager {
 
 	public void redoCommand() {
 		if (!redoStack.isEmpty()) {
-			topCommand = redoStack.pop();
+			UndoableCommand topCommand = redoStack.pop();
 			topCommand.redoCommand();
 		}
 	}
 
+	/**
+	 * forgets both stacks, e.g. when the commands belong to a grid that is
+	 * replaced.
+	 */
 	public void reset() {
 		undoStack.clear();
+		redoStack.clear();
 	}
 }
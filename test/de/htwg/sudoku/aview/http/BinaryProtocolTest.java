@@ -0,0 +1,121 @@
+package de.htwg.sudoku.aview.http;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.controller.GameStatus;
+import de.htwg.sudoku.controller.ISudokuController;
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.impl.GridFactory;
+
+public class BinaryProtocolTest {
+
+	/* Fields */
+	private ISudokuController controller;
+	private BoardDecoder decoder;
+
+	/* Setup */
+	@Before
+	public void setUp() {
+		controller = new SudokuController(new GridFactory());
+		decoder = new BoardDecoder();
+	}
+
+	/* Tests */
+	@Test
+	public void testBoardRoundTrip() throws IOException {
+		controller.create();
+		controller.showCandidates(firstUnset()[0], firstUnset()[1]);
+		decoder.apply(payload(BinaryProtocol.board(new GameState(controller), 300)));
+		assertEquals(300, decoder.getVersion());
+		assertSameBoard();
+		assertEquals(GameStatus.SHOW_CANDIDATES.ordinal(), decoder.getStatus());
+		int[] cell = firstUnset();
+		assertTrue(decoder.isShowCandidates(cell[0], cell[1]));
+		assertTrue(decoder.getCandidates(cell[0], cell[1]) != 0);
+	}
+
+	@Test
+	public void testBoardIsFarSmallerThanJson() {
+		controller.create();
+		byte[] frame = BinaryProtocol.board(new GameState(controller), 1);
+		int json = controller.toJson().getBytes(StandardCharsets.UTF_8).length;
+		assertTrue(frame.length + " bytes", frame.length * 20 < json);
+	}
+
+	@Test
+	public void testDiffs() throws IOException {
+		controller.resetSize(16);
+		GameState previous = new GameState(controller);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		stream.write(BinaryProtocol.board(previous, 1));
+		stream.write(BinaryProtocol.HEARTBEAT);
+
+		controller.setValue(15, 15, 16);
+		controller.setValue(0, 1, 9);
+		GameState current = new GameState(controller);
+		byte[] diff = BinaryProtocol.diff(previous, current, 1, 2);
+		assertNull(BinaryProtocol.diff(current, current, 2, 3));
+		stream.write(diff);
+
+		InputStream in = new ByteArrayInputStream(stream.toByteArray());
+		assertTrue(decoder.read(in));
+		assertEquals(16, decoder.getSize());
+		assertTrue(decoder.read(in));
+		assertEquals(2, decoder.getVersion());
+		assertSameBoard();
+		assertFalse(decoder.read(in));
+		// a diff that does not follow the board is refused
+		try {
+			decoder.apply(payload(diff));
+			fail("the diff is since version 1");
+		} catch (IOException e) {
+			assertEquals(2, decoder.getVersion());
+		}
+	}
+
+	private void assertSameBoard() {
+		int size = controller.getSize();
+		assertEquals(size, decoder.getSize());
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				assertEquals(controller.getValue(row, column), decoder.getValue(row, column));
+				assertEquals(controller.isGiven(row, column), decoder.isGiven(row, column));
+				assertEquals(controller.isShowCandidates(row, column), decoder.isShowCandidates(row, column));
+			}
+		}
+		assertTrue(decoder.getMessage().endsWith(controller.getStatusText()));
+	}
+
+	private int[] firstUnset() {
+		for (int row = 0; row < controller.getSize(); row++) {
+			for (int column = 0; column < controller.getSize(); column++) {
+				if (!controller.isSet(row, column)) {
+					return new int[] { row, column };
+				}
+			}
+		}
+		throw new AssertionError("no unset cell");
+	}
+
+	/**
+	 * @return frame without its length.
+	 */
+	private static byte[] payload(byte[] frame) {
+		int start = 0;
+		while ((frame[start] & 0x80) != 0) {
+			start++;
+		}
+		byte[] payload = new byte[frame.length - start - 1];
+		System.arraycopy(frame, start + 1, payload, 0, payload.length);
+		return payload;
+	}
+}
@@ -0,0 +1,460 @@
+package de.htwg.sudoku.aview.http;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.impl.GridFactory;
+
+public class EventStreamTest {
+
+	/* Fields */
+	private static final String PUZZLE4 = "12..34..21..43..";
+
+	private Path directory;
+	private SessionRegistry sessions;
+	private SudokuServer server;
+	private ObjectMapper mapper = new ObjectMapper();
+	private String id;
+
+	/* Setup */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("sessions");
+		sessions = new SessionRegistry(directory, () -> new SudokuController(new GridFactory()), 60000,
+				Long.MAX_VALUE);
+		server = new SudokuServer(0, sessions);
+		server.start();
+		id = sessions.create();
+		sessions.apply(id, controller -> {
+			controller.resetSize(4);
+			controller.parseStringToGrid(PUZZLE4);
+			return null;
+		});
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+		sessions.close();
+		for (String session : directory.toFile().list()) {
+			Files.delete(directory.resolve(session));
+		}
+		Files.delete(directory);
+	}
+
+	/* Tests */
+	@Test
+	public void testBoardThenCoalescedDiff() throws IOException {
+		try (BufferedReader events = subscribe("")) {
+			JsonNode board = next(events, "board");
+			assertEquals(4, board.get("size").asInt());
+			assertEquals(16, board.get("cells").size());
+			assertEquals(1 | EventStream.GIVEN, board.get("cells").get(0).asInt());
+			assertEquals(0, board.get("cells").get(2).asInt());
+
+			// three notifications in a burst become one event
+			sessions.apply(id, controller -> {
+				controller.setValue(0, 2, 3);
+				controller.setValue(0, 3, 4);
+				controller.setValue(1, 2, 1);
+				return null;
+			});
+			JsonNode diff = next(events, "diff");
+			assertEquals(board.get("version").asLong(), diff.get("since").asLong());
+			assertEquals(6, diff.get("cells").size());
+			assertEquals(2, diff.get("cells").get(0).asInt());
+			assertEquals(3, diff.get("cells").get(1).asInt());
+
+			post("/solve");
+			diff = next(events, "diff");
+			assertEquals(10, diff.get("cells").size());
+			assertEquals("SOLVE_SUCCESS", diff.get("status").asText());
+		}
+	}
+
+	@Test
+	public void testResyncFromVersion() throws IOException {
+		long version;
+		try (BufferedReader events = subscribe("")) {
+			version = next(events, "board").get("version").asLong();
+		}
+		post("/set?row=0&column=2&value=3");
+		post("/set?row=0&column=3&value=4");
+		try (BufferedReader events = subscribe("?since=" + version)) {
+			// the missed changes follow each other without a gap
+			int[] cells = new int[16];
+			while (cells[3] == 0) {
+				JsonNode diff = next(events, "diff");
+				assertEquals(version, diff.get("since").asLong());
+				version = diff.get("version").asLong();
+				for (int i = 0; i < diff.get("cells").size(); i += 2) {
+					cells[diff.get("cells").get(i).asInt()] = diff.get("cells").get(i + 1).asInt();
+				}
+			}
+			assertEquals(3, cells[2]);
+			assertEquals(4, cells[3]);
+		}
+		try (BufferedReader events = subscribe("?since=" + Long.MAX_VALUE)) {
+			JsonNode board = next(events, "board");
+			assertEquals(version, board.get("version").asLong());
+			assertEquals(3, board.get("cells").get(2).asInt());
+		}
+	}
+
+	@Test
+	public void testBinaryFrames() throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + "/" + id + "/"
+				+ SudokuServer.BOARD);
+		BoardDecoder board = new BoardDecoder();
+		try (InputStream in = url.openStream()) {
+			assertTrue(board.read(in));
+		}
+		assertEquals(4, board.getSize());
+		assertEquals(2, board.getValue(0, 1));
+		assertTrue(board.isGiven(0, 1));
+
+		url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + "/" + id + "/"
+				+ SudokuServer.FRAMES);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setReadTimeout(5000);
+		try (InputStream in = connection.getInputStream()) {
+			board = new BoardDecoder();
+			assertTrue(board.read(in));
+			assertEquals(0, board.getValue(0, 2));
+			post("/set?row=0&column=2&value=3");
+			post("/candidates?row=1&column=2");
+			while (!board.isShowCandidates(1, 2)) {
+				assertTrue(board.read(in));
+			}
+			assertEquals(3, board.getValue(0, 2));
+			// row 1 holds 3 and 4, column 2 now holds 3
+			assertEquals(1 | 1 << 1, board.getCandidates(1, 2));
+		}
+	}
+
+	@Test
+	public void testSlowClientGetsBoardInsteadOfBacklog() throws Exception {
+		try (EventStream stream = new EventStream(sessions, 1)) {
+			FakeExchange slow = new FakeExchange(new CountDownLatch(1));
+			FakeExchange fast = new FakeExchange(new CountDownLatch(0));
+			stream.subscribe(id, slow, -1, true);
+			stream.subscribe(id, fast, -1, true);
+			fast.await(0);
+			int changes = 3 * EventStream.QUEUE;
+			for (int i = 1; i <= changes; i++) {
+				int value = i % 2 == 0 ? 0 : 3;
+				sessions.apply(id, controller -> {
+					if (value == 0) {
+						controller.undo();
+					} else {
+						controller.setValue(0, 2, value);
+					}
+					return null;
+				});
+				// the fast client is not held up by the slow one
+				fast.await(value);
+			}
+			assertEquals(changes + 1, fast.frames());
+
+			slow.blocked.countDown();
+			slow.await(0);
+			assertTrue(slow.frames() + " frames", slow.frames() <= EventStream.QUEUE + 2);
+			assertTrue(slow.boards() >= 2);
+		}
+	}
+
+	@Test
+	public void testBusySessionDoesNotHoldUpOthers() throws Exception {
+		String other = sessions.create();
+		CountDownLatch held = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (EventStream stream = new EventStream(sessions, 1)) {
+			FakeExchange waiting = new FakeExchange(new CountDownLatch(0));
+			FakeExchange served = new FakeExchange(new CountDownLatch(0));
+			stream.subscribe(id, waiting, -1, true);
+			stream.subscribe(other, served, -1, true);
+			waiting.await(0);
+			Thread request = new Thread(() -> sessions.apply(id, controller -> {
+				controller.setValue(0, 2, 3);
+				held.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return null;
+			}));
+			request.start();
+			held.await();
+			int cell = sessions.apply(other, controller -> {
+				int unset = 0;
+				while (controller.isSet(unset / 9, unset % 9)) {
+					unset++;
+				}
+				controller.showCandidates(unset / 9, unset % 9);
+				return unset;
+			});
+			served.awaitShown(cell / 9, cell % 9);
+			assertEquals(0, waiting.decode().getValue(0, 2));
+
+			release.countDown();
+			request.join();
+			waiting.await(3);
+		}
+	}
+
+	@Test
+	public void testUnknownSession() throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + "/nobody/events");
+		assertEquals(404, ((HttpURLConnection) url.openConnection()).getResponseCode());
+	}
+
+	private BufferedReader subscribe(String query) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + "/" + id + "/"
+				+ SudokuServer.EVENTS + query);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setReadTimeout(5000);
+		assertEquals(200, connection.getResponseCode());
+		assertTrue(connection.getContentType().startsWith("text/event-stream"));
+		return new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the data of the next event, which must be of type.
+	 */
+	private JsonNode next(BufferedReader events, String type) throws IOException {
+		String event = null;
+		String data = null;
+		for (String line = events.readLine(); line != null; line = events.readLine()) {
+			if (line.startsWith("event: ")) {
+				event = line.substring(7);
+			} else if (line.startsWith("data: ")) {
+				data = line.substring(6);
+			} else if (line.isEmpty() && data != null) {
+				break;
+			}
+		}
+		assertEquals(type, event);
+		return mapper.readTree(data);
+	}
+
+	/**
+	 * An exchange that keeps the frames written to it, the first write
+	 * waits for blocked.
+	 */
+	private static class FakeExchange extends HttpExchange {
+
+		private final CountDownLatch blocked;
+		private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		private final Headers headers = new Headers();
+
+		FakeExchange(CountDownLatch blocked) {
+			this.blocked = blocked;
+		}
+
+		/**
+		 * waits until cell (0, 2) has value for the client.
+		 */
+		void await(int value) throws Exception {
+			for (int wait = 0; wait < 500 && (decode() == null || decode().getValue(0, 2) != value); wait++) {
+				Thread.sleep(10);
+			}
+			assertEquals(value, decode().getValue(0, 2));
+		}
+
+		void awaitShown(int row, int column) throws Exception {
+			for (int wait = 0; wait < 500 && (decode() == null || !decode().isShowCandidates(row, column)); wait++) {
+				Thread.sleep(10);
+			}
+			assertTrue(decode().isShowCandidates(row, column));
+		}
+
+		/**
+		 * @return the board the client sees, null before the first frame.
+		 */
+		BoardDecoder decode() throws IOException {
+			BoardDecoder decoder = new BoardDecoder();
+			InputStream in = new ByteArrayInputStream(bytes());
+			while (decoder.read(in)) {
+				// every diff must follow the frame before it
+			}
+			return decoder.getVersion() < 0 ? null : decoder;
+		}
+
+		int frames() {
+			return types()[0];
+		}
+
+		int boards() {
+			return types()[BinaryProtocol.BOARD];
+		}
+
+		/**
+		 * @return the number of frames at 0 and of each type at its index.
+		 */
+		private int[] types() {
+			byte[] bytes = bytes();
+			int[] types = new int[3];
+			for (int start = 0; start < bytes.length;) {
+				int length = 0;
+				for (int shift = 0;; shift += 7) {
+					int b = bytes[start++];
+					length |= (b & 0x7F) << shift;
+					if ((b & 0x80) == 0) {
+						break;
+					}
+				}
+				if (length > 0) {
+					types[0]++;
+					types[bytes[start]]++;
+				}
+				start += length;
+			}
+			return types;
+		}
+
+		private byte[] bytes() {
+			synchronized (written) {
+				return written.toByteArray();
+			}
+		}
+
+		@Override
+		public OutputStream getResponseBody() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					write(new byte[] { (byte) b }, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					try {
+						blocked.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						throw new IOException(e);
+					}
+					synchronized (written) {
+						written.write(b, off, len);
+					}
+				}
+			};
+		}
+
+		@Override
+		public Headers getResponseHeaders() {
+			return headers;
+		}
+
+		@Override
+		public void sendResponseHeaders(int code, long length) {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Headers getRequestHeaders() {
+			return new Headers();
+		}
+
+		@Override
+		public URI getRequestURI() {
+			return null;
+		}
+
+		@Override
+		public String getRequestMethod() {
+			return "GET";
+		}
+
+		@Override
+		public HttpContext getHttpContext() {
+			return null;
+		}
+
+		@Override
+		public InputStream getRequestBody() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public InetSocketAddress getRemoteAddress() {
+			return null;
+		}
+
+		@Override
+		public int getResponseCode() {
+			return 200;
+		}
+
+		@Override
+		public InetSocketAddress getLocalAddress() {
+			return null;
+		}
+
+		@Override
+		public String getProtocol() {
+			return "HTTP/1.1";
+		}
+
+		@Override
+		public Object getAttribute(String name) {
+			return null;
+		}
+
+		@Override
+		public void setAttribute(String name, Object value) {
+		}
+
+		@Override
+		public void setStreams(InputStream in, OutputStream out) {
+		}
+
+		@Override
+		public HttpPrincipal getPrincipal() {
+			return null;
+		}
+	}
+
+	private void post(String command) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + "/" + id + command);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.flush();
+		}
+		assertEquals(200, connection.getResponseCode());
+		connection.getInputStream().close();
+	}
+}
@@ -0,0 +1,178 @@
+package de.htwg.sudoku.aview.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.controller.GameStatus;
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.impl.GridFactory;
+
+public class SessionRegistryTest {
+
+	/* Fields */
+	private static final String PUZZLE4 = "12..34..21..43..";
+	private static final long HOUR = 3600000;
+
+	private Path directory;
+	private SessionRegistry registry;
+
+	/* Setup */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("sessions");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		registry.close();
+		for (String id : directory.toFile().list()) {
+			Files.delete(directory.resolve(id));
+		}
+		Files.delete(directory);
+	}
+
+	/* Tests */
+	@Test
+	public void testIdleSessionIsResumed() throws Exception {
+		registry = open(20, Long.MAX_VALUE);
+		String id = registry.create();
+		play(id);
+		awaitPassive();
+		assertTrue(Files.exists(registry.file(id)));
+
+		assertEquals(3, (int) registry.apply(id, controller -> controller.getValue(0, 2)));
+		assertEquals(1, (int) registry.apply(id, controller -> controller.getValue(0, 0)));
+		awaitPassive();
+		// the undo history was passivated with the grid
+		assertEquals(0, (int) registry.apply(id, controller -> {
+			controller.undo();
+			return controller.getValue(0, 2);
+		}));
+	}
+
+	@Test
+	public void testApplyResumesTransparently() throws IOException {
+		registry = open(HOUR, Long.MAX_VALUE);
+		String id = registry.create();
+		play(id);
+		String statusText = registry.apply(id, controller -> {
+			controller.showCandidates(1, 2);
+			return controller.getStatusText();
+		});
+		registry.close();
+		assertEquals(0, registry.countActive());
+		assertTrue(Files.exists(registry.file(id)));
+
+		registry.apply(id, controller -> {
+			assertEquals(GameStatus.SHOW_CANDIDATES, controller.getStatus());
+			assertEquals(statusText, controller.getStatusText());
+			assertTrue(controller.isShowCandidates(1, 2));
+			assertFalse(controller.isShowCandidates(1, 3));
+			return null;
+		});
+		assertEquals(1, registry.countActive());
+		assertFalse(Files.exists(registry.file(id)));
+	}
+
+	@Test
+	public void testMemoryBudgetEvictsLeastRecentlyUsed() throws Exception {
+		registry = new SessionRegistry(directory, () -> new SudokuController(new GridFactory()), HOUR, 2,
+				controller -> 1);
+		List<String> ids = new ArrayList<String>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(registry.create());
+			play(ids.get(i));
+		}
+		for (int wait = 0; wait < 100 && registry.getActiveBytes() > 2; wait++) {
+			Thread.sleep(50);
+		}
+		assertTrue(registry.countActive() <= 2);
+		assertTrue(Files.exists(registry.file(ids.get(0))));
+		assertFalse(Files.exists(registry.file(ids.get(4))));
+		for (String id : ids) {
+			assertEquals(3, (int) registry.apply(id, controller -> controller.getValue(0, 2)));
+		}
+		assertEquals(5, registry.count());
+	}
+
+	@Test
+	public void testHistoryAddsWeight() throws IOException {
+		registry = open(HOUR, Long.MAX_VALUE);
+		String id = registry.create();
+		long empty = registry.getActiveBytes();
+		registry.apply(id, controller -> {
+			controller.resetSize(4);
+			controller.parseStringToGrid(PUZZLE4);
+			return null;
+		});
+		long start = registry.getActiveBytes();
+		registry.apply(id, controller -> {
+			for (int move = 0; move < 100; move++) {
+				controller.setValue(0, 2, 3);
+				controller.undo();
+			}
+			return null;
+		});
+		assertTrue(empty > 0);
+		assertEquals(start + 100 * SessionRegistry.MOVE_BYTES, registry.getActiveBytes());
+	}
+
+	@Test
+	public void testSessionsSurviveReopening() throws IOException {
+		registry = open(HOUR, Long.MAX_VALUE);
+		String id = registry.create();
+		play(id);
+		registry.close();
+
+		registry = open(HOUR, Long.MAX_VALUE);
+		assertEquals(1, registry.count());
+		assertEquals(3, (int) registry.apply(id, controller -> controller.getValue(0, 2)));
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		registry = open(HOUR, Long.MAX_VALUE);
+		String id = registry.create();
+		assertTrue(registry.remove(id));
+		assertFalse(registry.remove(id));
+		assertEquals(0, registry.count());
+		assertEquals(0, registry.getActiveBytes());
+		try {
+			registry.apply(id, controller -> controller.getSize());
+			fail("the session was removed");
+		} catch (NoSuchElementException e) {
+			assertFalse(Files.exists(registry.file(id)));
+		}
+	}
+
+	private SessionRegistry open(long idleMillis, long memoryBudget) throws IOException {
+		return new SessionRegistry(directory, () -> new SudokuController(new GridFactory()), idleMillis,
+				memoryBudget);
+	}
+
+	private void awaitPassive() throws InterruptedException {
+		for (int wait = 0; wait < 100 && registry.countActive() > 0; wait++) {
+			Thread.sleep(50);
+		}
+		assertEquals(0, registry.countActive());
+	}
+
+	private void play(String id) {
+		registry.apply(id, controller -> {
+			controller.resetSize(4);
+			controller.parseStringToGrid(PUZZLE4);
+			controller.setValue(0, 2, 3);
+			return null;
+		});
+	}
+}
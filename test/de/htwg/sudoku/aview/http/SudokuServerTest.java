@@ -0,0 +1,187 @@
+package de.htwg.sudoku.aview.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.impl.GridFactory;
+
+public class SudokuServerTest {
+
+	/* Fields */
+	private static final String PUZZLE4 = "12..34..21..43..";
+
+	private Path directory;
+	private SessionRegistry sessions;
+	private SudokuServer server;
+	private ObjectMapper mapper = new ObjectMapper();
+
+	/* Setup */
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("sessions");
+		sessions = new SessionRegistry(directory, () -> new SudokuController(new GridFactory()), 60000,
+				Long.MAX_VALUE);
+		server = new SudokuServer(0, sessions);
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+		sessions.close();
+		for (String id : directory.toFile().list()) {
+			Files.delete(directory.resolve(id));
+		}
+		Files.delete(directory);
+	}
+
+	/* Tests */
+	@Test
+	public void testSessionLifecycle() throws IOException {
+		JsonNode created = request("POST", "", null, 201);
+		String id = created.get("session").asText();
+		assertEquals("CREATE", created.get("status").asText());
+		assertEquals(9, created.get("sudoku").get("size").asInt());
+		assertEquals(1, sessions.count());
+
+		assertEquals(id, request("GET", "/" + id, null, 200).get("session").asText());
+		request("DELETE", "/" + id, null, 204);
+		assertEquals(0, sessions.count());
+		request("GET", "/" + id, null, 404);
+	}
+
+	@Test
+	public void testCommands() throws IOException {
+		String id = request("POST", "", null, 201).get("session").asText();
+		request("POST", "/" + id + "/size?value=4", null, 200);
+		JsonNode loaded = request("POST", "/" + id + "/load", PUZZLE4, 200);
+		assertEquals(4, loaded.get("sudoku").get("size").asInt());
+
+		JsonNode set = request("POST", "/" + id + "/set?row=0&column=2&value=3", null, 200);
+		assertEquals("CELL_SET_SUCCESS", set.get("status").asText());
+		assertEquals(3, valueAt(set, 0, 2));
+		assertEquals(0, valueAt(request("POST", "/" + id + "/undo", null, 200), 0, 2));
+		assertEquals("SOLVE_SUCCESS", request("POST", "/" + id + "/solve", null, 200).get("status").asText());
+
+		request("POST", "/" + id + "/set?row=4&column=0&value=1", null, 400);
+		request("POST", "/" + id + "/set?row=0", null, 400);
+		request("POST", "/" + id + "/fly", null, 404);
+		request("PUT", "/" + id, null, 405);
+	}
+
+	@Test
+	public void testSessionsAreSeparate() throws Exception {
+		int players = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(players);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int i = 0; i < players; i++) {
+			results.add(pool.submit(() -> {
+				String id = request("POST", "", null, 201).get("session").asText();
+				request("POST", "/" + id + "/size?value=4", null, 200);
+				request("POST", "/" + id + "/load", PUZZLE4, 200);
+				// with a shared history an undo would take back the move of
+				// another session
+				for (int move = 0; move < 20; move++) {
+					request("POST", "/" + id + "/set?row=0&column=2&value=3", null, 200);
+					if (valueAt(request("POST", "/" + id + "/undo", null, 200), 0, 2) != 0) {
+						return false;
+					}
+				}
+				return true;
+			}));
+		}
+		try {
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(players, sessions.count());
+	}
+
+	@Test
+	public void testNotModified() throws IOException {
+		String id = request("POST", "", null, 201).get("session").asText();
+		String etag = get(id, null, 200);
+		assertNotNull(etag);
+		assertEquals(etag, get(id, etag, 304));
+		assertEquals(etag, get(id, "\"other\", " + etag, 304));
+
+		request("POST", "/" + id + "/hint", null, 200);
+		String hinted = get(id, etag, 200);
+		assertNotEquals(etag, hinted);
+		request("POST", "/" + id + "/reset", null, 200);
+		assertNotEquals(hinted, get(id, hinted, 200));
+	}
+
+	private int valueAt(JsonNode response, int row, int column) {
+		int size = response.get("sudoku").get("size").asInt();
+		for (JsonNode cell : response.get("sudoku").get("grid")) {
+			if (cell.get("row").asInt() == row && cell.get("column").asInt() == column) {
+				return cell.get("value").asInt();
+			}
+		}
+		throw new AssertionError("no cell (" + row + "," + column + ") in a grid of size " + size);
+	}
+
+	/**
+	 * @return the ETag of the game.
+	 */
+	private String get(String id, String ifNoneMatch, int expected) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + "/" + id);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		if (ifNoneMatch != null) {
+			connection.setRequestProperty("If-None-Match", ifNoneMatch);
+		}
+		assertEquals(expected, connection.getResponseCode());
+		try (InputStream in = connection.getInputStream()) {
+			if (expected == 304) {
+				assertEquals(-1, in.read());
+			} else {
+				assertEquals(id, mapper.readTree(in).get("session").asText());
+			}
+		}
+		return connection.getHeaderField("ETag");
+	}
+
+	private JsonNode request(String method, String path, String body, int expected) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + SudokuServer.CONTEXT + path);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		assertEquals(expected, connection.getResponseCode());
+		if (expected == 204) {
+			return null;
+		}
+		try (InputStream in = expected < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			return mapper.readTree(in);
+		}
+	}
+}
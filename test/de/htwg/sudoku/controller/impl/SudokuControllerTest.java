@@ -1,5 +1,10 @@
 package de.htwg.sudoku.controller.impl;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -125,6 +130,112 @@ public class SudokuControllerTest {
 		controller4.solve();
 
 		assertEquals(GameStatus.SOLVE_FAIL,controller4.getStatus());
+		assertTrue(controller4.getStatusText().startsWith("contradiction at"));
 	}
 
-}
\ No newline at end of file
+    @Test
+    public void testIsCorrect() {
+        controller9.parseStringToGrid("..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..");
+        assertTrue(controller9.isCorrect(0, 0, 4));
+        assertFalse(controller9.isCorrect(0, 0, 5));
+        assertTrue(controller4.isCorrect(0, 0, 1));
+    }
+
+    @Test
+    public void testHint() {
+        controller9.parseStringToGrid("..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..");
+        controller9.hint();
+        assertEquals(GameStatus.HINT, controller9.getStatus());
+        assertTrue(controller9.getStatusText().contains(" by "));
+    }
+
+    @Test
+    public void testResumeFromJournal() throws IOException {
+        Path path = Files.createTempDirectory("session");
+        String directory = path.toString();
+        controller4.openJournal(directory);
+        controller4.parseStringToGrid("12..2...342..32.");
+        controller4.setValue(0, 2, 3);
+        controller4.setValue(0, 3, 4);
+        controller4.undo();
+        controller4.setValue(1, 1, 1);
+        String expected = controller4.getGridString();
+        controller4.closeJournal();
+
+        ISudokuController resumed = injector.getInstance(ISudokuController.class);
+        resumed.resetSize(9);
+        resumed.openJournal(directory);
+        assertEquals(GameStatus.RESUME, resumed.getStatus());
+        assertEquals(expected, resumed.getGridString());
+        assertTrue(resumed.isGiven(0, 0));
+        assertFalse(resumed.isGiven(1, 1));
+        // the history survives as well, the next resume starts from a snapshot
+        resumed.closeJournal();
+        resumed.openJournal(directory);
+        resumed.undo();
+        assertEquals(0, resumed.getValue(1, 1));
+        assertEquals(3, resumed.getValue(0, 2));
+        resumed.undo();
+        assertEquals(0, resumed.getValue(0, 2));
+        assertEquals(1, resumed.getValue(0, 0));
+        resumed.closeJournal();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(path);
+    }
+
+    @Test
+    public void testSaveAndLoadSession() throws IOException {
+        Path file = Files.createTempFile("session", ".session");
+        controller4.parseStringToGrid("12..2...342..32.");
+        controller4.setValue(0, 2, 3);
+        controller4.showCandidates(1, 1);
+        String expected = controller4.getGridString();
+        assertTrue(controller4.saveSession(file.toString()));
+
+        ISudokuController loaded = injector.getInstance(ISudokuController.class);
+        assertTrue(loaded.loadSession(file.toString()));
+        assertEquals(expected, loaded.getGridString());
+        assertEquals(GameStatus.SHOW_CANDIDATES, loaded.getStatus());
+        assertEquals(controller4.getStatusText(), loaded.getStatusText());
+        assertTrue(loaded.isShowCandidates(1, 1));
+        assertFalse(loaded.isShowCandidates(1, 2));
+        assertTrue(loaded.isGiven(0, 0));
+        loaded.undo();
+        assertEquals(0, loaded.getValue(0, 2));
+        Files.delete(file);
+        assertFalse(loaded.loadSession(file.toString()));
+        // a failed load leaves the session alone
+        assertEquals(2, loaded.getValue(0, 1));
+    }
+
+    @Test
+    public void testFailedJournalShowsInStatus() throws Exception {
+        Path session = Files.createTempFile("session", ".session");
+        assertTrue(controller4.saveSession(session.toString()));
+        Path directory = Files.createTempDirectory("journal");
+        controller4.openJournal(directory.toString());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        // the snapshot of the load fails in the background, a later move
+        // finds out
+        assertTrue(controller4.loadSession(session.toString()));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!controller4.getStatusText().contains("journal stopped")
+                && System.currentTimeMillis() < deadline) {
+            controller4.setValue(0, 0, 1);
+            controller4.undo();
+            Thread.sleep(10);
+        }
+        assertTrue(controller4.getStatusText(), controller4.getStatusText().contains("journal stopped"));
+        Files.delete(session);
+    }
+
+}
@@ -0,0 +1,141 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CanonicalizerTest {
+
+/* Fields */
+    private static final String PUZZLE =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+
+    private Canonicalizer canonicalizer;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        canonicalizer = new Canonicalizer();
+    }
+
+/* Tests */
+    @Test
+    public void testEquivalentGridsHaveTheSameForm() {
+        int[] puzzle = values(PUZZLE);
+        int[] form = canonicalizer.canonicalize(9, puzzle);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(form, canonicalizer.canonicalize(9, transform(puzzle, 9, random)));
+        }
+        assertArrayEquals(form, canonicalizer.canonicalize(9, form));
+    }
+
+    @Test
+    public void testSolvedGridsAreEquivalent() {
+        SplittableRandom random = new SplittableRandom(9);
+        SolvedGridGenerator generator = new SolvedGridGenerator();
+        int[] form = canonicalizer.canonicalize(9, generator.createSolution(9, random));
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(form, canonicalizer.canonicalize(9, generator.createSolution(9, random)));
+        }
+        assertEquals(1, form[0]);
+    }
+
+    @Test
+    public void testDifferentGridsHaveDifferentForms() {
+        int[] puzzle = values(PUZZLE);
+        int[] other = puzzle.clone();
+        other[2] = 0;
+        assertFalse(Arrays.equals(canonicalizer.canonicalize(9, puzzle), canonicalizer.canonicalize(9, other)));
+    }
+
+    @Test
+    public void testSmallGrids() {
+        Grid grid = new Grid(4);
+        grid.parseStringToGrid("1...........3..4");
+        String form = canonicalizer.canonicalString(grid);
+        assertEquals(16, form.length());
+        int[] values = canonicalizer.canonicalize(grid);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(values, canonicalizer.canonicalize(4, transform(values, 4, random)));
+        }
+        assertEquals(".", canonicalizer.canonicalString(new Grid(1)));
+    }
+
+    @Test
+    public void testHash() {
+        int[] form = canonicalizer.canonicalize(9, values(PUZZLE));
+        assertEquals(Canonicalizer.hash(form), Canonicalizer.hash(form.clone()));
+        int[] other = form.clone();
+        other[80] = 9 - other[80];
+        assertNotEquals(Canonicalizer.hash(form), Canonicalizer.hash(other));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLargeGrid() {
+        canonicalizer.canonicalize(new Grid(16));
+    }
+
+    /**
+     * applies a random symmetry: relabelling, band, stack, row and column
+     * permutations and maybe a transposition.
+     */
+    static int[] transform(int[] values, int size, SplittableRandom random) {
+        int blockSize = Grid.blocksPerEdge(size);
+        int[] rows = lineOrder(blockSize, random);
+        int[] columns = lineOrder(blockSize, random);
+        int[] label = permutation(size + 1, random, 1);
+        boolean transpose = random.nextBoolean();
+        int[] result = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                int value = values[rows[row] * size + columns[column]];
+                result[transpose ? column * size + row : row * size + column] = label[value];
+            }
+        }
+        return result;
+    }
+
+    private static int[] lineOrder(int blockSize, SplittableRandom random) {
+        int[] bands = permutation(blockSize, random, 0);
+        int[] order = new int[blockSize * blockSize];
+        for (int band = 0; band < blockSize; band++) {
+            int[] lines = permutation(blockSize, random, 0);
+            for (int line = 0; line < blockSize; line++) {
+                order[band * blockSize + line] = bands[band] * blockSize + lines[line];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return a permutation of 0 .. length - 1 that keeps the first fixed
+     *         elements in place.
+     */
+    private static int[] permutation(int length, SplittableRandom random, int fixed) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i;
+        }
+        for (int i = length - 1; i > fixed; i--) {
+            int j = fixed + random.nextInt(i - fixed + 1);
+            int swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    private static int[] values(String puzzle) {
+        int[] values = new int[puzzle.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = puzzle.charAt(i) == '.' ? 0 : puzzle.charAt(i) - '0';
+        }
+        return values;
+    }
+}
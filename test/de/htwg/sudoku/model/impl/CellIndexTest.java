@@ -0,0 +1,71 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CellIndexTest {
+
+/* Fields */
+    private Grid grid4;
+    private CellIndex index;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        grid4 = new Grid(4);
+        index = grid4.getCellIndex();
+    }
+
+/* Tests */
+    @Test
+    public void testEmptyGrid() {
+        assertEquals(16, index.countUnsetCells());
+        assertEquals(0, index.countSetCells());
+        assertEquals(16, index.getUnsetCells().length);
+        assertEquals(0, index.getSetCells().length);
+    }
+
+    @Test
+    public void testFollowsCellValues() {
+        grid4.setCell(1, 2, 3);
+        assertEquals(15, index.countUnsetCells());
+        assertEquals(1, index.countSetCells());
+        assertSame(grid4.getCell(1, 2), index.getSetCell(0));
+
+        grid4.setCell(1, 2, 4);
+        assertEquals(1, index.countSetCells());
+
+        grid4.setCell(1, 2, 0);
+        assertEquals(16, index.countUnsetCells());
+        assertEquals(0, index.countSetCells());
+    }
+
+    @Test
+    public void testRandomCells() {
+        SplittableRandom random = new SplittableRandom(1);
+        grid4.setCell(0, 0, 1);
+        grid4.setCell(3, 3, 1);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(index.getRandomUnsetCell(random).isUnSet());
+            assertTrue(index.getRandomSetCell(random).isSet());
+        }
+    }
+
+    @Test
+    public void testPartitionsAllCells() {
+        grid4.parseStringToGrid("12..34..........");
+        assertEquals(4, index.countSetCells());
+        for (Cell cell : index.getSetCells()) {
+            assertTrue(cell.isSet());
+        }
+        for (Cell cell : index.getUnsetCells()) {
+            assertTrue(cell.isUnSet());
+        }
+        grid4.reset();
+        assertEquals(16, index.countUnsetCells());
+    }
+}
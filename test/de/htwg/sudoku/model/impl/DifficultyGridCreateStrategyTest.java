@@ -0,0 +1,116 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+public class DifficultyGridCreateStrategyTest {
+
+/* Fields */
+    private static final String PUZZLE =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+
+/* Tests */
+    @Test
+    public void testSinglesRater() {
+        SinglesRater rater = new SinglesRater();
+        Grid grid = new Grid(9);
+        grid.parseStringToGrid(PUZZLE);
+        int rating = rater.rate(new Board(grid));
+        assertTrue(rating == SinglesRater.HIDDEN_SINGLE || rating == SinglesRater.NAKED_SINGLE);
+
+        grid.solve();
+        assertEquals(0, rater.rate(new Board(grid)));
+
+        assertEquals(DifficultyRater.UNSOLVABLE, rater.rate(new Board(new Grid(9))));
+    }
+
+    @Test
+    public void testCountSolutions() {
+        Board empty = new Board(new Grid(4));
+        BacktrackingSearch search = new BacktrackingSearch(empty,
+                CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, 1);
+        assertEquals(2, search.countSolutions(2));
+        assertEquals(288, search.countSolutions(1000));
+        assertEquals(0, empty.getValue(0));
+
+        Grid grid = new Grid(9);
+        grid.parseStringToGrid(PUZZLE);
+        search = new BacktrackingSearch(new Board(grid), CellOrder.ROW_MAJOR, ValueOrder.RANDOM, 1);
+        assertEquals(1, search.countSolutions(2));
+    }
+
+    @Test
+    public void testCreatesPuzzlesInBand() {
+        for (int target : new int[] { SinglesRater.HIDDEN_SINGLE, SinglesRater.NAKED_SINGLE }) {
+            DifficultyGridCreateStrategy strategy = new DifficultyGridCreateStrategy(target, target);
+            for (long seed = 0; seed < 5; seed++) {
+                Grid grid = new Grid(9);
+                strategy.createNewGrid(grid, seed);
+                assertEquals(target, strategy.getRating());
+                assertEquals(target, new SinglesRater().rate(new Board(grid)));
+                BacktrackingSearch search = new BacktrackingSearch(new Board(grid),
+                        CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, seed);
+                assertEquals(1, search.countSolutions(2));
+            }
+        }
+    }
+
+    @Test
+    public void testCreateIsReproducibleFromSeed() {
+        DifficultyGridCreateStrategy strategy = new DifficultyGridCreateStrategy(
+                SinglesRater.NAKED_SINGLE, SinglesRater.NAKED_SINGLE);
+        Grid first = new Grid(9);
+        Grid second = new Grid(9);
+        strategy.createNewGrid(first, 42);
+        strategy.createNewGrid(second, 42);
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void testBandUpToUnsolvableStaysUnique() {
+        DifficultyGridCreateStrategy strategy = new DifficultyGridCreateStrategy(0, DifficultyRater.UNSOLVABLE,
+                board -> DifficultyRater.UNSOLVABLE);
+        Grid grid = new Grid(9);
+        strategy.createNewGrid(grid, 3);
+        BacktrackingSearch search = new BacktrackingSearch(new Board(grid),
+                CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, 3);
+        assertEquals(1, search.countSolutions(2));
+    }
+
+    @Test
+    public void testHopelessAttemptIsAbandoned() {
+        int[] ratings = new int[1];
+        // never reaches the band, however many clues are removed
+        DifficultyGridCreateStrategy strategy = new DifficultyGridCreateStrategy(1, 1, board -> {
+            ratings[0]++;
+            return 0;
+        }) {
+            @Override
+            int ratingBudget() {
+                return 10;
+            }
+        };
+        Grid grid = new Grid(9);
+        strategy.createNewGrid(grid, 7);
+        assertEquals(DifficultyGridCreateStrategy.MAX_ATTEMPTS, strategy.getAttempts());
+        assertEquals(0, strategy.getRating());
+        // the first rating of an attempt, the budget and the rest of the last
+        // sample; a whole descent would take about ten times as many
+        int perAttempt = 1 + 10 + DifficultyGridCreateStrategy.SAMPLE_SIZE - 1;
+        assertTrue(ratings[0] + " ratings", ratings[0] <= DifficultyGridCreateStrategy.MAX_ATTEMPTS * perAttempt);
+        int clues = 0;
+        for (int index = 0; index < 81; index++) {
+            clues += grid.getCell(index / 9, index % 9).isSet() ? 1 : 0;
+        }
+        assertTrue(clues + " clues", clues >= 81 - 2 * perAttempt);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyBand() {
+        new DifficultyGridCreateStrategy(2, 1);
+    }
+}
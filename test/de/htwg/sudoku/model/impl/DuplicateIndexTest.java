@@ -0,0 +1,31 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.htwg.util.bloomfilter.BloomFilter;
+
+public class DuplicateIndexTest {
+
+/* Tests */
+    @Test
+    public void testRejectsEquivalentPuzzles() {
+        for (DuplicateIndex index : new DuplicateIndex[] { new DuplicateIndex(),
+                new DuplicateIndex(new BloomFilter(1000, 0.001)) }) {
+            Grid first = new Grid(9);
+            first.parseStringToGrid("..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..");
+            Grid mirrored = new Grid(9);
+            for (int row = 0; row < 9; row++) {
+                for (int column = 0; column < 9; column++) {
+                    mirrored.setCell(column, row, first.getCell(row, column).getValue());
+                }
+            }
+            assertTrue(index.add(first));
+            assertFalse(index.add(mirrored));
+            assertTrue(index.add(new Grid(9)));
+            assertTrue(index.add(new Grid(4)));
+            assertEquals(1, index.getDuplicates());
+        }
+    }
+}
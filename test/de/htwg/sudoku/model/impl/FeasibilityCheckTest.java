@@ -0,0 +1,86 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.FeasibilityCheck.Reason;
+
+public class FeasibilityCheckTest {
+
+/* Fields */
+    private Grid grid4, grid9;
+    private FeasibilityCheck check;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        grid4 = new Grid(4);
+        grid9 = new Grid(9);
+        check = new FeasibilityCheck();
+    }
+
+/* Tests */
+    @Test
+    public void testEmptyGrid() {
+        assertTrue(check.check(grid9));
+        assertEquals(Reason.NONE, check.getReason());
+        assertTrue(check.getOffendingCells().isEmpty());
+        assertTrue(grid9.findContradiction().isEmpty());
+    }
+
+    @Test
+    public void testDuplicateValue() {
+        grid4.setCell(0, 0, 2);
+        grid4.setCell(3, 0, 2);
+        assertFalse(check.check(grid4));
+        assertEquals(Reason.DUPLICATE_VALUE, check.getReason());
+        assertEquals(2, check.getValue());
+        assertEquals(2, check.getOffendingCells().size());
+        assertTrue(check.getOffendingCells().contains(grid4.getCell(3, 0)));
+    }
+
+    @Test
+    public void testNoCandidates() {
+        grid4.setCell(0, 1, 1);
+        grid4.setCell(0, 2, 2);
+        grid4.setCell(1, 0, 3);
+        grid4.setCell(2, 0, 4);
+        assertFalse(check.check(grid4));
+        assertEquals(Reason.NO_CANDIDATES, check.getReason());
+        assertEquals(grid4.getCell(0, 0), check.getOffendingCells().get(0));
+    }
+
+    @Test
+    public void testNoPlaceForValue() {
+        // the first row has no place left for a 1
+        grid9.setCell(0, 8, 2);
+        grid9.setCell(1, 0, 1);
+        grid9.setCell(2, 4, 1);
+        grid9.setCell(3, 6, 1);
+        grid9.setCell(6, 7, 1);
+        assertFalse(check.check(grid9));
+        assertEquals(Reason.NO_PLACE_FOR_VALUE, check.getReason());
+        assertEquals(1, check.getValue());
+        assertEquals(8, check.getOffendingCells().size());
+        assertEquals(8, grid9.findContradiction().size());
+    }
+
+    @Test
+    public void testSolveFailsWithoutSearch() {
+        grid9.parseStringToGrid(
+                "11...............................................................................");
+        assertFalse(grid9.solve());
+        assertEquals(0, grid9.getSteps());
+        assertFalse(grid9.solve(2));
+        assertEquals(0, grid9.getSteps());
+    }
+
+    @Test
+    public void testDoesNotChangeGrid() {
+        grid4.parseStringToGrid("12..34..........");
+        assertTrue(check.check(grid4));
+        assertEquals(0, grid4.getCell(0, 2).getValue());
+    }
+}
@@ -0,0 +1,113 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GridParserTest {
+
+/* Fields */
+    private static final String PUZZLE4 = "12..2...342..32.";
+
+    private GridParser parser4;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        parser4 = new GridParser(4);
+    }
+
+/* Tests */
+    @Test
+    public void testParseAllInputs() {
+        byte[] bytes = ("xx" + PUZZLE4).getBytes(StandardCharsets.US_ASCII);
+        assertTrue(parser4.parse(PUZZLE4));
+        assertTrue(parser4.parse(PUZZLE4.toCharArray(), 0, 16));
+        assertTrue(parser4.parse(bytes, 2, 16));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(2);
+        assertTrue(parser4.parse(buffer));
+        assertEquals(2, buffer.position());
+        assertEquals(1, parser4.getValue(0));
+        assertEquals(2, parser4.getValue(1));
+        assertEquals(0, parser4.getValue(2));
+        assertEquals(GridParser.Reason.NONE, parser4.getReason());
+    }
+
+    @Test
+    public void testSkipsLayout() {
+        Grid grid = new Grid(4);
+        assertTrue(grid.parseStringToGrid(PUZZLE4));
+        assertTrue(parser4.parse(grid.toString(".")));
+        assertTrue(parser4.parse(grid.toString("0")));
+        assertEquals(16, parser4.getCellCount());
+    }
+
+    @Test
+    public void testTooFewCells() {
+        assertFalse(parser4.parse("123"));
+        assertEquals(GridParser.Reason.TOO_FEW_CELLS, parser4.getReason());
+        assertEquals(3, parser4.getCellCount());
+        assertEquals(3, parser4.getPosition());
+        assertEquals("only 3 of 16 cells", parser4.getErrorMessage());
+    }
+
+    @Test
+    public void testTooManyCells() {
+        assertFalse(parser4.parse(PUZZLE4 + " | 1"));
+        assertEquals(GridParser.Reason.TOO_MANY_CELLS, parser4.getReason());
+        assertEquals(19, parser4.getPosition());
+    }
+
+    @Test
+    public void testValueOutOfRange() {
+        assertFalse(parser4.parse("12.5"));
+        assertEquals(GridParser.Reason.VALUE_OUT_OF_RANGE, parser4.getReason());
+        assertEquals(3, parser4.getPosition());
+        assertEquals(5, parser4.getValue());
+        assertFalse(parser4.parse("nogridhere"));
+        assertEquals(0, parser4.getPosition());
+    }
+
+    @Test
+    public void testSymbols() {
+        assertEquals('9', GridParser.symbolOf(9));
+        assertEquals('A', GridParser.symbolOf(10));
+        assertEquals('P', GridParser.symbolOf(25));
+        for (int value = 1; value <= 25; value++) {
+            assertEquals(value, GridParser.valueOf(GridParser.symbolOf(value)));
+        }
+        assertEquals(16, GridParser.valueOf('g'));
+        assertEquals(-1, GridParser.valueOf('|'));
+    }
+
+    @Test
+    public void testRoundTripOfLargeGrid() {
+        Grid grid = new Grid(16);
+        new SolvedGridGenerator().fill(grid, new SplittableRandom(7));
+        grid.getCell(0, 0).setValue(0);
+        Grid copy = new Grid(16);
+        assertTrue(copy.parseStringToGrid(grid.toString(".")));
+        for (int row = 0; row < 16; row++) {
+            for (int column = 0; column < 16; column++) {
+                assertEquals(grid.getCell(row, column).getValue(), copy.getCell(row, column).getValue());
+            }
+        }
+        assertFalse(copy.getCell(0, 0).isGiven());
+        assertTrue(copy.getCell(0, 1).isGiven());
+    }
+
+    @Test
+    public void testFailedParseKeepsGrid() {
+        Grid grid = new Grid(4);
+        assertTrue(grid.parseStringToGrid(PUZZLE4));
+        assertFalse(grid.parseStringToGrid("4321"));
+        assertEquals(GridParser.Reason.TOO_FEW_CELLS, grid.getParser().getReason());
+        assertEquals(1, grid.getCell(0, 0).getValue());
+    }
+}
@@ -3,11 +3,15 @@ package de.htwg.sudoku.model.impl;
 import static org.junit.Assert.*;
 
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.BitSet;
 
+import de.htwg.sudoku.model.Hint;
+import de.htwg.sudoku.model.SolveMode;
+
 public class GridTest {
 
 /* Fields */
@@ -22,6 +26,12 @@ public class GridTest {
         grid9 = new Grid(9);
     }
 
+    @After
+    public void tearDown() {
+        // other tests create puzzles in parallel, they need a strategy each
+        GridCreateStrategyFactory.setStrategies(RemovePairsGridCreateStrategy::new);
+    }
+
 /* Tests */
     @Test(expected = IllegalArgumentException.class)
     public void testGridArgumentTooSmall() {
@@ -274,6 +284,32 @@ public class GridTest {
         assertTrue(grid9.isSolved());
     }
 
+    @Test
+    public void testIsValid() {
+        assertTrue(grid4.isValid());
+        assertTrue(grid4.getConflictingCells().isEmpty());
+        grid4.setCell(0, 0, 1);
+        grid4.setCell(1, 1, 1);
+        assertFalse(grid4.isValid());
+        assertEquals(2, grid4.getConflictingCells().size());
+        assertTrue(grid4.getConflictingCells().contains(grid4.getCell(1, 1)));
+        grid4.setCell(1, 1, 2);
+        assertTrue(grid4.isValid());
+        assertTrue(grid4.getConflictingCells().isEmpty());
+    }
+
+    @Test
+    public void testIsSolvedNeedsValidGrid() {
+        assertTrue(grid4.parseStringToGrid("1234123412341234"));
+        assertFalse(grid4.isSolved());
+        assertEquals(0, grid4.countUnsetCells());
+        assertTrue(grid4.parseStringToGrid("1234341221434321"));
+        assertTrue(grid4.isSolved());
+        grid4.setCell(3, 3, 0);
+        assertFalse(grid4.isSolved());
+        assertEquals(1, grid4.countUnsetCells());
+    }
+
     @Test
     public void testSolve2() {
         assertFalse(grid1.solve(2));
@@ -321,6 +357,22 @@ public class GridTest {
     }
     
     
+    @Test
+    public void testEveryGridHasItsOwnStrategy() {
+        final int[] created = new int[1];
+        GridCreateStrategyFactory.setStrategies(() -> {
+            created[0]++;
+            return new RemovePairsGridCreateStrategy();
+        });
+        assertEquals(0, created[0]);
+        grid4.create();
+        assertEquals(1, created[0]);
+        Grid other = new Grid(4);
+        other.create();
+        assertTrue(grid4.createStrategy instanceof RemovePairsGridCreateStrategy);
+        assertNotSame(grid4.createStrategy, other.createStrategy);
+    }
+
     @Test
     public void testRandomGridCreateStrategy(){
     	GridCreateStrategyFactory.setStrategy(new RandomGridCreateStrategy());
@@ -334,6 +386,94 @@ public class GridTest {
     	grid9.create();
     }
     
+    @Test
+    public void testCreateIsReproducibleFromSeed() {
+        Grid other9 = new Grid(9);
+        other9.setCell(4, 4, 5);
+        new RemovePairsGridCreateStrategy().createNewGrid(grid9, 4711L);
+        new RemovePairsGridCreateStrategy().createNewGrid(other9, 4711L);
+        assertEquals(grid9.toString("."), other9.toString("."));
+
+        new RandomGridCreateStrategy().createNewGrid(grid4, 17L);
+        Grid other4 = new Grid(4);
+        new RandomGridCreateStrategy().createNewGrid(other4, 17L);
+        assertEquals(grid4.toString("."), other4.toString("."));
+    }
+
+    @Test
+    public void testSolutionIsCachedAtCreation() {
+        new RemovePairsGridCreateStrategy().createNewGrid(grid9, 8);
+        Grid solved = new Grid(9);
+        new Board(grid9).writeTo(solved);
+        assertTrue(solved.solve());
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                assertEquals(solved.getCell(row, column).getValue(), grid9.getSolutionValue(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void testSolutionIsInvalidatedByGivens() {
+        grid9.parseStringToGrid("..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..");
+        assertEquals(4, grid9.getSolutionValue(0, 0));
+        // a value of the player keeps the solution
+        grid9.getCell(0, 1).setValue(1);
+        assertEquals(4, grid9.getSolutionValue(0, 0));
+        // removing the givens of the first band makes it ambiguous
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 9; column++) {
+                grid9.getCell(row, column).setGiven(false);
+            }
+        }
+        assertEquals(0, grid9.getSolutionValue(0, 0));
+        assertEquals(0, grid4.getSolutionValue(0, 0));
+    }
+
+    @Test
+    public void testHint() {
+        grid9.parseStringToGrid("..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..");
+        Hint hint = grid9.getHint();
+        assertNotNull(hint);
+        assertEquals(grid9.getSolutionValue(hint.getRow(), hint.getColumn()), hint.getValue());
+        assertNotEquals(Hint.SOLUTION, hint.getTechnique());
+        assertTrue(hint.mkString().contains(" by "));
+
+        // a wrong value of the player makes the solver useless, the solution helps
+        grid9.getCell(0, 0).setValue(5);
+        hint = grid9.getHint();
+        assertNotNull(hint);
+        assertEquals(grid9.getSolutionValue(hint.getRow(), hint.getColumn()), hint.getValue());
+
+        grid9.getCell(0, 0).setValue(0);
+        assertTrue(grid9.solve());
+        assertNull(grid9.getHint());
+    }
+
+    @Test
+    public void testHintIsKeptUntilChange() {
+        String puzzle = "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+        grid9.parseStringToGrid(puzzle);
+        Hint hint = grid9.getHint();
+        assertSame(hint, grid9.getHint());
+        // the board follows the values, through a conflict and back
+        grid9.getCell(0, 0).setValue(4);
+        grid9.getCell(0, 0).setValue(3);
+        assertFalse(grid9.isValid());
+        grid9.getHint();
+        grid9.getCell(0, 0).setValue(0);
+        grid9.getCell(0, 1).setValue(grid9.getSolutionValue(0, 1));
+        grid9.getCell(0, 1).setValue(0);
+        Grid fresh = new Grid(9);
+        fresh.parseStringToGrid(puzzle);
+        Hint expected = fresh.getHint();
+        hint = grid9.getHint();
+        assertEquals(expected.getRow(), hint.getRow());
+        assertEquals(expected.getColumn(), hint.getColumn());
+        assertEquals(expected.getValue(), hint.getValue());
+        assertEquals(expected.getTechnique(), hint.getTechnique());
+    }
+
     @Test
     public void testToJson() {
     	String json1 = grid1.toJson();
@@ -344,6 +484,57 @@ public class GridTest {
 
     }
 
+    @Test
+    public void testVersion() {
+        long version = grid4.getVersion();
+        grid4.getCell(0, 0).setValue(1);
+        assertTrue(grid4.getVersion() > version);
+        version = grid4.getVersion();
+        grid4.getCell(0, 0).setGiven(true);
+        assertTrue(grid4.getVersion() > version);
+        version = grid4.getVersion();
+        grid4.getCell(1, 1).toggleShowCandidates();
+        assertTrue(grid4.getVersion() > version);
+        version = grid4.getVersion();
+        grid4.getCell(1, 1).setShowCandidates(true);
+        grid4.toString();
+        assertEquals(version, grid4.getVersion());
+        // a newer grid starts above the older ones
+        assertTrue(new Grid(4).getVersion() > grid4.getVersion());
+    }
+
+    @Test
+    public void testRenderingsAreCachedUntilChange() {
+        String text = grid4.toString();
+        String dots = grid4.toString(".");
+        String json = grid4.toJson();
+        assertSame(text, grid4.toString());
+        assertSame(dots, grid4.toString("."));
+        assertSame(json, grid4.toJson());
+        assertTrue(dots.contains("."));
+
+        grid4.getCell(0, 0).setValue(2);
+        assertNotSame(text, grid4.toString());
+        assertTrue(grid4.toString(".").contains("2"));
+        assertNotEquals(json, grid4.toJson());
+        grid4.getCell(0, 0).setValue(0);
+        assertEquals(text, grid4.toString());
+    }
+
+    @Test
+    public void testFeasibilityIsCheckedOncePerVersion() {
+        FeasibilityCheck check = grid4.feasibility();
+        assertTrue(grid4.findContradiction().isEmpty());
+        assertSame(check, grid4.feasibility());
+        grid4.getCell(0, 0).setValue(1);
+        grid4.getCell(0, 1).setValue(1);
+        assertNotSame(check, grid4.feasibility());
+        assertEquals(2, grid4.findContradiction().size());
+        assertFalse(grid4.solve(SolveMode.SAT));
+        grid4.getCell(0, 1).setValue(0);
+        assertTrue(grid4.solve(SolveMode.SAT));
+    }
+
 
     /* Methods */
     private boolean assertReachAllCells(Grid grid) {
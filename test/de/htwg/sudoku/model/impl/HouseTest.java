@@ -103,4 +103,42 @@ public class HouseTest {
 
     }
 
+    @Test
+    public void testCountUnsetCells() {
+        assertEquals(4,house4.countUnsetCells());
+        house4.getCell(0).setValue(1);
+        assertEquals(3,house4.countUnsetCells());
+        house4.getCell(0).setValue(0);
+        assertEquals(4,house4.countUnsetCells());
+    }
+
+    @Test
+    public void testConflicts() {
+        assertEquals(0,house4.getConflicts());
+        house4.getCell(0).setValue(1);
+        house4.getCell(1).setValue(1);
+        assertEquals(1,house4.getConflicts());
+        assertEquals(2,house4.countValue(1));
+        assertTrue(house4.getCell(0).isConflicting());
+        house4.getCell(2).setValue(1);
+        assertEquals(2,house4.getConflicts());
+        house4.getCell(1).setValue(2);
+        house4.getCell(2).setValue(3);
+        assertEquals(0,house4.getConflicts());
+        assertFalse(house4.getCell(0).isConflicting());
+    }
+
+    @Test
+    public void testSetCellUpdatesCounters() {
+        Cell cell = new Cell(0,0);
+        cell.setValue(2);
+        house2.setCell(0,cell);
+        assertEquals(1,house2.countSetCells());
+        assertEquals(1,house2.countValue(2));
+        house2.setCell(0,new Cell(0,0));
+        assertEquals(0,house2.countSetCells());
+        cell.setValue(1);
+        assertEquals(0,house2.countValue(1));
+    }
+
 }
\ No newline at end of file
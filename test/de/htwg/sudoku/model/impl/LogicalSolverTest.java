@@ -0,0 +1,114 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.LogicalSolver.Technique;
+
+public class LogicalSolverTest {
+
+/* Fields */
+    private static final String EASY =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String HARDEST =
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+    private LogicalSolver solver;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        solver = new LogicalSolver();
+    }
+
+/* Tests */
+    @Test
+    public void testSolvesEasyPuzzle() {
+        Grid grid = grid(EASY);
+        assertTrue(solver.solve(new Board(grid)));
+        assertTrue(solver.getRating() <= Technique.NAKED_SINGLE.getWeight());
+        assertEquals(new SinglesRater().rate(new Board(grid)), solver.getRating());
+        assertTrue(solver.getHistogram().containsKey(Technique.HIDDEN_SINGLE));
+        assertEquals(0, solver.getCount(Technique.CHAIN));
+        grid.solve();
+        for (int index = 0; index < 81; index++) {
+            assertEquals(grid.getCell(index / 9, index % 9).getValue(), solver.getValue(index));
+        }
+    }
+
+    @Test
+    public void testRatesSolvedAndBrokenGrids() {
+        Grid grid = grid(EASY);
+        grid.solve();
+        assertEquals(0, solver.rate(new Board(grid)));
+        assertTrue(solver.getHistogram().isEmpty());
+
+        grid = new Grid(4);
+        grid.setCell(0, 0, 1);
+        grid.setCell(0, 1, 1);
+        assertEquals(DifficultyRater.UNSOLVABLE, solver.rate(new Board(grid)));
+        assertFalse(solver.isSolved());
+    }
+
+    @Test
+    public void testNeedsGuessing() {
+        Grid grid = grid(HARDEST);
+        assertEquals(DifficultyRater.UNSOLVABLE, solver.rate(new Board(grid)));
+        assertPlacedValuesAreCorrect(grid);
+    }
+
+    @Test
+    public void testTechniquesAreSound() {
+        RemovePairsGridCreateStrategy strategy = new RemovePairsGridCreateStrategy();
+        int advanced = 0;
+        for (long seed = 0; seed < 60; seed++) {
+            Grid grid = new Grid(9);
+            strategy.createNewGrid(grid, seed);
+            solver.rate(new Board(grid));
+            assertPlacedValuesAreCorrect(grid);
+            for (Map.Entry<Technique, Integer> entry : solver.getHistogram().entrySet()) {
+                if (entry.getKey().getWeight() > Technique.NAKED_SINGLE.getWeight()) {
+                    advanced += entry.getValue();
+                }
+            }
+        }
+        assertTrue(advanced > 0);
+    }
+
+    @Test
+    public void testOtherSizes() {
+        for (int size : new int[] { 1, 4, 16 }) {
+            Grid grid = new Grid(size);
+            new RemovePairsGridCreateStrategy().createNewGrid(grid, 7);
+            assertNotEquals(DifficultyRater.UNSOLVABLE, solver.rate(new Board(grid)));
+            assertPlacedValuesAreCorrect(grid);
+        }
+    }
+
+    /**
+     * every value the solver placed must be the value of the unique solution.
+     */
+    private void assertPlacedValuesAreCorrect(Grid puzzle) {
+        int size = puzzle.getSize();
+        Board board = new Board(puzzle);
+        Grid solution = new Grid(size);
+        board.writeTo(solution);
+        assertTrue(solution.solve());
+        for (int index = 0; index < size * size; index++) {
+            int value = solver.getValue(index);
+            if (value != 0) {
+                assertEquals(solution.getCell(index / size, index % size).getValue(), value);
+            }
+        }
+    }
+
+    private static Grid grid(String puzzle) {
+        Grid grid = new Grid(9);
+        grid.parseStringToGrid(puzzle);
+        return grid;
+    }
+}
@@ -0,0 +1,77 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+public class MaskGridCreateStrategyTest {
+
+/* Fields */
+    private static final String DIAMOND =
+              "....x...."
+            + "...x.x..."
+            + "..x.x.x.."
+            + ".x.x.x.x."
+            + "x.x...x.x"
+            + ".x.x.x.x."
+            + "..x.x.x.."
+            + "...x.x..."
+            + "....x....";
+
+/* Tests */
+    @Test
+    public void testParseMask() {
+        boolean[][] mask = MaskGridCreateStrategy.parseMask("x... .x.. ..x. ...x");
+        assertEquals(4, mask.length);
+        assertTrue(mask[2][2]);
+        assertFalse(mask[2][3]);
+        assertEquals(4, new MaskGridCreateStrategy(mask, 1, 100).countClues());
+    }
+
+    @Test
+    public void testGivensFollowMask() {
+        boolean[][] mask = MaskGridCreateStrategy.parseMask(DIAMOND);
+        MaskGridCreateStrategy strategy = new MaskGridCreateStrategy(mask, 2, 1000000);
+        Grid grid = new Grid(9);
+        strategy.createNewGrid(grid, 3);
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                assertEquals(mask[row][column], grid.getCell(row, column).isSet());
+                assertEquals(mask[row][column], grid.getCell(row, column).isGiven());
+            }
+        }
+        assertEquals(1, strategy.getSolutions());
+        BacktrackingSearch search = new BacktrackingSearch(new Board(grid),
+                CellOrder.MINIMUM_REMAINING_VALUES, ValueOrder.RANDOM, 0);
+        assertEquals(1, search.countSolutions(2));
+    }
+
+    @Test
+    public void testSeedReproducesPuzzle() {
+        boolean[][] mask = MaskGridCreateStrategy.parseMask(DIAMOND);
+        Grid first = new Grid(9);
+        new MaskGridCreateStrategy(mask, 3, 1000000).createNewGrid(first, 5);
+        Grid second = new Grid(9);
+        new MaskGridCreateStrategy(mask, 3, 1000000).createNewGrid(second, 5);
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void testBudgetKeepsBestPuzzle() {
+        boolean[][] mask = MaskGridCreateStrategy.parseMask("x..............x");
+        MaskGridCreateStrategy strategy = new MaskGridCreateStrategy(mask, 1, 0);
+        Grid grid = new Grid(4);
+        strategy.createNewGrid(grid, 1);
+        assertTrue(strategy.getSolutions() > 1);
+        assertTrue(grid.getCell(0, 0).isSet());
+        assertTrue(grid.getCell(3, 3).isSet());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaskMustFitGrid() {
+        new MaskGridCreateStrategy(new boolean[4][4], 1, 10).createNewGrid(new Grid(9));
+    }
+}
@@ -0,0 +1,77 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.model.SolveMode;
+
+public class PortfolioSolverTest {
+
+/* Fields */
+    private static final String PUZZLE =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private Grid grid4, grid9;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        grid4 = new Grid(4);
+        grid9 = new Grid(9);
+    }
+
+/* Tests */
+    @Test
+    public void testSolvePuzzle() {
+        grid9.parseStringToGrid(PUZZLE);
+        PortfolioSolver solver = new PortfolioSolver(42);
+        assertTrue(solver.solve(grid9));
+        assertTrue(grid9.isSolved());
+        assertTrue(solver.getSteps() > 0);
+        assertEquals(4, grid9.getCell(0, 0).getValue());
+        assertEquals(3, grid9.getCell(0, 2).getValue());
+        for (int row = 0; row < 9; row++) {
+            assertEquals(9, grid9.getRow(row).countSetCells());
+            assertEquals(0, grid9.getRow(row).candidates().cardinality());
+        }
+    }
+
+    @Test
+    public void testSolveFails() {
+        grid4.setCell(0, 0, 1);
+        grid4.setCell(1, 0, 1);
+        grid4.setCell(1, 1, 1);
+        assertFalse(new PortfolioSolver(1).solve(grid4));
+        assertEquals(0, grid4.getCell(0, 1).getValue());
+    }
+
+    @Test
+    public void testSolveWithMode() {
+        assertTrue(grid4.solve(SolveMode.PORTFOLIO));
+        assertTrue(grid4.isSolved());
+        assertTrue(grid9.solve(SolveMode.PORTFOLIO));
+        assertTrue(grid9.isSolved());
+        assertTrue(grid9.getSteps() > 0);
+    }
+
+    @Test
+    public void testPortfolioUsesCopies() {
+        Board board = new Board(grid9);
+        for (BacktrackingSearch search : new PortfolioSolver(7).portfolio(board)) {
+            assertNotSame(board, search.getBoard());
+        }
+    }
+
+    @Test
+    public void testConfigurationsAreDistinct() {
+        Set<String> configurations = new HashSet<String>();
+        for (BacktrackingSearch search : new PortfolioSolver(7).portfolio(new Board(grid9))) {
+            assertTrue(configurations.add(search.getCellOrder() + " " + search.getValueOrder()));
+        }
+        assertEquals(4, configurations.size());
+    }
+}
@@ -0,0 +1,107 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PuzzleCatalogTest {
+
+/* Fields */
+    private PuzzleCatalog catalog;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        catalog = new PuzzleCatalog(2);
+        for (long seed = 0; seed < 20; seed++) {
+            catalog.add(4, GridCreateStrategyType.REMOVE_PAIRS, seed);
+        }
+    }
+
+/* Tests */
+    @Test
+    public void testAdd() {
+        assertEquals(20, catalog.size());
+        assertEquals(PuzzleId.encode(4, GridCreateStrategyType.REMOVE_PAIRS, 7), catalog.getId(7));
+        assertEquals(20, catalog.getIds().length);
+    }
+
+    @Test
+    public void testGetMaterializesLazily() {
+        assertEquals(0, catalog.getCacheMisses());
+        Grid grid = catalog.get(3);
+        assertEquals(PuzzleId.createGrid(catalog.getId(3)).toString(), grid.toString());
+        assertTrue(grid.getCell(0, 0).isGiven() || !grid.getCell(0, 0).isSet());
+        assertEquals(1, catalog.getCacheMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        catalog.get(0);
+        catalog.get(1);
+        catalog.get(0);
+        assertEquals(2, catalog.getCacheMisses());
+        assertEquals(1, catalog.getCacheHits());
+        catalog.get(2);
+        catalog.get(0);
+        assertEquals(2, catalog.getCacheHits());
+        catalog.get(1);
+        assertEquals(4, catalog.getCacheMisses());
+    }
+
+    @Test
+    public void testGetReturnsCopies() {
+        Grid first = catalog.get(5);
+        first.reset();
+        assertEquals(catalog.get(5).toString(), PuzzleId.createGrid(catalog.getId(5)).toString());
+    }
+
+    @Test
+    public void testCopiesCarryTheSolution() {
+        Grid first = catalog.get(4);
+        assertNotNull(first.getSolution());
+        // a search would return a new array
+        assertSame(first.getSolution(), catalog.get(4).getSolution());
+        assertEquals(PuzzleId.createGrid(catalog.getId(4)).getSolutionValue(3, 3), first.getSolutionValue(3, 3));
+    }
+
+    @Test
+    public void testConcurrentGets() throws Exception {
+        final PuzzleCatalog shared = new PuzzleCatalog(20);
+        for (long seed = 0; seed < 20; seed++) {
+            shared.add(9, GridCreateStrategyType.REMOVE_PAIRS, seed);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> puzzles = new ArrayList<Future<String>>();
+            for (int i = 0; i < 40; i++) {
+                final int index = i % 20;
+                puzzles.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return shared.get(index).toString();
+                    }
+                }));
+            }
+            for (int i = 0; i < 40; i++) {
+                assertEquals(PuzzleId.createGrid(shared.getId(i % 20)).toString(), puzzles.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40, shared.getCacheHits() + shared.getCacheMisses());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIllegalIndex() {
+        catalog.get(20);
+    }
+}
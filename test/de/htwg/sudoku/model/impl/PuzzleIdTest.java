@@ -0,0 +1,48 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PuzzleIdTest {
+
+/* Tests */
+    @Test
+    public void testEncodeAndDecode() {
+        for (int size : new int[] { 1, 4, 9, 16, 25 }) {
+            for (GridCreateStrategyType type : GridCreateStrategyType.values()) {
+                for (long seed : new long[] { 0, 1, 123456789, PuzzleId.MAX_SEED }) {
+                    long id = PuzzleId.encode(size, type, seed);
+                    assertEquals(size, PuzzleId.sizeOf(id));
+                    assertEquals(type, PuzzleId.typeOf(id));
+                    assertEquals(seed, PuzzleId.seedOf(id));
+                    assertEquals(id, PuzzleId.parse(PuzzleId.toString(id)));
+                    assertEquals(16, PuzzleId.toString(id).length());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCreateGrid() {
+        long id = PuzzleId.encode(9, GridCreateStrategyType.REMOVE_PAIRS, 42);
+        Grid expected = new Grid(9);
+        new RemovePairsGridCreateStrategy().createNewGrid(expected, 42);
+        assertEquals(expected.toString(), PuzzleId.createGrid(id).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeedTooLarge() {
+        PuzzleId.encode(9, GridCreateStrategyType.RANDOM, PuzzleId.MAX_SEED + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalSize() {
+        PuzzleId.encode(36, GridCreateStrategyType.RANDOM, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseGarbage() {
+        PuzzleId.parse("sudoku");
+    }
+}
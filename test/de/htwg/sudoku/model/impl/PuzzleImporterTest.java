@@ -0,0 +1,144 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PuzzleImporterTest {
+
+/* Fields */
+    private static final String PUZZLE = "12..34..21..43..";
+    private static final String SOLUTION = "1234341221434321";
+
+    private PuzzleImporter importer;
+    private Path file;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        importer = new PuzzleImporter(4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (file != null) {
+            Files.delete(file);
+        }
+    }
+
+/* Tests */
+    @Test
+    public void testFormatOfExtension() {
+        assertEquals(PuzzleImporter.Format.SDM, PuzzleImporter.Format.of(Paths.get("a.SDM")));
+        assertEquals(PuzzleImporter.Format.SDK, PuzzleImporter.Format.of(Paths.get("a.sdk")));
+        assertEquals(PuzzleImporter.Format.CSV, PuzzleImporter.Format.of(Paths.get("a.csv")));
+        assertEquals(PuzzleImporter.Format.MULTI, PuzzleImporter.Format.of(Paths.get("a.txt")));
+    }
+
+    @Test
+    public void testReadSdm() {
+        List<ImportedPuzzle> puzzles = read("# comment\n" + PUZZLE + "\n\n12345\n" + PUZZLE.replace('.', '0') + "\n",
+                PuzzleImporter.Format.SDM);
+        assertEquals(2, puzzles.size());
+        assertEquals(PUZZLE, puzzles.get(0).toLine());
+        assertEquals(2, puzzles.get(0).getLine());
+        assertEquals(PUZZLE, puzzles.get(1).toLine());
+        assertEquals(5, puzzles.get(1).getLine());
+        assertNull(puzzles.get(0).getSolution());
+        assertEquals(1, importer.getSkipped());
+    }
+
+    @Test
+    public void testReadMulti() {
+        String text = "Grid 01\n12..\n34..\n21..\n43..\n"
+                + "[second]\n1 2 . .\n3 4 . .\n\n"
+                + "12..\n34..\n21..\n43..\n"
+                + "12..\n34..\n21..\n43..\n";
+        List<ImportedPuzzle> puzzles = read(text, PuzzleImporter.Format.MULTI);
+        assertEquals(3, puzzles.size());
+        assertEquals(2, puzzles.get(0).getLine());
+        assertEquals(10, puzzles.get(1).getLine());
+        assertEquals(14, puzzles.get(2).getLine());
+        for (ImportedPuzzle puzzle : puzzles) {
+            assertEquals(PUZZLE, puzzle.toLine());
+        }
+        // the second puzzle ends after two rows
+        assertEquals(1, importer.getSkipped());
+    }
+
+    @Test
+    public void testReadSdkTakesFirstPuzzle() {
+        List<ImportedPuzzle> puzzles = read("#A author\n12..\n34..\n21..\n43..\n\n" + SOLUTION + "\n",
+                PuzzleImporter.Format.SDK);
+        assertEquals(1, puzzles.size());
+        assertEquals(PUZZLE, puzzles.get(0).toLine());
+    }
+
+    @Test
+    public void testReadCsvWithSolution() {
+        String text = "quizzes,solutions\n" + PUZZLE + "," + SOLUTION + "\n"
+                + "7," + PUZZLE + "\n" + "bad,line\n";
+        List<ImportedPuzzle> puzzles = read(text, PuzzleImporter.Format.CSV);
+        assertEquals(2, puzzles.size());
+        assertArrayEquals(valuesOf(SOLUTION), puzzles.get(0).getSolution());
+        assertNull(puzzles.get(1).getSolution());
+        assertEquals(PUZZLE, puzzles.get(1).toLine());
+        assertEquals(1, importer.getSkipped());
+
+        Grid grid = new Grid(4);
+        puzzles.get(0).writeTo(grid);
+        assertTrue(grid.getCell(0, 0).isGiven());
+        assertEquals(3, grid.getSolutionValue(0, 2));
+        Board board = puzzles.get(0).toBoard();
+        assertEquals(2, board.getValue(1));
+        assertEquals(0, board.getValue(2));
+    }
+
+    @Test
+    public void testStreamIsLazy() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(PUZZLE + "\n" + PUZZLE + "\nrest\n"));
+        try (Stream<ImportedPuzzle> puzzles = importer.read(reader, PuzzleImporter.Format.SDM)) {
+            assertTrue(puzzles.findFirst().isPresent());
+            assertEquals(PUZZLE, reader.readLine());
+        }
+    }
+
+    @Test
+    public void testReadFileClosesOnClose() throws IOException {
+        file = Files.createTempFile("puzzles", ".sdm");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append(PUZZLE).append('\n');
+        }
+        Files.write(file, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+        try (Stream<ImportedPuzzle> puzzles = importer.read(file)) {
+            assertEquals(1000, puzzles.filter(p -> p.getValues()[0] == 1).count());
+        }
+        assertEquals(0, importer.getSkipped());
+    }
+
+    private static int[] valuesOf(String line) {
+        GridParser parser = new GridParser(4);
+        assertTrue(parser.parse(line));
+        return parser.getValues();
+    }
+
+    private List<ImportedPuzzle> read(String text, PuzzleImporter.Format format) {
+        try (Stream<ImportedPuzzle> puzzles = importer.read(new BufferedReader(new StringReader(text)), format)) {
+            return puzzles.collect(Collectors.toList());
+        }
+    }
+}
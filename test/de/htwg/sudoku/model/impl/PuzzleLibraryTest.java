@@ -0,0 +1,163 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PuzzleLibraryTest {
+
+/* Fields */
+    private static final int PUZZLES = 40;
+
+    private Path file;
+    private PuzzleLibrary library;
+    private List<int[]> puzzles = new ArrayList<int[]>();
+
+/* Setup */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("library", ".lib");
+        GridCreateStrategyTemplate strategy = new RemovePairsGridCreateStrategy();
+        try (PuzzleLibraryWriter writer = new PuzzleLibraryWriter(file, 9)) {
+            for (long seed = 0; writer.getCount() < PUZZLES; seed++) {
+                Grid grid = new Grid(9);
+                strategy.createNewGrid(grid, seed);
+                if (writer.add(grid)) {
+                    puzzles.add(valuesOf(grid));
+                }
+            }
+        }
+        library = new PuzzleLibrary(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        library.close();
+        Files.delete(file);
+    }
+
+/* Tests */
+    @Test
+    public void testRecordsRoundTrip() {
+        assertEquals(9, library.getSize());
+        assertEquals(PUZZLES, library.getCount());
+        for (int id = 0; id < PUZZLES; id++) {
+            assertArrayEquals(puzzles.get(id), library.getValues(id));
+            int clues = 0;
+            for (int value : puzzles.get(id)) {
+                clues += value == 0 ? 0 : 1;
+            }
+            assertEquals(clues, library.getClues(id));
+            assertTrue(library.getRating(id) >= LogicalSolver.Technique.HIDDEN_SINGLE.getWeight());
+        }
+    }
+
+    @Test
+    public void testFindMatchesScan() {
+        int minClues = library.getClues(0) - 1;
+        int maxClues = library.getClues(0) + 1;
+        int rating = library.getRating(0);
+        PuzzleLibrary.Query query = new PuzzleLibrary.Query().clues(minClues, maxClues).rating(rating, rating);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int id = 0; id < PUZZLES; id++) {
+            int clues = library.getClues(id);
+            if (minClues <= clues && clues <= maxClues && library.getRating(id) == rating) {
+                expected.add(id);
+            }
+        }
+        int[] found = library.find(query);
+        assertEquals(expected.size(), found.length);
+        for (int i = 0; i < found.length; i++) {
+            assertEquals((int) expected.get(i), found[i]);
+        }
+        assertEquals(0, library.find(new PuzzleLibrary.Query().clues(90, 100)).length);
+        assertEquals(PUZZLES, library.find(new PuzzleLibrary.Query()).length);
+    }
+
+    @Test
+    public void testSampleRespectsExclusion() {
+        BitSet served = new BitSet();
+        PuzzleLibrary.Query query = new PuzzleLibrary.Query().excluding(served);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < PUZZLES; i++) {
+            int id = library.sample(query, random);
+            assertTrue(id >= 0);
+            assertFalse(served.get(id));
+            served.set(id);
+        }
+        assertEquals(-1, library.sample(query, random));
+    }
+
+    @Test
+    public void testFindEquivalentPuzzle() {
+        int[] values = puzzles.get(5);
+        Grid transposed = new Grid(9);
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                transposed.getCell(column, row).setValue(values[row * 9 + column]);
+            }
+        }
+        assertEquals(5, library.find(transposed));
+        assertEquals(-1, library.find(new Grid(9)));
+        assertEquals(-1, library.find(new Grid(4)));
+    }
+
+    @Test
+    public void testStrategyDrawsFromLibrary() {
+        LibraryGridCreateStrategy strategy = new LibraryGridCreateStrategy(library);
+        BitSet seen = new BitSet();
+        for (int i = 0; i < PUZZLES; i++) {
+            Grid grid = new Grid(9);
+            strategy.createNewGrid(grid, i);
+            int id = strategy.getLastId();
+            assertFalse(seen.get(id));
+            seen.set(id);
+            assertEquals(id, library.find(grid));
+            assertEquals(library.getClues(id), 81 - grid.countUnsetCells());
+            assertArrayEquals(library.getValues(id), valuesOf(grid));
+        }
+        assertEquals(PUZZLES, strategy.countServed());
+        // the library is used up, the fallback generates a puzzle
+        Grid grid = new Grid(9);
+        strategy.createNewGrid(grid, 99);
+        assertEquals(-1, strategy.getLastId());
+        assertTrue(grid.countUnsetCells() > 0);
+    }
+
+    @Test
+    public void testStrategyKeepsExclusionsOfQuery() {
+        BitSet seen = new BitSet();
+        seen.set(0, PUZZLES - 1);
+        BitSet served = new BitSet();
+        LibraryGridCreateStrategy strategy = new LibraryGridCreateStrategy(library,
+                new PuzzleLibrary.Query().excluding(seen), new RemovePairsGridCreateStrategy(), served);
+        strategy.createNewGrid(new Grid(9), 1);
+        assertEquals(PUZZLES - 1, strategy.getLastId());
+        // a strategy of another grid shares what was served
+        LibraryGridCreateStrategy other = new LibraryGridCreateStrategy(library, served);
+        for (int i = 0; i < PUZZLES - 1; i++) {
+            other.createNewGrid(new Grid(9), i);
+            assertTrue(other.getLastId() < PUZZLES - 1);
+        }
+        other.createNewGrid(new Grid(9), 99);
+        assertEquals(-1, other.getLastId());
+    }
+
+    private static int[] valuesOf(Grid grid) {
+        int[] values = new int[81];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = grid.getCell(index / 9, index % 9).getValue();
+        }
+        return values;
+    }
+}
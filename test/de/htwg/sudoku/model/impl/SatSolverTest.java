@@ -0,0 +1,110 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.htwg.sudoku.model.SolveMode;
+
+public class SatSolverTest {
+
+/* Tests */
+    @Test
+    public void testLuby() {
+        int[] expected = { 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8 };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], SatSolver.luby(i));
+        }
+    }
+
+    @Test
+    public void testSatisfiable() {
+        SatSolver solver = new SatSolver(3);
+        solver.addClause(1, 2);
+        solver.addClause(-1, 3);
+        solver.addClause(-2, 3);
+        solver.addClause(-3, -1);
+        assertTrue(solver.solve());
+        assertTrue(solver.value(2));
+        assertTrue(solver.value(3));
+        assertFalse(solver.value(1));
+    }
+
+    @Test
+    public void testUnsatisfiable() {
+        SatSolver solver = new SatSolver(2);
+        solver.addClause(1, 2);
+        solver.addClause(-1, 2);
+        solver.addClause(1, -2);
+        solver.addClause(-1, -2);
+        assertFalse(solver.solve());
+
+        SatSolver empty = new SatSolver(1);
+        empty.addClause();
+        assertFalse(empty.solve());
+    }
+
+    @Test
+    public void testPigeonHole() {
+        // four pigeons do not fit into three holes
+        SatSolver solver = new SatSolver(12);
+        for (int pigeon = 0; pigeon < 4; pigeon++) {
+            solver.addClause(pigeon * 3 + 1, pigeon * 3 + 2, pigeon * 3 + 3);
+        }
+        for (int hole = 1; hole <= 3; hole++) {
+            for (int a = 0; a < 4; a++) {
+                for (int b = a + 1; b < 4; b++) {
+                    solver.addClause(-(a * 3 + hole), -(b * 3 + hole));
+                }
+            }
+        }
+        assertFalse(solver.solve());
+        assertTrue(solver.getConflicts() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVariable() {
+        new SatSolver(1).addClause(2);
+    }
+
+    @Test
+    public void testSolveGrid() {
+        Grid grid9 = new Grid(9);
+        grid9.parseStringToGrid(
+                "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..");
+        assertTrue(grid9.solve(SolveMode.SAT));
+        assertTrue(grid9.isSolved());
+        assertEquals(4, grid9.getCell(0, 0).getValue());
+    }
+
+    @Test
+    public void testSolveLargeGrid() {
+        Grid grid16 = new Grid(16);
+        assertTrue(grid16.solve(SolveMode.SAT));
+        assertTrue(grid16.isSolved());
+        for (int row = 0; row < 16; row++) {
+            assertEquals(0, grid16.getRow(row).candidates().cardinality());
+        }
+
+        Grid grid25 = new Grid(25);
+        grid25.setCell(0, 0, 25);
+        assertTrue(grid25.solve(SolveMode.SAT));
+        assertTrue(grid25.isSolved());
+        assertEquals(25, grid25.getCell(0, 0).getValue());
+    }
+
+    @Test
+    public void testSolveGridFails() {
+        Grid grid4 = new Grid(4);
+        grid4.setCell(0, 0, 1);
+        grid4.setCell(1, 0, 1);
+        assertFalse(grid4.solve(SolveMode.SAT));
+
+        grid4 = new Grid(4);
+        grid4.setCell(0, 0, 1);
+        grid4.setCell(1, 2, 1);
+        grid4.setCell(2, 1, 2);
+        grid4.setCell(2, 3, 3);
+        assertFalse(grid4.solve(SolveMode.SAT));
+    }
+}
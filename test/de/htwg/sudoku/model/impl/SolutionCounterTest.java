@@ -0,0 +1,103 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.BacktrackingSearch.CellOrder;
+import de.htwg.sudoku.model.impl.BacktrackingSearch.ValueOrder;
+
+public class SolutionCounterTest {
+
+/* Fields */
+    private static final String PUZZLE =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+
+    private SolutionCounter counter;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        counter = new SolutionCounter();
+    }
+
+/* Tests */
+    @Test
+    public void testEmptyGrids() {
+        assertEquals(BigInteger.ONE, counter.count(new Grid(1)));
+        assertEquals(BigInteger.valueOf(288), counter.count(new Grid(4)));
+        assertTrue(counter.isMemoized());
+    }
+
+    @Test
+    public void testPrefix() {
+        Grid grid = new Grid(4);
+        grid.parseStringToGrid("1234............");
+        assertEquals(BigInteger.valueOf(12), counter.count(grid));
+    }
+
+    @Test
+    public void testUniquePuzzle() {
+        Grid grid = new Grid(9);
+        grid.parseStringToGrid(PUZZLE);
+        assertEquals(BigInteger.ONE, counter.count(grid));
+        assertTrue(counter.isMemoized());
+        grid.solve();
+        grid.getCell(0, 0).setValue(0);
+        assertEquals(BigInteger.ONE, counter.count(grid));
+        assertFalse(counter.isMemoized());
+    }
+
+    @Test
+    public void testContradiction() {
+        Grid grid = new Grid(4);
+        grid.setCell(0, 0, 1);
+        grid.setCell(3, 0, 1);
+        assertEquals(BigInteger.ZERO, counter.count(grid));
+    }
+
+    @Test
+    public void testSparseGridsMatchEnumeration() {
+        Grid solution = new Grid(9);
+        new SolvedGridGenerator().fill(solution, new SplittableRandom(4));
+        Grid sparse = new Grid(9);
+        // keep every second cell but the first one, 40 clues
+        for (int index = 2; index < 81; index += 2) {
+            sparse.setCell(index / 9, index % 9, solution.getCell(index / 9, index % 9).getValue());
+        }
+        BigInteger counted = counter.count(sparse);
+        assertTrue(counter.isMemoized());
+        int enumerated = new BacktrackingSearch(new Board(sparse), CellOrder.MINIMUM_REMAINING_VALUES,
+                ValueOrder.RANDOM, 0).countSolutions(Integer.MAX_VALUE);
+        assertEquals(BigInteger.valueOf(enumerated), counted);
+        assertTrue(enumerated >= 1);
+    }
+
+    @Test
+    public void testManySolutionsAreNotEnumerated() {
+        Grid solution = new Grid(9);
+        new SolvedGridGenerator().fill(solution, new SplittableRandom(4));
+        Grid band = new Grid(9);
+        // the top band and the left stack, 45 clues
+        for (int index = 0; index < 81; index++) {
+            if (index / 9 < 3 || index % 9 < 3) {
+                band.setCell(index / 9, index % 9, solution.getCell(index / 9, index % 9).getValue());
+            }
+        }
+        BigInteger counted = counter.count(band);
+        assertTrue(counter.isMemoized());
+        assertTrue(counted.intValue() > SolutionCounter.ENUMERATION_LIMIT);
+        int enumerated = new BacktrackingSearch(new Board(band), CellOrder.MINIMUM_REMAINING_VALUES,
+                ValueOrder.RANDOM, 0).countSolutions(Integer.MAX_VALUE);
+        assertEquals(BigInteger.valueOf(enumerated), counted);
+    }
+
+    @Test
+    public void testGridCountSolutions() {
+        assertEquals(BigInteger.valueOf(288), new Grid(4).countSolutions());
+    }
+}
@@ -0,0 +1,62 @@
+package de.htwg.sudoku.model.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SolvedGridGeneratorTest {
+
+/* Fields */
+    private SolvedGridGenerator generator;
+
+/* Setup */
+    @Before
+    public void setUp() {
+        generator = new SolvedGridGenerator();
+    }
+
+/* Tests */
+    @Test
+    public void testCanonicalSolution() {
+        Grid grid4 = new Grid(4);
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                grid4.setCell(row, column, SolvedGridGenerator.canonicalValue(4, row, column));
+            }
+        }
+        assertTrue(grid4.isSolved());
+        assertEquals(1, SolvedGridGenerator.canonicalValue(9, 0, 0));
+        assertEquals(4, SolvedGridGenerator.canonicalValue(9, 1, 0));
+    }
+
+    @Test
+    public void testFillCreatesSolutions() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int size : new int[] { 1, 4, 9, 16, 25 }) {
+            for (int i = 0; i < 10; i++) {
+                Grid grid = new Grid(size);
+                generator.fill(grid, random);
+                assertTrue(grid.isSolved());
+            }
+        }
+    }
+
+    @Test
+    public void testSolutionsDiffer() {
+        SplittableRandom random = new SplittableRandom(5);
+        int[] first = generator.createSolution(9, random);
+        int[] second = generator.createSolution(9, random);
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void testReproducibleFromSeed() {
+        int[] first = generator.createSolution(9, new SplittableRandom(11));
+        int[] second = generator.createSolution(9, new SplittableRandom(11));
+        assertArrayEquals(first, second);
+    }
+}
@@ -0,0 +1,161 @@
+package de.htwg.sudoku.persistence;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.Grid;
+
+public class SessionJournalTest {
+
+/* Fields */
+    private Path directory;
+
+/* Setup */
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        deleteDirectory(directory);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+/* Tests */
+    @Test
+    public void testRecordsSurviveReopen() throws IOException {
+        Grid grid = new Grid(4);
+        grid.parseStringToGrid("12..2...342..32.");
+        try (SessionJournal journal = new SessionJournal(directory, 0, 100)) {
+            assertNull(journal.getSnapshot());
+            assertTrue(journal.getRecords().isEmpty());
+            journal.append(JournalRecord.setValue(0, 2, 3));
+            journal.append(JournalRecord.undo());
+            journal.append(JournalRecord.redo());
+            journal.append(JournalRecord.state(null, GridState.of(grid)));
+            journal.append(JournalRecord.resize(9));
+            journal.append(JournalRecord.load(GridState.of(grid)));
+            journal.sync();
+        }
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            List<JournalRecord> records = journal.getRecords();
+            assertEquals(6, records.size());
+            assertEquals(JournalRecord.Type.SET_VALUE, records.get(0).getType());
+            assertEquals(2, records.get(0).getColumn());
+            assertEquals(3, records.get(0).getValue());
+            assertEquals(JournalRecord.Type.UNDO, records.get(1).getType());
+            assertEquals(JournalRecord.Type.REDO, records.get(2).getType());
+            assertEquals(GridState.of(grid), records.get(3).getAfter());
+            assertTrue(records.get(3).getAfter().isGiven(0));
+            assertEquals(9, records.get(4).getValue());
+            assertEquals(JournalRecord.Type.LOAD, records.get(5).getType());
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws IOException {
+        try (SessionJournal journal = new SessionJournal(directory, 50, 1000)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(JournalRecord.setValue(0, 0, 1));
+            }
+            journal.sync();
+            assertTrue(journal.getCommits() < 10);
+        }
+    }
+
+    @Test
+    public void testFailedCommitStopsQueueing() throws IOException {
+        SessionJournal journal = new SessionJournal(directory, 0, 500);
+        deleteDirectory(directory);
+        journal.snapshot(new SessionSnapshot(GridState.of(new Grid(4)),
+                Collections.<JournalRecord>emptyList(), Collections.<JournalRecord>emptyList()));
+        try {
+            journal.sync();
+            fail("the snapshot can not be written");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            journal.append(JournalRecord.undo());
+            fail("nothing drains the queue any more");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            // the failure is reported once more
+        }
+        Files.createDirectory(directory);
+    }
+
+    @Test
+    public void testSnapshotStartsGeneration() throws IOException {
+        Grid grid = new Grid(4);
+        grid.parseStringToGrid("12..2...342..32.");
+        GridState before = GridState.of(new Grid(4));
+        try (SessionJournal journal = new SessionJournal(directory, 0, 2)) {
+            journal.append(JournalRecord.setValue(0, 2, 3));
+            assertFalse(journal.needsSnapshot());
+            journal.append(JournalRecord.setValue(0, 3, 4));
+            assertTrue(journal.needsSnapshot());
+            journal.snapshot(new SessionSnapshot(GridState.of(grid),
+                    Collections.singletonList(JournalRecord.state(before, GridState.of(grid))),
+                    Collections.singletonList(JournalRecord.setValue(1, 1, 4))));
+            assertFalse(journal.needsSnapshot());
+            journal.append(JournalRecord.undo());
+        }
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            SessionSnapshot snapshot = journal.getSnapshot();
+            assertEquals(GridState.of(grid), snapshot.getState());
+            assertEquals(before, snapshot.getUndoHistory().get(0).getBefore());
+            assertEquals(1, snapshot.getRedoHistory().get(0).getRow());
+            assertEquals(1, journal.getRecords().size());
+            assertEquals(JournalRecord.Type.UNDO, journal.getRecords().get(0).getType());
+        }
+        assertFalse(Files.exists(directory.resolve("journal-0.log")));
+        assertTrue(Files.exists(directory.resolve("journal-1.log")));
+    }
+
+    @Test
+    public void testTornTailIsCutOff() throws IOException {
+        try (SessionJournal journal = new SessionJournal(directory, 0, 100)) {
+            journal.append(JournalRecord.setValue(0, 0, 1));
+            journal.append(JournalRecord.setValue(0, 1, 2));
+        }
+        Path log = directory.resolve("journal-0.log");
+        long length = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 1);
+        }
+        try (SessionJournal journal = new SessionJournal(directory, 0, 100)) {
+            assertEquals(1, journal.getRecords().size());
+            journal.append(JournalRecord.setValue(0, 2, 3));
+        }
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            assertEquals(2, journal.getRecords().size());
+            assertEquals(3, journal.getRecords().get(1).getValue());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.htwg.sudoku.tools;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.htwg.sudoku.model.impl.DuplicateIndex;
+import de.htwg.sudoku.model.impl.GridCreateStrategyType;
+
+public class BulkGeneratorTest {
+
+/* Tests */
+    @Test
+    public void testGenerate() throws Exception {
+        StringWriter out = new StringWriter();
+        BulkGenerator generator = new BulkGenerator(9, GridCreateStrategyType.REMOVE_PAIRS, 3);
+        assertEquals(10, generator.generate(100, 10, out));
+        assertTrue(generator.getElapsedNanos() > 0);
+
+        Map<Long, String> lines = new HashMap<Long, String>();
+        for (String line : out.toString().split("\n")) {
+            String[] fields = line.split("\t");
+            assertEquals(4, fields.length);
+            assertEquals(81, fields[3].length());
+            assertEquals(81 - fields[3].replaceAll("[^.]", "").length(), Integer.parseInt(fields[1]));
+            assertTrue(Integer.parseInt(fields[2]) > 0);
+            lines.put(Long.parseLong(fields[0]), line);
+        }
+        assertEquals(10, lines.size());
+        for (long seed = 100; seed < 110; seed++) {
+            assertEquals(BulkGenerator.generate(GridCreateStrategyType.REMOVE_PAIRS.create(), 9, seed),
+                    lines.get(seed));
+        }
+    }
+
+    @Test
+    public void testSkippedDuplicatesAreNotCounted() throws Exception {
+        BulkGenerator generator = new BulkGenerator(9, GridCreateStrategyType.REMOVE_PAIRS, 2);
+        DuplicateIndex duplicateIndex = new DuplicateIndex();
+        generator.setDuplicateIndex(duplicateIndex);
+        assertEquals(4, generator.generate(100, 4, new StringWriter()));
+        StringWriter out = new StringWriter();
+        assertEquals(2, generator.generate(102, 4, out));
+        assertEquals(2, out.toString().split("\n").length);
+        assertEquals(2, duplicateIndex.getDuplicates());
+    }
+
+    @Test
+    public void testEveryStrategyType() throws Exception {
+        for (GridCreateStrategyType type : GridCreateStrategyType.values()) {
+            StringWriter out = new StringWriter();
+            new BulkGenerator(4, type, 2).generate(0, 3, out);
+            assertEquals(3, out.toString().split("\n").length);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalSize() {
+        new BulkGenerator(3, GridCreateStrategyType.RANDOM, 1);
+    }
+}
@@ -0,0 +1,61 @@
+package de.htwg.sudoku.tools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+/* Tests */
+    @Test
+    public void testBucketsCoverAllLatencies() {
+        for (int index = 1; index < 60 * 16; index++) {
+            long lower = LatencyHistogram.lowerBound(index);
+            assertEquals(index, LatencyHistogram.index(lower));
+            assertEquals(index - 1, LatencyHistogram.index(lower - 1));
+        }
+        assertTrue(LatencyHistogram.index(Long.MAX_VALUE) < 64 * 16);
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        for (long latency = 1; latency <= 10000; latency++) {
+            histogram.record(latency * 1000);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000000, histogram.getMax());
+        assertEquals(5000500, histogram.getMean(), 0.1);
+        assertWithin(5000000, histogram.getPercentile(50));
+        assertWithin(9900000, histogram.getPercentile(99));
+        assertEquals(10000000, histogram.getPercentile(100));
+        assertWithin(1000, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(5000);
+        }
+        fast.add(slow);
+        assertEquals(100, fast.getCount());
+        assertEquals(10, fast.getPercentile(90));
+        assertWithin(5000, fast.getPercentile(91));
+        assertEquals(5000, fast.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLatency() {
+        new LatencyHistogram().record(-1);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " is not near " + expected, actual >= expected && actual < expected + expected / 16 + 1);
+    }
+}
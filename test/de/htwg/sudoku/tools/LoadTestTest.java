@@ -0,0 +1,88 @@
+package de.htwg.sudoku.tools;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.htwg.sudoku.aview.http.SessionRegistry;
+import de.htwg.sudoku.aview.http.SudokuServer;
+import de.htwg.sudoku.controller.impl.SudokuController;
+import de.htwg.sudoku.model.impl.GridFactory;
+import de.htwg.sudoku.persistence.SessionJournal;
+import de.htwg.sudoku.tools.LoadTest.Move;
+import de.htwg.sudoku.tools.LoadTest.Report;
+
+public class LoadTestTest {
+
+/* Tests */
+    @Test
+    public void testInProcess() throws Exception {
+        Report report = new LoadTest(3, 4, Move.defaultMix()).run(LoadTest.inProcess(), 100, 400, 100);
+        assertTrue(report.getMoves() > 0);
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getThroughput() > 0);
+        long moves = 0;
+        for (Move move : Move.values()) {
+            moves += report.getLatencies(move).getCount();
+        }
+        assertEquals(report.getMoves(), moves);
+        assertTrue(report.getLatencies(null).getPercentile(50) <= report.getLatencies(null).getPercentile(99));
+        assertTrue(report.getSamples().size() >= 2);
+
+        JsonNode json = write(report);
+        assertEquals(3, json.get("players").asInt());
+        assertEquals(report.getMoves(), json.get("moves").asLong());
+        assertEquals(60, json.get("mix").get("set").asInt());
+        assertTrue(json.get("latencyMicrosByMove").has("undo"));
+        assertTrue(json.get("gc").has("maxPauseMillis"));
+        JsonNode last = json.get("samples").get(json.get("samples").size() - 1);
+        assertEquals(report.getMoves(), last.get("moves").asLong());
+        assertTrue(last.get("heapUsedBytes").asLong() > 0);
+    }
+
+    @Test
+    public void testOverHttp() throws Exception {
+        Path directory = Files.createTempDirectory("sessions");
+        SessionRegistry sessions = new SessionRegistry(directory, () -> new SudokuController(new GridFactory()),
+                60000, Long.MAX_VALUE);
+        SudokuServer server = new SudokuServer(0, sessions);
+        server.start();
+        try {
+            Map<Move, Integer> mix = Move.parseMix("set=3, candidates=1, undo=1");
+            Report report = new LoadTest(2, 4, mix).run(LoadTest.overHttp("http://localhost:" + server.getPort()),
+                    0, 300, 100);
+            assertTrue(report.getMoves() > 0);
+            assertEquals(0, report.getErrors());
+            assertEquals(0, report.getLatencies(Move.SOLVE).getCount());
+            // the players ended their sessions
+            assertEquals(0, sessions.count());
+        } finally {
+            server.close();
+            sessions.close();
+            for (String session : directory.toFile().list()) {
+                SessionJournal.delete(directory.resolve(session));
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyMix() {
+        new LoadTest(1, 9, Move.parseMix("set=0"));
+    }
+
+    private static JsonNode write(Report report) throws IOException {
+        StringWriter out = new StringWriter();
+        report.write(out);
+        return new ObjectMapper().readTree(out.toString());
+    }
+}
@@ -0,0 +1,34 @@
+package de.htwg.util.bloomfilter;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+/* Tests */
+    @Test
+    public void testPutAndMightContain() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        assertTrue(filter.getHashCount() > 1);
+        for (long hash = 0; hash < 1000; hash++) {
+            filter.put(hash * 0x9e3779b97f4a7c15L);
+        }
+        for (long hash = 0; hash < 1000; hash++) {
+            assertTrue(filter.mightContain(hash * 0x9e3779b97f4a7c15L));
+            assertFalse(filter.put(hash * 0x9e3779b97f4a7c15L));
+        }
+        int falsePositives = 0;
+        for (long hash = 1000; hash < 11000; hash++) {
+            if (filter.mightContain(hash * 0x9e3779b97f4a7c15L)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalRate() {
+        new BloomFilter(10, 1.5);
+    }
+}
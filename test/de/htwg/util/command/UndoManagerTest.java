@@ -37,4 +37,27 @@ public class UndoManagerTest {
 		
 	}
 
+	@Test
+	public void testSeparateHistories() {
+		UndoManager other = new UndoManager();
+		TestReceiver otherSum = new TestReceiver();
+		undoManager.doCommand(testObj);
+		other.doCommand(new TestUndoableCommand(otherSum));
+		other.undoCommand();
+		assertEquals(1, sum.getSum());
+		assertEquals(0, otherSum.getSum());
+		assertEquals(1, undoManager.getUndoCommands().size());
+		assertTrue(undoManager.getRedoCommands().isEmpty());
+	}
+
+	@Test
+	public void testResetForgetsRedo() {
+		undoManager.doCommand(testObj);
+		undoManager.undoCommand();
+		undoManager.reset();
+		assertTrue(undoManager.getRedoCommands().isEmpty());
+		undoManager.redoCommand();
+		assertEquals(0, sum.getSum());
+	}
+
 }